@@ -9,11 +9,22 @@ import java.util.*;
 
 public class Main {
     public static void main(String[] args) {
-        SayRepository repository = new DbSayRepository();   // 15단계
+        DbSayRepository dbRepository = new DbSayRepository();
+        // FULLTEXT 인덱스 추가는 스키마 변경이므로 배포할 때 켜서 한 번만 돌린다.
+        if (Boolean.getBoolean("say.db.migrate"))
+            dbRepository.createFullTextIndexes();
+        MeteredSayRepository metered = new MeteredSayRepository(dbRepository);
+        SayRepository repository = metered;   // 15단계
+        // 캐시는 이 프로세스의 쓰기만 알아서 다른 클라이언트와 같은 DB 를 쓰면 어긋난다. 혼자 쓸 때만 켠다.
+        if (Boolean.getBoolean("say.cache"))
+            repository = new CachingSayRepository(repository);
+//        SayRepository repository = new WriteBehindDbSayRepository();   // 15단계 (쓰기 지연)
+//        SayRepository repository = new LsmSayRepository();      // LSM (쓰기 위주 적재)
+//        SayRepository repository = new FileSayRepositoryV3();   // B+tree 페이지 파일
 //        SayRepository repository = new FileSayRepositoryV2();   // 10단계
 //        SayRepository repository = new FileSayRepositoryV1();   // 9단계
 //        SayRepository repository = new InMemorySayRepository(); // 8단계
-        SayService service = new SayService(repository);
+        SayService service = new SayService(repository, metered.getMetrics());
         new SayController(service, new Scanner(System.in)).run();
     }
 }
\ No newline at end of file
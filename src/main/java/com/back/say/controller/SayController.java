@@ -7,6 +7,7 @@ import com.back.say.exception.SayNotFoundException;
 import com.back.say.service.SayService;
 import com.back.say.utils.Pageable;
 import com.back.say.utils.Rq;
+import com.back.standard.util.OperationMetrics;
 
 import java.util.List;
 import java.util.Scanner;
@@ -59,6 +60,7 @@ public class SayController {
                 handleUpdate(id);
             }
             case "빌드" -> handleBuild();
+            case "통계" -> handleStats();
             case "도움" -> handleHelp();
         }
     }
@@ -67,6 +69,17 @@ public class SayController {
         sayService.build();
     }
 
+    private void handleStats() {
+        printStats(sayService.getMetrics());
+        sayService.getRepositoryMetrics().ifPresent(SayController::printStats);
+    }
+
+    private static void printStats(OperationMetrics<?> metrics) {
+        metrics.snapshot().stream()
+                .filter(snapshot -> snapshot.getLatency().getCount() > 0)
+                .forEach(System.out::println);
+    }
+
     private void handleHelp() {
         System.out.println("""
                 - 명령어 목록 -
@@ -74,6 +87,8 @@ public class SayController {
                 2. 목록
                 3. 삭제?id={번호}
                 4. 수정?id={번호}
+                5. 목록?cursor={마지막으로 본 번호}
+                6. 통계
                 """);
     }
 
@@ -99,14 +114,18 @@ public class SayController {
             String keywordType = rq.getParam("keywordType", "all");
             String keyword = rq.getParam("keyword", "");
             int page = rq.getParamAsInt("page", 1);
-            Pageable pageable = new Pageable(page, 5);
+            int cursor = rq.getParamAsInt("cursor", -1);
+            Pageable pageable = new Pageable(page, 5, cursor == -1 ? null : cursor);
 
             PageDto<ResponseSayDto> result = sayService.getPage(keywordType, keyword, pageable);
 
             System.out.println("번호 / 작가 / 명언");
             System.out.println("=====================");
             printDto(result.getContent());
-            printPage(result);
+            if (pageable.hasCursor())
+                printNextCursor(result, keywordType, keyword);
+            else
+                printPage(result);
 
         } catch (Exception e) {
             System.out.println("오류가 발생했습니다: " + e.getMessage());
@@ -152,6 +171,13 @@ public class SayController {
 
     }
 
+    private void printNextCursor(PageDto<?> result, String keywordType, String keyword) {
+        if (!result.hasNextCursor())
+            return;
+        String query = keyword.isBlank() ? "" : "keywordType=" + keywordType + "&keyword=" + keyword + "&";
+        System.out.println("다음 페이지 : 목록?" + query + "cursor=" + result.getNextCursor());
+    }
+
     private void printPage(PageDto<?> result) {
         int total = result.getTotalPages();
         int curr = result.getPageNo();
@@ -7,12 +7,22 @@ public class PageDto<T> {
     private final int pageNo;
     private final int pageSize;
     private final int totalCount;
+    // 다음 페이지를 키셋 방식으로 조회할 때 넘길 커서. 다음 페이지가 없으면 null
+    private final Integer nextCursor;
 
     public PageDto(List<T> content, int pageNo, int pageSize, int totalCount) {
+        this(content, pageNo, pageSize, totalCount, null);
+    }
+
+    /**
+     * 키셋 페이징에서는 전체 건수를 세지 않으므로 totalCount 에 -1 을 넘긴다.
+     */
+    public PageDto(List<T> content, int pageNo, int pageSize, int totalCount, Integer nextCursor) {
         this.content = content;
         this.pageNo = pageNo;
         this.pageSize = pageSize;
         this.totalCount = totalCount;
+        this.nextCursor = nextCursor;
     }
 
     public List<T> getContent() {
@@ -31,8 +41,16 @@ public class PageDto<T> {
         return totalCount;
     }
 
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNextCursor() {
+        return nextCursor != null;
+    }
+
     public int getTotalPages() {
-        if (totalCount == 0)
+        if (totalCount <= 0)
             return 0;
         return (totalCount + pageSize - 1) / pageSize;
     }
@@ -0,0 +1,56 @@
+package com.back.say.repository;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 스냅샷 파일을 제자리에서 덮어쓰지 않고, 같은 디렉터리의 임시 파일에 다 쓴 뒤 fsync 하고 이름을 바꿔 교체한다.
+ * 중간에 죽어도 원래 파일이나 새 파일 중 하나가 온전히 남고, 반쯤 쓰인 파일은 생기지 않는다.
+ */
+public class AtomicFileWriter {
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    @FunctionalInterface
+    public interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private AtomicFileWriter() {
+    }
+
+    public static void write(Path target, ChannelWriter writer) throws IOException {
+        Path tmpPath = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmpPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writer.write(channel);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmpPath);
+            throw e;
+        }
+        Files.move(tmpPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * 시작할 때 불러서 이전 실행이 남긴 임시 파일을 지운다.
+     */
+    public static void deleteLeftover(Path target) throws IOException {
+        Files.deleteIfExists(target.resolveSibling(target.getFileName() + TEMP_SUFFIX));
+    }
+
+    // 이름 바꾸기도 디스크에 남도록 디렉터리를 fsync 한다. 지원하지 않는 OS 에서는 건너뛴다.
+    private static void syncDirectory(Path dir) {
+        if (dir == null)
+            return;
+        try (FileChannel channel = FileChannel.open(dir, READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 윈도우 등에서는 디렉터리를 열 수 없다.
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.back.say.repository;
+
+import com.back.say.exception.RepositoryException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 페이지 파일 위의 고정 크기 버퍼 풀. 교체 대상은 clock(second chance) 으로 고른다.
+ * 더티 페이지는 쫓아내지 않는다(no-steal). 파일에는 체크포인트 때만 한꺼번에 쓰므로
+ * 디스크의 페이지들은 항상 마지막 체크포인트 시점의 온전한 트리다.
+ * 더티 페이지가 너무 많아지면 호출한 쪽이 연산 사이에 체크포인트를 해서 비운다.
+ * 연산 하나가 도중에 새 프레임이 더 필요하면 잠깐 capacity 를 넘겨서 받는다.
+ * 스레드 안전하지 않으므로 호출한 쪽의 잠금 안에서 쓴다.
+ */
+public class BufferPool {
+    public static class Page {
+        private final ByteBuffer buf;
+        private int pageId;
+        private int pins;
+        private boolean dirty;
+        private boolean referenced;
+
+        private Page(int pageSize) {
+            this.buf = ByteBuffer.allocate(pageSize);
+        }
+
+        public ByteBuffer buf() {
+            return buf;
+        }
+
+        public int getPageId() {
+            return pageId;
+        }
+    }
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int capacity;
+    private final List<Page> frames = new ArrayList<>();
+    private final HashMap<Integer, Page> pageTable = new HashMap<>();
+    private int hand;
+    private int dirtyCount;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BufferPool(FileChannel channel, int pageSize, int capacity) {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 페이지를 읽어서 고정(pin)한다. 다 쓰면 unpin 해야 한다.
+     */
+    public Page fetch(int pageId) {
+        Page page = pageTable.get(pageId);
+        if (page != null) {
+            hits++;
+            page.pins++;
+            page.referenced = true;
+            return page;
+        }
+
+        misses++;
+        page = takeFrame(pageId);
+        ByteBuffer buf = page.buf;
+        buf.clear();
+        try {
+            long position = (long) pageId * pageSize;
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, position + buf.position());
+                if (n < 0)
+                    break;
+            }
+        } catch (IOException e) {
+            pageTable.remove(pageId);
+            page.pins = 0;
+            throw new RepositoryException("페이지 읽기 실패 : " + pageId, e);
+        }
+        // 아직 한 번도 파일에 쓰지 않은 페이지는 0 으로 채운다.
+        while (buf.hasRemaining()) {
+            buf.put((byte) 0);
+        }
+        buf.clear();
+        return page;
+    }
+
+    /**
+     * 파일에서 읽지 않고 0 으로 채운 새 페이지를 고정해서 돌려준다.
+     */
+    public Page create(int pageId) {
+        Page page = pageTable.get(pageId);
+        if (page == null)
+            page = takeFrame(pageId);
+        else
+            page.pins++;
+        Arrays.fill(page.buf.array(), (byte) 0);
+        page.buf.clear();
+        markDirty(page);
+        return page;
+    }
+
+    public void unpin(Page page) {
+        page.pins--;
+    }
+
+    public void markDirty(Page page) {
+        if (!page.dirty) {
+            page.dirty = true;
+            dirtyCount++;
+        }
+    }
+
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * 체크포인트용 : 더티 페이지를 페이지 번호 순서로
+     */
+    public List<Page> dirtyPages() {
+        List<Page> dirty = new ArrayList<>(dirtyCount);
+        for (Page page : frames) {
+            if (page.dirty)
+                dirty.add(page);
+        }
+        dirty.sort(Comparator.comparingInt(Page::getPageId));
+        return dirty;
+    }
+
+    /**
+     * 체크포인트가 끝나면 부른다. 잠깐 capacity 를 넘겨 받았던 프레임도 돌려놓는다.
+     */
+    public void markAllClean() {
+        for (Page page : frames) {
+            page.dirty = false;
+        }
+        dirtyCount = 0;
+
+        for (int i = frames.size() - 1; i >= 0 && frames.size() > capacity; i--) {
+            Page page = frames.get(i);
+            if (page.pins > 0)
+                continue;
+            pageTable.remove(page.pageId);
+            frames.remove(i);
+        }
+        if (hand >= frames.size())
+            hand = 0;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    private Page takeFrame(int pageId) {
+        Page page = frames.size() < capacity ? newFrame() : evict();
+        page.pageId = pageId;
+        page.pins = 1;
+        page.referenced = true;
+        page.dirty = false;
+        pageTable.put(pageId, page);
+        return page;
+    }
+
+    private Page newFrame() {
+        Page page = new Page(pageSize);
+        frames.add(page);
+        return page;
+    }
+
+    // 시계 바늘을 돌리면서 참조 비트를 한 번씩 지워주고, 두 바퀴 안에 고정도 더티도 아닌 페이지를 찾으면 쫓아낸다.
+    private Page evict() {
+        int size = frames.size();
+        for (int i = 0; i < size * 2; i++) {
+            Page page = frames.get(hand);
+            hand = (hand + 1) % size;
+            if (page.pins > 0 || page.dirty)
+                continue;
+            if (page.referenced) {
+                page.referenced = false;
+                continue;
+            }
+            pageTable.remove(page.pageId);
+            evictions++;
+            return page;
+        }
+        return newFrame();
+    }
+}
@@ -0,0 +1,225 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 다른 SayRepository 를 감싸서 findById 와 findPage 결과를 캐시한다.
+ * findById 는 id 단위 LRU, findPage 는 (검색 조건, 페이지) 단위 LRU 이다.
+ * 쓰기가 일어나면 해당 id 만 지우고, 페이지 캐시는 세대(generation) 번호를 올려서 한 번에 무효화한다.
+ * 이 프로세스 안의 쓰기만 보므로, 같은 DB 를 다른 클라이언트도 쓴다면 감싸지 않는다.
+ */
+public class CachingSayRepository implements SayRepository {
+    private final SayRepository delegate;
+    private final LruCache<Integer, Optional<Say>> entryCache;
+    private final LruCache<PageKey, PageEntry> pageCache;
+
+    // 쓰기마다 증가. 이보다 오래된 세대의 페이지 결과는 쓰지 않는다.
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingSayRepository(SayRepository delegate) {
+        this(delegate, 1_000, 100);
+    }
+
+    public CachingSayRepository(SayRepository delegate, int maxEntries, int maxPages) {
+        this.delegate = delegate;
+        this.entryCache = new LruCache<>(maxEntries);
+        this.pageCache = new LruCache<>(maxPages);
+    }
+
+    @Override
+    public int create(SayDto dto) {
+        int id = delegate.create(dto);
+        invalidate(id);
+        return id;
+    }
+
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        List<Integer> ids = delegate.createAll(dtoList);
+        entryCache.invalidate(ids, generation);
+        return ids;
+    }
+
+    @Override
+    public int update(int id, SayDto dto) {
+        try {
+            return delegate.update(id, dto);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public int delete(int id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public Optional<Say> findById(int id) {
+        Optional<Say> cached = entryCache.get(id);
+        if (cached != null)
+            return cached;
+
+        // 조회 도중 쓰기가 끼어들었으면 오래된 값일 수 있으므로 캐시에 넣지 않는다.
+        long gen = generation.get();
+        Optional<Say> result = delegate.findById(id);
+        entryCache.putIfGeneration(id, result, generation, gen);
+        return result;
+    }
+
+    @Override
+    public List<Say> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Say> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public void build() {
+        delegate.build();
+    }
+
+    @Override
+    public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+        PageKey key = new PageKey(
+                cond.hasAuthorCondition() ? cond.getAuthorContains() : null,
+                cond.hasContentCondition() ? cond.getContentContains() : null,
+                pageable.getPageNo(), pageable.getPageSize(), pageable.getCursor());
+
+        long gen = generation.get();
+        PageEntry cached = pageCache.get(key);
+        if (cached != null && cached.generation == gen)
+            return cached.page;
+
+        PageDto<Say> page = delegate.findPage(cond, pageable);
+        if (page != null && gen == generation.get())
+            pageCache.put(key, new PageEntry(gen, page));
+        return page;
+    }
+
+    public CacheStats getEntryCacheStats() {
+        return entryCache.stats();
+    }
+
+    public CacheStats getPageCacheStats() {
+        return pageCache.stats();
+    }
+
+    private void invalidate(int id) {
+        entryCache.invalidate(List.of(id), generation);
+    }
+
+    private record PageKey(String authorContains, String contentContains, int pageNo, int pageSize, Integer cursor) {
+    }
+
+    private record PageEntry(long generation, PageDto<Say> page) {
+    }
+
+    private static class LruCache<K, V> {
+        private final LinkedHashMap<K, V> map;
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+
+        private LruCache(int maxSize) {
+            map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    if (size() <= maxSize)
+                        return false;
+                    evictionCount++;
+                    return true;
+                }
+            };
+        }
+
+        private synchronized V get(K key) {
+            V value = map.get(key);
+            if (value == null)
+                missCount++;
+            else
+                hitCount++;
+            return value;
+        }
+
+        private synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        /**
+         * 세대를 올리고 지우는 것과 세대를 확인하고 넣는 것을 이 캐시의 잠금 하나로 묶는다.
+         * 따로 하면 확인과 넣기 사이에 무효화가 끼어들어 오래된 값이 계속 남는다.
+         */
+        private synchronized void invalidate(Iterable<K> keys, AtomicLong generation) {
+            generation.incrementAndGet();
+            keys.forEach(map::remove);
+        }
+
+        private synchronized void putIfGeneration(K key, V value, AtomicLong generation, long expected) {
+            if (generation.get() == expected)
+                map.put(key, value);
+        }
+
+        private synchronized CacheStats stats() {
+            return new CacheStats(hitCount, missCount, evictionCount, map.size());
+        }
+    }
+
+    public static class CacheStats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int size;
+
+        public CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+
+        @Override
+        public String toString() {
+            return "hit=" + hitCount + ", miss=" + missCount + ", eviction=" + evictionCount + ", size=" + size;
+        }
+    }
+}
@@ -6,13 +6,51 @@ import com.back.say.dto.SayDto;
 import com.back.say.utils.Pageable;
 import com.back.say.utils.SaySearchCondition;
 import com.back.standard.util.DbConnectionUtil;
+import com.back.standard.util.SqlTimingLogger;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DbSayRepository implements SayRepository{
+    private static final int BATCH_SIZE = 1000;
+    private static final String[][] FULLTEXT_INDEXES = {
+            {"ft_say_author", "author"},
+            {"ft_say_content", "content"}
+    };
+    // InnoDB 기본 불용어 목록 (information_schema.INNODB_FT_DEFAULT_STOPWORD)
+    private static final Set<String> DEFAULT_STOPWORDS = Set.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from", "how", "i", "in",
+            "is", "it", "la", "of", "on", "or", "that", "the", "this", "to", "was", "what", "when", "where", "who",
+            "will", "with", "und", "www");
+
+    // null 이면 아직 서버 버전을 확인하지 않은 상태
+    private volatile Boolean windowFunctionSupported;
+    // null 이면 아직 인덱스 정보를 읽지 않은 상태
+    private volatile Set<String> fullTextIndexes;
+    private volatile int ngramTokenSize = 2;
+    // 인덱스를 만들 때 적용된 불용어. 소문자
+    private volatile Set<String> stopwords = DEFAULT_STOPWORDS;
+
+    private final SqlTimingLogger sqlLogger;
+
+    public DbSayRepository() {
+        this(SqlTimingLogger.fromSystemProperties());
+    }
+
+    public DbSayRepository(SqlTimingLogger sqlLogger) {
+        this.sqlLogger = sqlLogger;
+    }
+
     @Override
     public int create(SayDto dto) {
         String sql = "INSERT INTO say (content, author) VALUES (?, ?)";
@@ -23,7 +61,9 @@ public class DbSayRepository implements SayRepository{
             pstmt.setString(1, dto.getContent());
             pstmt.setString(2, dto.getAuthor());
 
+            long start = sqlLogger.start();
             int affectedRows = pstmt.executeUpdate();
+            sqlLogger.record(sql, 2, affectedRows, start);
             if (affectedRows == 0) {
                 throw new RuntimeException("INSERT 실패, 반영된 row 없음");
             }
@@ -40,6 +80,56 @@ public class DbSayRepository implements SayRepository{
         }
     }
 
+    /**
+     * addBatch 로 모아서 보내고 rewriteBatchedStatements 옵션으로 multi-row INSERT 로 바뀌어 전송된다.
+     * 전체를 하나의 트랜잭션으로 처리한다.
+     */
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        String sql = "INSERT INTO say (content, author) VALUES (?, ?)";
+        List<Integer> ids = new ArrayList<>(dtoList.size());
+        if (dtoList.isEmpty())
+            return ids;
+
+        try(Connection conn = DbConnectionUtil.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (int i = 0; i < dtoList.size(); i++) {
+                    SayDto dto = dtoList.get(i);
+                    pstmt.setString(1, dto.getContent());
+                    pstmt.setString(2, dto.getAuthor());
+                    pstmt.addBatch();
+
+                    if ((i + 1) % BATCH_SIZE == 0 || i == dtoList.size() - 1) {
+                        long start = sqlLogger.start();
+                        int[] counts = pstmt.executeBatch();
+                        sqlLogger.record(sql, 2 * counts.length, counts.length, start);
+                        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                            while (rs.next()) {
+                                ids.add(rs.getInt(1));
+                            }
+                        }
+                    }
+                }
+                if (ids.size() != dtoList.size())
+                    throw new RuntimeException("INSERT: 생성된 ID 개수가 맞지 않음");
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            return ids;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("DB INSERT (createAll) 실패", e);
+        }
+    }
+
     @Override
     public int update(int id, SayDto dto) {
         String sql = "UPDATE say SET content = ?, author = ? WHERE id = ?";
@@ -51,7 +141,9 @@ public class DbSayRepository implements SayRepository{
             pstmt.setString(2, dto.getAuthor());
             pstmt.setInt(3, id);
 
+            long start = sqlLogger.start();
             int affectedRows = pstmt.executeUpdate();
+            sqlLogger.record(sql, 3, affectedRows, start);
             return affectedRows != 0 ? id : -1;
 
 
@@ -69,7 +161,9 @@ public class DbSayRepository implements SayRepository{
 
             pstmt.setInt(1, id);
 
+            long start = sqlLogger.start();
             int affectedRows = pstmt.executeUpdate();
+            sqlLogger.record(sql, 1, affectedRows, start);
             return affectedRows != 0 ? id : -1;
 
         } catch (SQLException e) {
@@ -86,11 +180,11 @@ public class DbSayRepository implements SayRepository{
 
             pstmt.setInt(1, id);
 
+            long start = sqlLogger.start();
             try (ResultSet rs = pstmt.executeQuery()) {
-                if(!rs.next()) {
-                    return Optional.empty();
-                }
-                return Optional.of(mapRow(rs));
+                Optional<Say> result = rs.next() ? Optional.of(mapRow(rs)) : Optional.empty();
+                sqlLogger.record(sql, 1, result.isPresent() ? 1 : 0, start);
+                return result;
             }
 
         } catch (SQLException e) {
@@ -107,11 +201,13 @@ public class DbSayRepository implements SayRepository{
 
             ArrayList<Say> sayList = new ArrayList<>();
 
+            long start = sqlLogger.start();
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     sayList.add(mapRow(rs));
                 }
             }
+            sqlLogger.record(sql, 0, sayList.size(), start);
 
             return sayList;
 
@@ -120,30 +216,226 @@ public class DbSayRepository implements SayRepository{
         }
     }
 
+    /**
+     * fetchSize 를 Integer.MIN_VALUE 로 주면 MySQL 드라이버가 결과를 한 행씩 스트리밍한다.
+     * 스트림이 닫힐 때 ResultSet, Statement, Connection 을 함께 닫는다.
+     */
+    @Override
+    public Stream<Say> streamAll() {
+        String sql = "SELECT id, content, author FROM say ORDER BY id DESC";
+
+        Connection conn = DbConnectionUtil.getConnection();
+        try {
+            PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            long start = sqlLogger.start();
+            ResultSet rs = pstmt.executeQuery();
+            int[] rows = {0};
+
+            Spliterator<Say> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Say> action) {
+                    try {
+                        if (!rs.next())
+                            return false;
+                        rows[0]++;
+                        action.accept(mapRow(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException("DB SELECT (streamAll) 실패", e);
+                    }
+                }
+            };
+
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> {
+                        sqlLogger.record(sql, 0, rows[0], start);
+                        closeAll(rs, pstmt, conn);
+                    });
+
+        } catch (SQLException e) {
+            closeAll(conn);
+            throw new RuntimeException("DB SELECT (streamAll) 실패", e);
+        }
+    }
+
+    private void closeAll(AutoCloseable... resources) {
+        RuntimeException failure = null;
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null)
+                    failure = new RuntimeException("DB 자원 해제 실패", e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * 스키마는 바꾸지 않는다. 인덱스 정보만 다시 읽게 해서 그 사이 적용된 마이그레이션을 반영한다.
+     */
     @Override
     public void build() {
+        fullTextIndexes = null;
+    }
+
+    /**
+     * 마이그레이션 : 검색용 FULLTEXT(ngram) 인덱스가 없으면 만든다. 한글 부분 문자열 검색을 위해 ngram 파서를 쓴다.
+     * 큰 테이블에서는 오래 걸리는 DDL 이므로 build() 에서 부르지 않고, 배포할 때 한 번 명시적으로 부른다. (Main 의 -Dsay.db.migrate=true)
+     * 인덱스가 생기면 이후 키워드 검색은 MATCH ... AGAINST 로 후보를 좁힌 뒤 LIKE 로 확인한다.
+     */
+    public void createFullTextIndexes() {
+        try (Connection conn = DbConnectionUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            Set<String> existing = loadFullTextIndexes(conn);
+            for (String[] index : FULLTEXT_INDEXES) {
+                if (existing.contains(index[1]))
+                    continue;
+                String sql = "ALTER TABLE say ADD FULLTEXT INDEX " + index[0] + " (" + index[1] + ") WITH PARSER ngram";
+                long start = sqlLogger.start();
+                stmt.execute(sql);
+                sqlLogger.record(sql, 0, -1, start);
+            }
+            fullTextIndexes = loadFullTextIndexes(conn);
 
+        } catch (SQLException e) {
+            throw new RuntimeException("FULLTEXT 인덱스 생성 실패", e);
+        }
     }
 
     @Override
     public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
         StringBuilder fromClause = new StringBuilder("FROM say");
         List<Object> params = new ArrayList<>();
-        addWhereToSql(cond, fromClause, params);
 
-        int count = count(fromClause, params);
-        List<Say> pageContent = findPageContent(fromClause, params, pageable);
+        try (Connection conn = DbConnectionUtil.getConnection()) {
+            addWhereToSql(conn, cond, fromClause, params);
+
+            if (pageable.hasCursor()) {
+                return findPageAfterCursor(conn, fromClause, params, pageable);
+            }
+            // 지원 여부는 처음 한 번만 정하고, 그 뒤의 문법 오류는 그대로 실패로 올린다.
+            if (supportsWindowFunction(conn)) {
+                return findPageWithWindowCount(conn, fromClause, params, pageable);
+            }
+
+            int count = count(conn, fromClause, params);
+            List<Say> pageContent = findPageContent(conn, fromClause, params, pageable);
+
+            return new PageDto<>(pageContent, pageable.getPageNo(), pageable.getPageSize(), count,
+                    nextCursor(pageContent, pageable.getOffset() + pageContent.size() < count));
+
+        } catch (SQLException e) {
+            throw new RuntimeException("DB findPage 실패", e);
+        }
+    }
+
+    /**
+     * COUNT(*) OVER() 로 페이지 내용과 전체 건수를 한 번에 가져온다.
+     * 마지막 페이지를 넘어간 요청처럼 결과 행이 없을 때만 COUNT 를 따로 조회한다.
+     */
+    private PageDto<Say> findPageWithWindowCount(Connection conn, StringBuilder fromClause, List<Object> params, Pageable pageable) throws SQLException {
+        String sql = "SELECT id, content, author, COUNT(*) OVER() AS total_count " + fromClause + " ORDER BY id DESC LIMIT ? OFFSET ?";
+        List<Say> pageContent = new ArrayList<>();
+        int count = -1;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bindParams(params, pstmt);
+            int idx = params.size();
+            idx++;
+            pstmt.setInt(idx++, pageable.getPageSize());
+            pstmt.setInt(idx, pageable.getOffset());
+
+            long start = sqlLogger.start();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (count < 0)
+                        count = rs.getInt("total_count");
+                    pageContent.add(mapRow(rs));
+                }
+            }
+            sqlLogger.record(sql, idx, pageContent.size(), start);
+        }
+
+        if (count < 0)
+            count = pageable.getOffset() == 0 ? 0 : count(conn, fromClause, params);
+
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageable.getPageSize(), count,
+                nextCursor(pageContent, pageable.getOffset() + pageContent.size() < count));
+    }
+
+    /**
+     * 키셋 페이징 : id 인덱스를 타고 커서 위치로 바로 이동하므로 깊은 페이지도 첫 페이지와 비용이 같다.
+     * 다음 페이지 존재 여부는 pageSize + 1 건을 읽어서 판단하고, 전체 건수는 세지 않는다.
+     */
+    private PageDto<Say> findPageAfterCursor(Connection conn, StringBuilder fromClause, List<Object> params, Pageable pageable) throws SQLException {
+        String sql = "SELECT id, content, author " + fromClause
+                + (params.isEmpty() ? " WHERE" : " AND") + " id < ? ORDER BY id DESC LIMIT ?";
+        List<Say> pageContent = new ArrayList<>();
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bindParams(params, pstmt);
+            int idx = params.size();
+            idx++;
+            pstmt.setInt(idx++, pageable.getCursor());
+            pstmt.setInt(idx, pageable.getPageSize() + 1);
+
+            long start = sqlLogger.start();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    pageContent.add(mapRow(rs));
+                }
+            }
+            sqlLogger.record(sql, idx, pageContent.size(), start);
+        }
+
+        boolean hasMore = pageContent.size() > pageable.getPageSize();
+        if (hasMore)
+            pageContent.remove(pageContent.size() - 1);
+
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageable.getPageSize(), -1,
+                nextCursor(pageContent, hasMore));
+    }
+
+    private Integer nextCursor(List<Say> pageContent, boolean hasMore) {
+        if (!hasMore || pageContent.isEmpty())
+            return null;
+        return pageContent.get(pageContent.size() - 1).getId();
+    }
 
-        return new PageDto<>(pageContent, pageable.getPageNo(), pageable.getPageSize(), count);
+    private boolean supportsWindowFunction(Connection conn) throws SQLException {
+        Boolean supported = windowFunctionSupported;
+        if (supported == null) {
+            // MySQL 8.0 부터 윈도우 함수 지원. 버전이 맞아도 실제로 OVER 를 못 읽는 서버(1064)면 2회 조회로 처리
+            supported = conn.getMetaData().getDatabaseMajorVersion() >= 8 && parsesWindowFunction(conn);
+            windowFunctionSupported = supported;
+        }
+        return supported;
     }
 
-    private List<Say> findPageContent(StringBuilder fromClause, List<Object> params, Pageable pageable) {
+    private boolean parsesWindowFunction(Connection conn) throws SQLException {
+        String sql = "SELECT COUNT(*) OVER () FROM DUAL";
+        try (Statement stmt = conn.createStatement()) {
+            long start = System.nanoTime();
+            stmt.executeQuery(sql).close();
+            sqlLogger.record(sql, 0, -1, start);
+            return true;
+        } catch (SQLSyntaxErrorException e) {
+            if (e.getErrorCode() == 1064)
+                return false;
+            throw e;
+        }
+    }
+
+    private List<Say> findPageContent(Connection conn, StringBuilder fromClause, List<Object> params, Pageable pageable) throws SQLException {
         String sql = "SELECT id, content, author " + fromClause + " ORDER BY id DESC LIMIT ? OFFSET ?";
-        System.out.println("sql = " + sql);
         List<Say> result = new ArrayList<>();
 
-        try(Connection conn = DbConnectionUtil.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try(PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             bindParams(params, pstmt);
             int idx = params.size();
@@ -151,36 +443,33 @@ public class DbSayRepository implements SayRepository{
             pstmt.setInt(idx++, pageable.getPageSize());
             pstmt.setInt(idx, pageable.getOffset());
 
+            long start = sqlLogger.start();
             try (ResultSet rs = pstmt.executeQuery()) {
                 while(rs.next()) {
                     result.add(mapRow(rs));
                 }
             }
-
-        } catch (SQLException e) {
-            throw new RuntimeException("DB findPageContent 실패", e);
+            sqlLogger.record(sql, idx, result.size(), start);
         }
 
         return result;
     }
 
-    private int count(StringBuilder fromClause, List<Object> params) {
+    private int count(Connection conn, StringBuilder fromClause, List<Object> params) throws SQLException {
         String sql = "SELECT COUNT(*) " + fromClause;
 
-        try(Connection conn = DbConnectionUtil.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try(PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             bindParams(params, pstmt);
 
+            long start = sqlLogger.start();
             try(ResultSet rs = pstmt.executeQuery()) {
                 rs.next();
-                return rs.getInt(1);
+                int count = rs.getInt(1);
+                sqlLogger.record(sql, params.size(), 1, start);
+                return count;
             }
-
-        } catch (SQLException e) {
-            throw new RuntimeException("DB COUNT(*) 실패", e);
         }
-
     }
 
     private void bindParams(List<Object> params, PreparedStatement pstmt) throws SQLException {
@@ -189,7 +478,7 @@ public class DbSayRepository implements SayRepository{
         }
     }
 
-    private void addWhereToSql(SaySearchCondition cond, StringBuilder sql, List<Object> params) {
+    private void addWhereToSql(Connection conn, SaySearchCondition cond, StringBuilder sql, List<Object> params) throws SQLException {
         if ((!cond.hasAuthorCondition() || cond.getAuthorContains().isBlank()) &&
                 (!cond.hasContentCondition() || cond.getContentContains().isBlank())) {
             return;
@@ -197,16 +486,112 @@ public class DbSayRepository implements SayRepository{
         sql.append(" WHERE ");
 
         if (cond.hasAuthorCondition() && cond.hasContentCondition()) {
-            sql.append("(author LIKE ? OR content LIKE ?)");
-            params.add("%"+cond.getAuthorContains()+"%");
-            params.add("%"+cond.getContentContains()+"%");
+            sql.append("(");
+            addKeywordCondition(conn, "author", cond.getAuthorContains(), sql, params);
+            sql.append(" OR ");
+            addKeywordCondition(conn, "content", cond.getContentContains(), sql, params);
+            sql.append(")");
         } else if (cond.hasAuthorCondition()) {
-            sql.append("author LIKE ?");
-            params.add("%"+cond.getAuthorContains()+"%");
+            addKeywordCondition(conn, "author", cond.getAuthorContains(), sql, params);
         } else if (cond.hasContentCondition()) {
-            sql.append("content LIKE ?");
-            params.add("%"+cond.getContentContains()+"%");
+            addKeywordCondition(conn, "content", cond.getContentContains(), sql, params);
+        }
+    }
+
+    /**
+     * column LIKE '%keyword%' 조건을 붙인다. 그 컬럼의 FULLTEXT 인덱스로 keyword 의 모든 ngram 을 찾을 수 있으면
+     * (MATCH(column) AGAINST ... AND column LIKE ...) 로 묶어서 인덱스로 후보를 좁히고 LIKE 로 다시 확인한다.
+     * 작가와 내용 조건을 OR 로 묶을 때도 키워드마다 자기 컬럼에 MATCH 를 건다.
+     *
+     * MATCH 가 놓치는 행이 있으면 결과가 LIKE 단독일 때보다 줄어들므로 다음 키워드에는 MATCH 를 걸지 않는다.
+     * - ngram 토큰보다 짧은 키워드 : 토큰이 만들어지지 않는다.
+     * - 공백이나 따옴표가 들어간 키워드 : 공백은 토큰을 나누고, 따옴표는 구문 검색을 깨뜨린다.
+     * - 불용어가 들어간 키워드 : ngram 파서는 불용어를 포함한 토큰을 색인하지 않는다. ("a", "i" 등)
+     */
+    private void addKeywordCondition(Connection conn, String column, String keyword, StringBuilder sql, List<Object> params) throws SQLException {
+        if (isMatchable(conn, column, keyword)) {
+            sql.append("(MATCH(").append(column).append(") AGAINST (? IN BOOLEAN MODE) AND ").append(column).append(" LIKE ?)");
+            params.add("\"" + keyword + "\"");
+        } else {
+            sql.append(column).append(" LIKE ?");
+        }
+        params.add("%" + keyword + "%");
+    }
+
+    private boolean isMatchable(Connection conn, String column, String keyword) throws SQLException {
+        Set<String> indexes = fullTextIndexes;
+        if (indexes == null) {
+            indexes = loadFullTextIndexes(conn);
+            fullTextIndexes = indexes;
         }
+        if (!indexes.contains(column))
+            return false;
+        if (keyword.length() < ngramTokenSize || keyword.chars().anyMatch(c -> Character.isWhitespace(c) || c == '"'))
+            return false;
+
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        for (String stopword : stopwords) {
+            if (lower.contains(stopword))
+                return false;
+        }
+        return true;
+    }
+
+    // say 테이블의 FULLTEXT 인덱스들을 "author,content" 같은 컬럼 목록 문자열로 돌려준다.
+    private Set<String> loadFullTextIndexes(Connection conn) throws SQLException {
+        String sql = """
+                SELECT INDEX_NAME, GROUP_CONCAT(COLUMN_NAME ORDER BY SEQ_IN_INDEX) AS cols
+                FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'say' AND INDEX_TYPE = 'FULLTEXT'
+                GROUP BY INDEX_NAME
+                """;
+        Set<String> result = new HashSet<>();
+
+        long start = sqlLogger.start();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                result.add(rs.getString("cols"));
+            }
+        }
+        sqlLogger.record(sql, 0, result.size(), start);
+
+        if (!result.isEmpty()) {
+            String serverStopwordTable = null;
+            boolean stopwordEnabled = true;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT @@ngram_token_size, @@innodb_ft_enable_stopword, @@innodb_ft_server_stopword_table")) {
+                if (rs.next()) {
+                    ngramTokenSize = rs.getInt(1);
+                    stopwordEnabled = rs.getBoolean(2);
+                    serverStopwordTable = rs.getString(3);
+                }
+            }
+            stopwords = loadStopwords(conn, stopwordEnabled, serverStopwordTable);
+        }
+        return result;
+    }
+
+    /**
+     * 불용어를 끄고 만든 인덱스면 빈 목록, 서버 불용어 테이블("db/table")을 지정했으면 그 테이블, 아니면 InnoDB 기본 목록.
+     */
+    private Set<String> loadStopwords(Connection conn, boolean enabled, String serverTable) throws SQLException {
+        if (!enabled)
+            return Set.of();
+        if (serverTable == null || serverTable.isBlank())
+            return DEFAULT_STOPWORDS;
+
+        String sql = "SELECT value FROM `" + serverTable.replace("`", "").replace("/", "`.`") + "`";
+        Set<String> result = new HashSet<>();
+        long start = sqlLogger.start();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                result.add(rs.getString(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        sqlLogger.record(sql, 0, result.size(), start);
+        return result;
     }
 
     private Say mapRow(ResultSet rs) throws SQLException {
@@ -0,0 +1,74 @@
+package com.back.say.repository;
+
+/**
+ * 파일 저장소의 쓰기를 언제 디스크에 내릴지(fsync) 정한다.
+ * - NONE : OS 에 맡긴다. 가장 빠르지만 전원이 나가면 최근 쓰기를 잃을 수 있다.
+ * - GROUP_COMMIT : groupCommitMillis 마다 또는 groupCommitOps 개가 쌓일 때마다 한 번 내린다. 잃을 수 있는 범위가 그만큼으로 묶인다.
+ * - SYNC_PER_OP : 연산이 끝나기 전에 반드시 내린다. 동시에 기다리는 쓰기들은 fsync 한 번을 함께 쓴다.
+ */
+public class DurabilityPolicy {
+    public enum Mode {
+        NONE, GROUP_COMMIT, SYNC_PER_OP
+    }
+
+    private static final DurabilityPolicy NONE = new DurabilityPolicy(Mode.NONE, 0, 0);
+
+    private final Mode mode;
+    private final long groupCommitMillis;
+    private final int groupCommitOps;
+
+    private DurabilityPolicy(Mode mode, long groupCommitMillis, int groupCommitOps) {
+        this.mode = mode;
+        this.groupCommitMillis = groupCommitMillis;
+        this.groupCommitOps = groupCommitOps;
+    }
+
+    public static DurabilityPolicy none() {
+        return NONE;
+    }
+
+    public static DurabilityPolicy syncPerOp() {
+        return new DurabilityPolicy(Mode.SYNC_PER_OP, 0, 0);
+    }
+
+    public static DurabilityPolicy groupCommit(long millis, int ops) {
+        if (millis <= 0 || ops <= 0)
+            throw new IllegalArgumentException("groupCommit 주기와 건수는 0보다 커야 합니다.");
+        return new DurabilityPolicy(Mode.GROUP_COMMIT, millis, ops);
+    }
+
+    /**
+     * file.durability = none(기본) | group | sync
+     * file.durability.groupMs, file.durability.groupOps : group 일 때 주기와 건수
+     */
+    public static DurabilityPolicy fromSystemProperties() {
+        String mode = System.getProperty("file.durability", "none").trim().toLowerCase();
+        return switch (mode) {
+            case "none" -> none();
+            case "sync" -> syncPerOp();
+            case "group" -> groupCommit(
+                    Long.getLong("file.durability.groupMs", 10L),
+                    Integer.getInteger("file.durability.groupOps", 100));
+            default -> throw new IllegalArgumentException("알 수 없는 file.durability 값 : " + mode);
+        };
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getGroupCommitMillis() {
+        return groupCommitMillis;
+    }
+
+    public int getGroupCommitOps() {
+        return groupCommitOps;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.GROUP_COMMIT
+                ? "GROUP_COMMIT(" + groupCommitMillis + "ms, " + groupCommitOps + "ops)"
+                : mode.name();
+    }
+}
@@ -8,224 +8,571 @@ import com.back.say.utils.Pageable;
 import com.back.say.utils.SaySearchCondition;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * 명언 하나를 {id}.json 파일 하나로 저장하고, 돌려주는 명언은 언제나 그 파일에서 읽는다.
+ * 메모리에는 살아 있는 id 집합(BitSet)과 id 마다 manifest 안의 최신 등록 레코드 위치만 둔다. 작가/내용은 메모리에 올리지 않는다.
+ * 검색은 그 위치로 manifest 레코드를 읽어서 조건을 맞춰 보므로 명언 파일을 열지 않고, 결과 페이지에 든 id 의 파일만 연다.
+ * 스트림은 id 집합을 역순으로 따라가며 파일을 하나씩 열어서 읽으므로 디렉터리를 훑지 않고, 한 번에 한 파일만 메모리에 올라간다.
+ * manifest.log 는 쓰기 전에 먼저 적는 로그(WAL) 역할을 한다. 변경을 manifest 에 덧붙인 다음 명언 파일을 쓰거나 지우고,
+ * DurabilityPolicy 에 따라 fsync 하는 것도 manifest 하나뿐이다. 명언 파일이 유실되거나 깨져도 시작할 때 manifest 로 복구한다.
+ */
 public class FileSayRepositoryV1 implements SayRepository{
     private final Path dirPath;
     private final Path idPath;
+    private final Path manifestPath;
     private static final String LAST_ID_FILE = "lastId.txt";
+    private static final String MANIFEST_FILE = "manifest.log";
+    // 마지막으로 다시 쓴 뒤 manifest 레코드가 이만큼, 그리고 명언 수보다 많이 쌓이면 살아 있는 것만 남겨 다시 쓴다.
+    private static final int MANIFEST_COMPACT_THRESHOLD = 1000;
+    // 전체 파일을 읽어야 할 때 쓰는 스레드 수 상한
+    private static final int READ_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int PARALLEL_READ_MIN = 64;
+
+    private IdAllocator idAllocator;
+    // 살아 있는 id
+    private BitSet liveIds;
+    private int liveCount;
+    // id 의 최신 등록 레코드가 manifest 에서 시작하는 위치. 살아 있는 id 만 의미가 있다.
+    private long[] recordPositions;
+    private SayMutationLog manifestLog;
+    private final DurabilityPolicy durability;
+    private boolean loaded = false;
 
     public FileSayRepositoryV1() {
-        dirPath = Path.of("db/wiseSaying/");
+        this(DurabilityPolicy.fromSystemProperties());
+    }
+
+    public FileSayRepositoryV1(DurabilityPolicy durability) {
+        this(Path.of("db/wiseSaying/"), durability);
+    }
+
+    FileSayRepositoryV1(Path dirPath, DurabilityPolicy durability) {
+        this.durability = durability;
+        this.dirPath = dirPath;
         idPath = dirPath.resolve(LAST_ID_FILE);
+        manifestPath = dirPath.resolve(MANIFEST_FILE);
     }
 
+    /**
+     * 쓰기는 잠금 안에서 하고, fsync 는 잠금을 푼 뒤 기다린다.
+     * 그래야 동시에 들어온 쓰기들이 DurabilityPolicy 의 fsync 한 번을 나눠 쓴다.
+     */
     @Override
     public int create(SayDto dto) {
-        try {
-            ensureDir();
-            int id = nextId();
-            Say say = new Say(id, dto.getAuthor(), dto.getContent());
-            Path target = fileForId(id);
-            writeJsonToFile(target, toJsonString(say));
-            return id;
-        } catch (IOException e) {
-            throw new RepositoryException("create 실패", e);
+        int id;
+        long seq;
+        SayMutationLog log;
+        synchronized (this) {
+            try {
+                loadManifestIfNeeded();
+                id = idAllocator.nextId();
+                Say say = new Say(id, dto.getAuthor(), dto.getContent());
+                seq = putManifest(say);
+                log = manifestLog;
+                writeSayFile(fileForId(id), say);
+                compactManifestIfNeeded();
+            } catch (IOException e) {
+                throw new RepositoryException("create 실패", e);
+            }
         }
+        log.awaitDurable(seq);
+        return id;
+    }
+
+    /**
+     * id 구간을 한 번에 예약한다.
+     */
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        List<Integer> ids = new ArrayList<>(dtoList.size());
+        long seq = 0;
+        SayMutationLog log;
+        synchronized (this) {
+            try {
+                loadManifestIfNeeded();
+                int firstId = idAllocator.allocate(dtoList.size());
+                log = manifestLog;
+                for (int i = 0; i < dtoList.size(); i++) {
+                    SayDto dto = dtoList.get(i);
+                    int id = firstId + i;
+                    Say say = new Say(id, dto.getAuthor(), dto.getContent());
+                    seq = putManifest(say);
+                    writeSayFile(fileForId(id), say);
+                    ids.add(id);
+                }
+                compactManifestIfNeeded();
+            } catch (IOException e) {
+                throw new RepositoryException("createAll 실패", e);
+            }
+        }
+        log.awaitDurable(seq);
+        return ids;
     }
 
     @Override
     public int update(int id, SayDto dto) {
-        try {
-            ensureDir();
-            Path target = fileForId(id);
-            if (Files.notExists(target))
-                return -1;
-
-            Say newSay = new Say(id, dto.getAuthor(), dto.getContent());
-            writeJsonToFile(target, toJsonString(newSay));
-            return id;
-        } catch (IOException e) {
-            throw new RepositoryException("update 실패", e);
+        long seq;
+        SayMutationLog log;
+        synchronized (this) {
+            try {
+                loadManifestIfNeeded();
+                if (!isLive(id))
+                    return -1;
+
+                Say newSay = new Say(id, dto.getAuthor(), dto.getContent());
+                seq = putManifest(newSay);
+                log = manifestLog;
+                writeSayFile(fileForId(id), newSay);
+                compactManifestIfNeeded();
+            } catch (IOException e) {
+                throw new RepositoryException("update 실패", e);
+            }
         }
+        log.awaitDurable(seq);
+        return id;
     }
 
     @Override
     public int delete(int id) {
-        try {
-            ensureDir();
-            Path target = fileForId(id);
-            if (Files.notExists(target))
-                return -1;
-
-            Files.delete(target);
-            return id;
-        } catch (IOException e) {
-            throw new RepositoryException("delete 실패", e);
+        long seq;
+        SayMutationLog log;
+        synchronized (this) {
+            try {
+                loadManifestIfNeeded();
+                if (!isLive(id))
+                    return -1;
+
+                removeLive(id);
+                seq = manifestLog.appendDelete(id);
+                log = manifestLog;
+                Files.deleteIfExists(fileForId(id));
+                compactManifestIfNeeded();
+            } catch (IOException e) {
+                throw new RepositoryException("delete 실패", e);
+            }
         }
+        log.awaitDurable(seq);
+        return id;
     }
 
     @Override
-    public Optional<Say> findById(int id) {
+    public synchronized Optional<Say> findById(int id) {
         try {
-            ensureDir();
-            Path target = fileForId(id);
-            if (Files.notExists(target))
+            loadManifestIfNeeded();
+            if (!isLive(id))
                 return Optional.empty();
-
-            String sayStr = Files.readString(target, StandardCharsets.UTF_8);
-            Say say = parseJsonToSay(sayStr);
-            return Optional.of(say);
+            return Optional.ofNullable(readSayFile(fileForId(id)));
         } catch (IOException e) {
             throw new RepositoryException("findById 실패", e);
         }
     }
 
     @Override
-    public List<Say> findAll() {
-        // db/wiseSaying하위 파일 다 불러오기 Files.list(dirPath) -> stream이므로 close() 필수
-        try {
-            ensureDir();
-
-            try(Stream<Path> fileList = Files.list(dirPath)) {
-
-                return fileList
-                        .filter(path -> path.getFileName().toString().endsWith(".json"))
-                        .map(path -> {
-                            try {
-                                String json = Files.readString(path, StandardCharsets.UTF_8);
-                                return parseJsonToSay(json);
-                            } catch (IOException e2) {
-                                throw new RepositoryException("json 파일 읽기 실패 :" + path, e2);
-                            }
-                        })
-//                        .filter(say -> say != null)
-                        .toList();
-
-            }
-        } catch (IOException e1) {
-            throw new RepositoryException("findAll 실패", e1);
+    public synchronized List<Say> findAll() {
+        try (Stream<Say> stream = streamAll()) {
+            return stream.collect(Collectors.toCollection(ArrayList::new));
         }
     }
 
+    /**
+     * 살아 있는 id 를 역순으로 따라가며 파일을 하나씩 읽는다. 한 번에 한 파일만 메모리에 올라간다.
+     * 파일 하나를 읽을 때마다 잠깐 잠금을 잡으므로 쓰다 만 파일은 보이지 않고, 스트림을 읽는 동안 다른 쓰기도 막지 않는다.
+     * 그 사이 지워진 명언은 건너뛰고, 아직 지나가지 않은 id 가 고쳐졌으면 고친 내용이 보인다.
+     */
+    @Override
+    public Stream<Say> streamAll() {
+        return streamBelow(Integer.MAX_VALUE);
+    }
+
     /**
      * 10 단계
      */
     @Override
-    public void build() {
+    public synchronized void build() {
+        try {
+            loadManifestIfNeeded();
+            rewriteManifest();
+            idAllocator.flush();
+        } catch (IOException e) {
+            throw new RepositoryException("build 실패", e);
+        }
+    }
 
+    /**
+     * 검색어가 없으면 전체 건수는 id 집합에서 바로 알 수 있으므로 앞 페이지들은 id 만 건너뛴다.
+     * 검색어가 있으면 살아 있는 id 마다 manifest 레코드를 읽어 조건을 맞춰 보고 건수를 센다.
+     * 어느 쪽이든 명언 파일은 이번 페이지에 든 id 의 것만 연다.
+     */
+    @Override
+    public synchronized PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+        try {
+            loadManifestIfNeeded();
+            if (pageable.hasCursor())
+                return findPageAfterCursor(cond, pageable);
+
+            int offset = pageable.getOffset();
+            int pageSize = pageable.getPageSize();
+            List<Integer> pageIds = new ArrayList<>();
+            int totalCount;
+            if (!hasKeyword(cond)) {
+                totalCount = liveCount;
+                int id = liveIdBelow(Integer.MAX_VALUE);
+                for (int skipped = 0; skipped < offset && id > 0; skipped++) {
+                    id = liveIdBelow(id);
+                }
+                for (; id > 0 && pageIds.size() < pageSize; id = liveIdBelow(id)) {
+                    pageIds.add(id);
+                }
+            } else {
+                int matched = 0;
+                for (int id = liveIdBelow(Integer.MAX_VALUE); id > 0; id = liveIdBelow(id)) {
+                    if (!cond.matches(manifestSay(id)))
+                        continue;
+                    if (matched >= offset && matched < offset + pageSize)
+                        pageIds.add(id);
+                    matched++;
+                }
+                totalCount = matched;
+            }
+
+            List<Say> pageContent = readPage(pageIds);
+            int to = Math.min(offset, totalCount) + pageContent.size();
+            Integer nextCursor = to < totalCount && !pageContent.isEmpty() ? pageContent.get(pageContent.size() - 1).getId() : null;
+
+            return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, totalCount, nextCursor);
+        } catch (IOException e) {
+            throw new RepositoryException("findPage 실패", e);
+        }
     }
 
     /**
-     *
-     * 미구현
+     * 커서 아래 id 를 차례로 맞춰 보고 pageSize 만큼 채우면 멈춘다. 파일은 채운 id 의 것만 연다.
      */
+    private PageDto<Say> findPageAfterCursor(SaySearchCondition cond, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+        boolean keyword = hasKeyword(cond);
+        List<Integer> pageIds = new ArrayList<>();
+        for (int id = liveIdBelow(pageable.getCursor()); id > 0 && pageIds.size() <= pageSize; id = liveIdBelow(id)) {
+            if (!keyword || cond.matches(manifestSay(id)))
+                pageIds.add(id);
+        }
 
-    @Override
-    public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
-        return null;
+        boolean hasMore = pageIds.size() > pageSize;
+        if (hasMore)
+            pageIds.remove(pageIds.size() - 1);
+        List<Say> pageContent = readPage(pageIds);
+        Integer nextCursor = hasMore ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
     }
 
-    private void ensureDir() throws IOException {
-        if (Files.notExists(dirPath)) {
-            Files.createDirectories(dirPath);
+    private static boolean hasKeyword(SaySearchCondition cond) {
+        return cond.hasAuthorCondition() || cond.hasContentCondition();
+    }
+
+    // 페이지에 든 id 의 파일만 읽는다. 파일이 없거나 깨졌으면 건수를 센 manifest 레코드로 채운다.
+    private List<Say> readPage(List<Integer> pageIds) {
+        List<Say> pageContent = new ArrayList<>(pageIds.size());
+        for (int id : pageIds) {
+            Say say = null;
+            try {
+                say = readSayFile(fileForId(id));
+            } catch (IOException e) {
+                // 아래에서 manifest 로 채운다.
+            }
+            pageContent.add(say != null ? say : manifestSay(id));
         }
-        if (Files.notExists(idPath)) {
-            Files.writeString(idPath,"0", StandardOpenOption.CREATE_NEW);
+        return pageContent;
+    }
+
+    // manifest 에 남은 id 의 최신 등록 레코드. 파일은 열지 않는다.
+    private Say manifestSay(int id) {
+        return manifestLog.readUpsertAt(recordPositions[id]);
+    }
+
+    // below 보다 작은 id 의 명언을 id 역순으로 하나씩 읽는 스트림
+    private Stream<Say> streamBelow(int below) {
+        return Stream.iterate(readLiveBelow(below), Objects::nonNull, say -> readLiveBelow(say.getId()));
+    }
+
+    // below 보다 작은 살아 있는 id 중 가장 큰 것의 명언. 없으면 null
+    private synchronized Say readLiveBelow(int below) {
+        try {
+            loadManifestIfNeeded();
+            for (int id = liveIdBelow(below); id > 0; id = liveIdBelow(id)) {
+                Say say = readSayFile(fileForId(id));
+                if (say != null)
+                    return say;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RepositoryException("json 파일 읽기 실패", e);
         }
     }
 
-    private Path fileForId(int id) {
-        return dirPath.resolve(id + ".json");
+    // below 보다 작은 살아 있는 id 중 가장 큰 것. 없으면 -1
+    private int liveIdBelow(int below) {
+        if (below <= 1)
+            return -1;
+        return liveIds.previousSetBit(below - 1);
     }
 
-    private int nextId() throws IOException {
-        int lastId = readLastId();
-        int next = lastId + 1;
-        writeLastId(next);
-        return next;
+    private boolean isLive(int id) {
+        return id > 0 && liveIds.get(id);
     }
 
-    private int readLastId() throws IOException {
-        if (Files.notExists(idPath)) {
-            return 0;
+    private void addLive(int id) {
+        if (!liveIds.get(id)) {
+            liveIds.set(id);
+            liveCount++;
         }
-        String txt = Files.readString(idPath, StandardCharsets.UTF_8).trim();
-        if (txt.isEmpty()) return 0;
+    }
 
-        return Integer.parseInt(txt);
+    private void removeLive(int id) {
+        if (isLive(id)) {
+            liveIds.clear(id);
+            liveCount--;
+        }
     }
 
-    private void writeLastId(int id) throws IOException {
-        Files.writeString(
-                idPath,
-                Integer.toString(id),
-                StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE,              //lastId.txt 없으면 새로만들기 이거 빼면 파일 없을 때 예외 발생
-                StandardOpenOption.TRUNCATE_EXISTING    // 내용 삭제 후 새로 쓰기
-        );
+    /**
+     * 디렉터리 목록(파일 이름과 수정 시각만)을 먼저 얻고 manifest 를 재생해서 살아 있는 id 를 모은 뒤 둘을 맞춰 본다.
+     * 내용은 의심스러운 id(파일이 없거나 manifest 보다 늦게 수정된 것)만 기억해 둔다.
+     * - manifest 보다 늦게 수정된 파일, manifest 에 없는 파일 : 다시 읽는다. 단, manifest 에 삭제로 남은 id 면 지우다 만 것이므로 파일을 지운다.
+     * - 파일이 없거나 깨진 manifest 항목 : manifest 를 적고 파일을 쓰기 전에 죽은 경우이므로 manifest 로 파일을 다시 쓴다.
+     * manifest 가 아예 없으면 모든 파일을 제한된 스레드 풀에서 나눠 읽어 새로 만든다.
+     */
+    private void loadManifestIfNeeded() throws IOException {
+        ensureDir();
+        if (loaded)
+            return;
+
+        AtomicFileWriter.deleteLeftover(manifestPath);
+        FileTime manifestTime = Files.exists(manifestPath) ? Files.getLastModifiedTime(manifestPath) : null;
+        Map<Integer, FileTime> sayFiles = scanSayFiles();
+        liveIds = new BitSet();
+        liveCount = 0;
+        recordPositions = new long[64];
+        manifestLog = new SayMutationLog(manifestPath, durability);
+        Map<Integer, Say> suspects = new HashMap<>();
+        Set<Integer> deletedIds = new HashSet<>();
+        manifestLog.replayWithPositions((say, position) -> {
+            int id = say.getId();
+            addLive(id);
+            setRecordPosition(id, position);
+            deletedIds.remove(id);
+            FileTime fileTime = sayFiles.get(id);
+            if (fileTime == null || manifestTime == null || fileTime.compareTo(manifestTime) >= 0)
+                suspects.put(id, say);
+            else
+                suspects.remove(id);
+        }, id -> {
+            removeLive(id);
+            deletedIds.add(id);
+            suspects.remove(id);
+        });
+
+        List<Integer> staleIds = new ArrayList<>();
+        for (Map.Entry<Integer, FileTime> entry : sayFiles.entrySet()) {
+            int id = entry.getKey();
+            if (deletedIds.contains(id)) {
+                Files.deleteIfExists(fileForId(id));
+                continue;
+            }
+            if (manifestTime == null || !isLive(id) || entry.getValue().compareTo(manifestTime) >= 0)
+                staleIds.add(id);
+        }
+
+        for (Say say : suspects.values()) {
+            if (!sayFiles.containsKey(say.getId()))
+                writeSayFile(fileForId(say.getId()), say);
+        }
+
+        // id 순서로 읽어야 manifest 에도 차례로 붙는다.
+        staleIds.sort(null);
+        List<Integer> brokenIds = Collections.synchronizedList(new ArrayList<>());
+        for (Say say : readSayFilesParallel(staleIds, brokenIds)) {
+            if (!isLive(say.getId()) || !say.equals(suspects.get(say.getId())))
+                putManifest(say);
+        }
+        for (int id : brokenIds) {
+            Say say = suspects.get(id);
+            if (say == null)
+                throw new RepositoryException("json 파일 읽기 실패 : " + fileForId(id));
+            writeSayFile(fileForId(id), say);
+        }
+        manifestLog.sync();
+
+        // lastId.txt 가 비정상 종료로 뒤처져 있어도 이미 있는 id 를 다시 발급하지 않는다.
+        int maxId = Math.max(liveIds.length() - 1, sayFiles.keySet().stream().mapToInt(Integer::intValue).max().orElse(0));
+        idAllocator = new IdAllocator(idPath, maxId);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushOnShutdown, "say-id-flush"));
+        loaded = true;
     }
-    private void writeJsonToFile(Path target, String json) throws IOException {
-        Files.writeString(target, json, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    private synchronized void flushOnShutdown() {
+        // GROUP_COMMIT 에서 아직 내리지 못한 manifest 레코드도 내린다.
+        manifestLog.sync();
+        idAllocator.flush();
     }
 
-    private String toJsonString(Say s) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n");
-        sb.append("\t\"id\": ").append(s.getId()).append(",\n");
-        sb.append("\t\"content\": ").append("\"").append(s.getContent()).append("\",\n");
-        sb.append("\t\"author\": ").append("\"").append(s.getAuthor()).append("\"\n");
-        sb.append("}\n");
-        return sb.toString();
+    private long putManifest(Say say) {
+        addLive(say.getId());
+        setRecordPosition(say.getId(), manifestLog.getSize());
+        return manifestLog.appendUpsert(say);
     }
-    private Say parseJsonToSay(String json) {
-        if (json == null || json.isBlank())
-            return null;
-        int idIdx = json.indexOf("\"id\"");
-        if (idIdx < 0)
-            return null;
-        int idColonIdx = json.indexOf(':', idIdx);
-        int idCommaIdx = json.indexOf(',', idColonIdx);
-        String idStr = json.substring(idColonIdx+1, idCommaIdx).trim();
-        int id = Integer.parseInt(idStr);
 
-        int contIdx = json.indexOf("\"content\"", idCommaIdx+1);
-        if (contIdx < 0)
-            return null;
-        int contColonIdx = json.indexOf(':', contIdx);
-        int contQuoteIdx = json.indexOf('"', contColonIdx);
-        int i = contQuoteIdx + 1;
+    private void setRecordPosition(int id, long position) {
+        if (id >= recordPositions.length)
+            recordPositions = Arrays.copyOf(recordPositions, Math.max(id + 1, recordPositions.length * 2));
+        recordPositions[id] = position;
+    }
 
-        StringBuilder content = new StringBuilder();
+    private void compactManifestIfNeeded() throws IOException {
+        if (manifestLog.getRecordCount() < Math.max(MANIFEST_COMPACT_THRESHOLD, liveCount))
+            return;
+        rewriteManifest();
+    }
 
-        while (i < json.length()) {
-            char c = json.charAt(i++);
-            if (c == '"')
-                break;
-            content.append(c);
+    /**
+     * 살아 있는 명언을 파일에서 읽어 AtomicFileWriter 로 manifest 를 통째로 교체한다.
+     * 교체한 manifest 가 유일한 원본이 되므로 정책과 상관없이 fsync 하고, 이름 바꾸기도 디렉터리 fsync 로 남긴다.
+     * 기존 로그를 닫으면 그 로그의 fsync 를 기다리던 쓰기도 함께 풀린다. 교체에 실패하면 기존 manifest 와 레코드 위치를 그대로 쓴다.
+     */
+    private void rewriteManifest() throws IOException {
+        manifestLog.close();
+        BitSet rewrittenIds = new BitSet();
+        long[] rewrittenPositions = new long[recordPositions.length];
+        try (Stream<Say> stream = streamAll()) {
+            AtomicFileWriter.write(manifestPath, channel -> SayMutationLog.writeUpserts(channel, stream::iterator, (say, position) -> {
+                rewrittenIds.set(say.getId());
+                rewrittenPositions[say.getId()] = position;
+            }));
+            // 파일이 깨져서 새 manifest 에 못 들어간 id 는 다시 열었을 때처럼 살아 있지 않은 것으로 본다.
+            liveIds = rewrittenIds;
+            liveCount = rewrittenIds.cardinality();
+            recordPositions = rewrittenPositions;
+        } finally {
+            manifestLog = new SayMutationLog(manifestPath, durability);
         }
+    }
 
-        int authIdx = json.indexOf("\"author\"", contIdx+1);
-        if (authIdx < 0)
-            return null;
-        int authColonIdx = json.indexOf(':', authIdx);
-        int authQuoteIdx = json.indexOf('"', authColonIdx);
-        i = authQuoteIdx + 1;
+    private void ensureDir() throws IOException {
+        if (Files.notExists(dirPath)) {
+            Files.createDirectories(dirPath);
+        }
+    }
 
-        StringBuilder author = new StringBuilder();
-        while (i < json.length()) {
-            char c = json.charAt(i++);
-            if (c == '"')
-                break;
-            author.append(c);
+    private Path fileForId(int id) {
+        return dirPath.resolve(id + ".json");
+    }
+
+    // {id}.json 파일의 id 와 수정 시각. 내용은 읽지 않는다.
+    private Map<Integer, FileTime> scanSayFiles() throws IOException {
+        Map<Integer, FileTime> sayFiles = new HashMap<>();
+        try (Stream<Path> fileList = Files.list(dirPath)) {
+            for (Iterator<Path> it = fileList.iterator(); it.hasNext(); ) {
+                Path path = it.next();
+                String name = path.getFileName().toString();
+                if (!name.endsWith(".json"))
+                    continue;
+                String idPart = name.substring(0, name.length() - ".json".length());
+                if (idPart.isEmpty() || !idPart.chars().allMatch(Character::isDigit))
+                    continue;
+                sayFiles.put(Integer.parseInt(idPart), Files.getLastModifiedTime(path));
+            }
         }
+        return sayFiles;
+    }
 
-        return new Say(id, author.toString(), content.toString());
+    /**
+     * 파일이 많으면 READ_THREADS 개짜리 풀에서 구간을 나눠 읽는다.
+     * 형식이 깨진 파일의 id 는 brokenIds 에 모은다.
+     */
+    private List<Say> readSayFilesParallel(List<Integer> ids, List<Integer> brokenIds) throws IOException {
+        if (ids.size() < PARALLEL_READ_MIN || READ_THREADS <= 1)
+            return readSayFiles(ids, brokenIds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(READ_THREADS);
+        try {
+            int chunkSize = (ids.size() + READ_THREADS * 4 - 1) / (READ_THREADS * 4);
+            List<Future<List<Say>>> futures = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                futures.add(pool.submit(() -> readSayFiles(chunk, brokenIds)));
+            }
+
+            List<Say> sayList = new ArrayList<>(ids.size());
+            for (Future<List<Say>> future : futures) {
+                sayList.addAll(future.get());
+            }
+            return sayList;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe)
+                throw ioe;
+            throw new RepositoryException("json 파일 읽기 실패", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("json 파일 읽기 중단", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Say> readSayFiles(List<Integer> ids, List<Integer> brokenIds) throws IOException {
+        List<Say> sayList = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            try {
+                Say say = readSayFile(fileForId(id));
+                if (say != null)
+                    sayList.add(say);
+                else
+                    brokenIds.add(id);
+            } catch (NoSuchFileException e) {
+                // 목록을 만든 뒤 지워진 파일
+            } catch (IOException e) {
+                // 쓰다가 죽어서 잘린 파일 등
+                brokenIds.add(id);
+            }
+        }
+        return sayList;
+    }
+
+    private void writeSayFile(Path target, Say say) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new SayJsonWriter(channel, 1024).writeSingle(say);
+        }
+    }
+
+    private Say readSayFile(Path target) throws IOException {
+        try (Reader reader = Files.newBufferedReader(target, StandardCharsets.UTF_8)) {
+            return new SayJsonReader(reader, 1024).readSingle();
+        }
     }
 }
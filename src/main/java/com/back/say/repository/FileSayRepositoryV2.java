@@ -8,14 +8,14 @@ import com.back.say.utils.Pageable;
 import com.back.say.utils.SaySearchCondition;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.sql.Array;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -27,96 +27,234 @@ public class FileSayRepositoryV2 implements SayRepository{
     private final Path dirPath;
     private final Path idPath;
     private final Path dataPath;
+    private final Path logPath;
+    private final Path checkpointPath;
     private static final String LAST_ID_FILE = "lastId.txt";
     private static final String DATA_FILE = "data.json";
-
-    private List<Say> sayCache;
+    private static final String LOG_FILE = "data.log";
+    private static final String CHECKPOINT_FILE = "data.ckpt";
+    // 로그 레코드가 이만큼 쌓이면 체크포인트로 합치고 로그를 비운다.
+    private static final int COMPACT_THRESHOLD = 1000;
+
+    // id → 명언 O(1) 조회, id 순서 순회를 함께 제공한다.
+    private SayIdIndex sayCache;
+    // 키워드 검색용 열 저장소, search.columnar 일 때만 있다.
+    private SayColumns columns;
+    private final boolean columnar;
+    // 키워드 검색용 n-gram 색인, search.ngram 일 때만 있다.
+    private SayNgramIndex ngramIndex;
+    private final boolean ngram;
+    private SayMutationLog mutationLog;
+    private IdAllocator idAllocator;
+    private final DurabilityPolicy durability;
     private boolean loaded = false;
 
     public FileSayRepositoryV2() {
-        dirPath = Path.of("db/wiseSaying/");
+        this(DurabilityPolicy.fromSystemProperties());
+    }
+
+    public FileSayRepositoryV2(DurabilityPolicy durability) {
+        this(durability, Boolean.getBoolean("search.columnar"));
+    }
+
+    public FileSayRepositoryV2(DurabilityPolicy durability, boolean columnar) {
+        this(durability, columnar, Boolean.getBoolean("search.ngram"));
+    }
+
+    public FileSayRepositoryV2(DurabilityPolicy durability, boolean columnar, boolean ngram) {
+        this(Path.of("db/wiseSaying/"), durability, columnar, ngram);
+    }
+
+    FileSayRepositoryV2(Path dirPath, DurabilityPolicy durability, boolean columnar, boolean ngram) {
+        this.durability = durability;
+        this.columnar = columnar;
+        this.ngram = ngram;
+        this.dirPath = dirPath;
         idPath = dirPath.resolve(LAST_ID_FILE);
         dataPath = dirPath.resolve(DATA_FILE);
+        logPath = dirPath.resolve(LOG_FILE);
+        checkpointPath = dirPath.resolve(CHECKPOINT_FILE);
     }
 
+    /**
+     * 쓰기는 잠금 안에서 캐시와 로그에 반영하고, fsync 는 잠금을 푼 뒤 기다린다.
+     * 그래야 동시에 들어온 쓰기들이 DurabilityPolicy 의 fsync 한 번을 나눠 쓴다.
+     */
     @Override
     public int create(SayDto dto) {
-        loadDataIfNeeded();
-        try {
-            int id = nextId();
+        int id;
+        long seq;
+        synchronized (this) {
+            loadDataIfNeeded();
+            id = idAllocator.nextId();
             Say say = new Say(id, dto.getAuthor(), dto.getContent());
-            sayCache.add(say);
-            writeAllJsonToFile(sayCache);
-            return id;
-        } catch (IOException e) {
-            throw new RepositoryException("create 실패", e);
+            sayCache.put(say);
+            if (columns != null)
+                columns.put(say);
+            if (ngramIndex != null)
+                ngramIndex.put(say);
+            seq = mutationLog.appendUpsert(say);
+            compactIfNeeded();
         }
+        mutationLog.awaitDurable(seq);
+        return id;
     }
 
+    /**
+     * id 구간을 한 번에 예약한다.
+     */
     @Override
-    public int update(int id, SayDto dto) {
-        loadDataIfNeeded();
-        boolean found = false;
-        for (int i = 0; i < sayCache.size(); i++) {
-            if (sayCache.get(i).getId() == id) {
-                sayCache.set(i, new Say(id, dto.getAuthor(), dto.getContent()));
-                found = true;
-                break;
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        List<Integer> ids = new ArrayList<>(dtoList.size());
+        long seq = 0;
+        synchronized (this) {
+            loadDataIfNeeded();
+            int firstId = idAllocator.allocate(dtoList.size());
+            for (int i = 0; i < dtoList.size(); i++) {
+                SayDto dto = dtoList.get(i);
+                int id = firstId + i;
+                Say say = new Say(id, dto.getAuthor(), dto.getContent());
+                sayCache.put(say);
+                if (columns != null)
+                    columns.put(say);
+                if (ngramIndex != null)
+                    ngramIndex.put(say);
+                seq = mutationLog.appendUpsert(say);
+                ids.add(id);
             }
+            compactIfNeeded();
         }
-        if (!found)
-            return -1;
-        try {
-            writeAllJsonToFile(sayCache);
-            return id;
-        } catch (IOException e) {
-            throw new RepositoryException("update 실패", e);
+        mutationLog.awaitDurable(seq);
+        return ids;
+    }
+
+    @Override
+    public int update(int id, SayDto dto) {
+        long seq;
+        synchronized (this) {
+            loadDataIfNeeded();
+            if (!sayCache.containsId(id))
+                return -1;
+            Say say = new Say(id, dto.getAuthor(), dto.getContent());
+            sayCache.put(say);
+            if (columns != null)
+                columns.put(say);
+            if (ngramIndex != null)
+                ngramIndex.put(say);
+            seq = mutationLog.appendUpsert(say);
+            compactIfNeeded();
         }
+        mutationLog.awaitDurable(seq);
+        return id;
     }
 
     @Override
     public int delete(int id) {
-        loadDataIfNeeded();
-        boolean removed = sayCache.removeIf(say -> say.getId() == id);
-        if(!removed) return -1;
-        try {
-            writeAllJsonToFile(sayCache);
-            return id;
-        } catch (IOException e) {
-            throw new RepositoryException("delete 실패", e);
+        long seq;
+        synchronized (this) {
+            loadDataIfNeeded();
+            if (sayCache.remove(id) == null)
+                return -1;
+            if (columns != null)
+                columns.remove(id);
+            if (ngramIndex != null)
+                ngramIndex.remove(id);
+            seq = mutationLog.appendDelete(id);
+            compactIfNeeded();
         }
+        mutationLog.awaitDurable(seq);
+        return id;
     }
 
     @Override
-    public Optional<Say> findById(int id) {
+    public synchronized Optional<Say> findById(int id) {
         loadDataIfNeeded();
-        return sayCache.stream().filter(say->say.getId() == id).findFirst();
+        return Optional.ofNullable(sayCache.get(id));
     }
 
     @Override
-    public List<Say> findAll() {
+    public synchronized List<Say> findAll() {
         loadDataIfNeeded();
-        return sayCache.reversed().stream()
+        return sayCache.streamDescending()
                 .limit(5)
                 .collect(Collectors.toCollection(ArrayList::new));
     }
 
+    /**
+     * 목록을 복사하지 않고, 한 건씩 잠금을 잡고 직전에 넘긴 id 바로 아래 명언을 찾아서 넘긴다.
+     * 스트림을 읽는 동안 쓰기를 막지 않고, 그 사이 지워진 명언은 건너뛴다.
+     */
+    @Override
+    public Stream<Say> streamAll() {
+        return Stream.iterate(sayBelow(Integer.MAX_VALUE), Objects::nonNull, say -> sayBelow(say.getId()));
+    }
+
+    private synchronized Say sayBelow(int cursor) {
+        loadDataIfNeeded();
+        return sayCache.lastBelow(cursor);
+    }
+
     /**
      * 10 단계
      */
 
-    public void build() {
+    public synchronized void build() {
+        loadDataIfNeeded();
         try {
+            compact();
             writeAllJsonToFile(sayCache);
+            idAllocator.flush();
         } catch (IOException e) {
             throw new RepositoryException("build 실패", e);
         }
     }
 
+    private void compactIfNeeded() {
+        if (mutationLog.getRecordCount() < COMPACT_THRESHOLD)
+            return;
+        try {
+            compact();
+        } catch (IOException e) {
+            throw new RepositoryException("로그 압축 실패", e);
+        }
+    }
+
+    /**
+     * 현재 상태를 체크포인트에 통째로 쓰고 로그를 비운다.
+     * 쓰고 나서 비우기 전에 죽더라도 로그 레코드는 다시 재생해도 결과가 같으므로 안전하다.
+     */
+    private void compact() throws IOException {
+        SayCheckpointFile.write(checkpointPath, sayCache);
+        mutationLog.truncate();
+    }
+
+    private synchronized void checkpointOnShutdown() {
+        try {
+            // GROUP_COMMIT 에서 아직 내리지 못한 레코드부터 내린다.
+            mutationLog.sync();
+            idAllocator.flush();
+            if (mutationLog.getRecordCount() > 0)
+                compact();
+        } catch (IOException | RuntimeException e) {
+            // 로그가 남아 있으므로 다음 시작 때 재생되고, id 는 예약 구간 끝 다음부터 발급된다.
+        }
+    }
+
     @Override
-    public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+    public synchronized PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
         loadDataIfNeeded();
-        Stream<Say> stream = sayCache.reversed().stream();
+        if (ngramIndex != null && (cond.hasAuthorCondition() || cond.hasContentCondition())) {
+            PageDto<Say> page = ngramIndex.findPage(cond, pageable, sayCache::get);
+            // 한 글자 키워드처럼 색인으로 줄일 수 없으면 아래에서 훑는다.
+            if (page != null)
+                return page;
+        }
+        if (columns != null && (cond.hasAuthorCondition() || cond.hasContentCondition()))
+            return findPageByColumns(cond, pageable);
+        if (pageable.hasCursor())
+            return findPageAfterCursor(cond, pageable);
+
+        Stream<Say> stream = sayCache.streamDescending();
 
         if (cond.hasAuthorCondition() && cond.hasContentCondition()) {
             String k = cond.getAuthorContains();
@@ -136,8 +274,62 @@ public class FileSayRepositoryV2 implements SayRepository{
         int to = Math.min(from + pageable.getPageSize(), totalCount);
 
         List<Say> pageContent = filtered.subList(from, to);
+        Integer nextCursor = to < totalCount && to > from ? pageContent.get(pageContent.size() - 1).getId() : null;
+
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageable.getPageSize(), totalCount, nextCursor);
+    }
+
+    /**
+     * sayCache 는 id 오름차순이므로 이분 탐색으로 커서 위치를 찾고 거기서부터 거꾸로 읽는다.
+     */
+    private PageDto<Say> findPageAfterCursor(SaySearchCondition cond, Pageable pageable) {
+        List<Say> pageContent = new ArrayList<>();
+        int pageSize = pageable.getPageSize();
+        boolean hasMore = false;
+
+        Iterator<Say> it = sayCache.descendingIteratorBelow(pageable.getCursor());
+        while (it.hasNext()) {
+            Say say = it.next();
+            if (!cond.matches(say))
+                continue;
+            if (pageContent.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            pageContent.add(say);
+        }
 
-        return new PageDto<>(pageContent, pageable.getPageNo(), pageable.getPageSize(), totalCount);
+        Integer nextCursor = hasMore ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
+    }
+
+    /**
+     * 조건에 맞는 id 를 열 저장소에서 받고, 명언은 해당 페이지 것만 캐시에서 꺼낸다.
+     */
+    private PageDto<Say> findPageByColumns(SaySearchCondition cond, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+        if (pageable.hasCursor()) {
+            int[] matchedIds = columns.findIdsBelow(cond, pageable.getCursor(), pageSize + 1);
+            List<Say> pageContent = sayListOf(matchedIds, 0, Math.min(matchedIds.length, pageSize));
+            Integer nextCursor = matchedIds.length > pageSize ? pageContent.get(pageContent.size() - 1).getId() : null;
+            return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
+        }
+
+        int[] matchedIds = columns.findIds(cond);
+        int totalCount = matchedIds.length;
+        int from = Math.min(pageable.getOffset(), totalCount);
+        int to = Math.min(from + pageSize, totalCount);
+        List<Say> pageContent = sayListOf(matchedIds, from, to);
+        Integer nextCursor = to < totalCount && to > from ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, totalCount, nextCursor);
+    }
+
+    private List<Say> sayListOf(int[] ids, int from, int to) {
+        List<Say> sayList = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            sayList.add(sayCache.get(ids[i]));
+        }
+        return sayList;
     }
 
     private void loadDataIfNeeded() {
@@ -145,38 +337,56 @@ public class FileSayRepositoryV2 implements SayRepository{
             return;
         try {
             ensureDir();
-            String json = Files.readString(dataPath, UTF_8).trim();
-            if (json.equals("[]") || json.isBlank()){
-                sayCache = makeDummyData();
+            AtomicFileWriter.deleteLeftover(checkpointPath);
+            AtomicFileWriter.deleteLeftover(dataPath);
+            mutationLog = new SayMutationLog(logPath, durability);
+            boolean emptySnapshot;
+            if (Files.exists(checkpointPath)) {
+                // 체크포인트 이후 쌓인 로그만 재생하면 되므로 시작 시간이 전체 데이터 크기와 무관하다.
+                List<Say> snapshot = SayCheckpointFile.read(checkpointPath);
+                sayCache = SayIdIndex.of(snapshot, snapshot.size());
+                emptySnapshot = false;
             } else {
-                sayCache = parseJsonToSayList(json);
+                List<Say> snapshot = readJsonFile();
+                sayCache = SayIdIndex.of(snapshot, snapshot.size());
+                emptySnapshot = snapshot.isEmpty();
             }
+            mutationLog.replay(sayCache::put, sayCache::remove);
+
+            if (emptySnapshot && sayCache.isEmpty()) {
+                List<Say> dummy = makeDummyData();
+                sayCache = SayIdIndex.of(dummy, dummy.size());
+            }
+            if (columnar)
+                columns = SayColumns.of(sayCache, sayCache.size());
+            if (ngram)
+                ngramIndex = SayNgramIndex.of(sayCache);
+            // 로그에만 있던 id 까지 반영된 최대 id 로 시작하므로 lastId.txt 가 뒤처져 있어도 겹치지 않는다.
+            idAllocator = new IdAllocator(idPath, sayCache.maxId());
             loaded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(this::checkpointOnShutdown, "say-checkpoint"));
         } catch (IOException e) {
-            throw new RepositoryException("data.json 로드 실패", e);
+            throw new RepositoryException("데이터 로드 실패", e);
         }
     }
 
-    private void writeAllJsonToFile(List<Say> sayList) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[\n");
-        for (int i = 0; i < sayList.size(); i++) {
-            if(i > 0)
-                sb.append(",\n");
-            sb.append(toJsonString(sayList.get(i)));
-        }
-        sb.append("\n]");
-        Files.writeString(dataPath, sb.toString(), UTF_8, CREATE, TRUNCATE_EXISTING);
+    // 제자리에서 덮어쓰지 않으므로 쓰는 도중 죽어도 이전 data.json 이 온전히 남는다.
+    private void writeAllJsonToFile(Iterable<Say> sayList) throws IOException {
+        AtomicFileWriter.write(dataPath, channel -> new SayJsonWriter(channel).writeArray(sayList));
+    }
 
+    private List<Say> readJsonFile() throws IOException {
+        List<Say> sayList = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(dataPath, UTF_8)) {
+            new SayJsonReader(reader).readArray(sayList::add);
+        }
+        return sayList;
     }
 
     private void ensureDir() throws IOException {
         if (Files.notExists(dirPath)) {
             Files.createDirectories(dirPath);
         }
-        if (Files.notExists(idPath)) {
-            Files.writeString(idPath,"0", CREATE_NEW);
-        }
         if (Files.notExists(dataPath)){
             Files.writeString(dataPath, "[]", UTF_8, CREATE_NEW);
         }
@@ -186,116 +396,12 @@ public class FileSayRepositoryV2 implements SayRepository{
         return dirPath.resolve(id + ".json");
     }
 
-    private int nextId() throws IOException {
-        int lastId = readLastId();
-        int next = lastId + 1;
-        writeLastId(next);
-        return next;
-    }
-
-    private int readLastId() throws IOException {
-        if (Files.notExists(idPath)) {
-            return 0;
-        }
-        String txt = Files.readString(idPath, UTF_8).trim();
-        if (txt.isEmpty()) return 0;
-
-        return Integer.parseInt(txt);
-    }
-
-    private void writeLastId(int id) throws IOException {
-        Files.writeString(
-                idPath,
-                Integer.toString(id),
-                UTF_8,
-                CREATE,              //lastId.txt 없으면 새로만들기 이거 빼면 파일 없을 때 예외 발생
-                TRUNCATE_EXISTING    // 내용 삭제 후 새로 쓰기
-        );
-    }
-    private void writeSingleJsonToFile(Path target, String json) throws IOException {
-        Files.writeString(target, json, UTF_8, CREATE, TRUNCATE_EXISTING);
-    }
-
-    private String toJsonString(Say s) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("\t{\n");
-        sb.append("\t\t\"id\": ").append(s.getId()).append(",\n");
-        sb.append("\t\t\"content\": ").append("\"").append(s.getContent()).append("\",\n");
-        sb.append("\t\t\"author\": ").append("\"").append(s.getAuthor()).append("\"\n");
-        sb.append("\t}");
-        return sb.toString();
-    }
-    private Say parseJsonToSay(String json) {
-        if (json == null || json.isBlank())
-            return null;
-        int idIdx = json.indexOf("\"id\"");
-        if (idIdx < 0)
-            return null;
-        int idColonIdx = json.indexOf(':', idIdx);
-        int idCommaIdx = json.indexOf(',', idColonIdx);
-        String idStr = json.substring(idColonIdx+1, idCommaIdx).trim();
-        int id = Integer.parseInt(idStr);
-
-        int contIdx = json.indexOf("\"content\"", idCommaIdx+1);
-        if (contIdx < 0)
-            return null;
-        int contColonIdx = json.indexOf(':', contIdx);
-        int contQuoteIdx = json.indexOf('"', contColonIdx);
-        int i = contQuoteIdx + 1;
-
-        StringBuilder content = new StringBuilder();
-
-        while (i < json.length()) {
-            char c = json.charAt(i++);
-            if (c == '"')
-                break;
-            content.append(c);
-        }
-
-        int authIdx = json.indexOf("\"author\"", contIdx+1);
-        if (authIdx < 0)
-            return null;
-        int authColonIdx = json.indexOf(':', authIdx);
-        int authQuoteIdx = json.indexOf('"', authColonIdx);
-        i = authQuoteIdx + 1;
-
-        StringBuilder author = new StringBuilder();
-        while (i < json.length()) {
-            char c = json.charAt(i++);
-            if (c == '"')
-                break;
-            author.append(c);
-        }
-
-        return new Say(id, author.toString(), content.toString());
-    }
-
-    private List<Say> parseJsonToSayList(String json) {
-        List<Say> sayList = new ArrayList<>();
-
-        json = json.trim();
-        if(json.startsWith("["))
-            json = json.substring(1);
-        if(json.endsWith("]"))
-            json = json.substring(0,json.length()-1);
-
-        String[] lines = json.split("},\\s*\\{");
-        for (String line : lines) {
-            line = line.replace("{", "").replace("}", "").trim();
-//            System.out.println(parseJsonToSay(line));
-            sayList.add(parseJsonToSay(line));
-        }
-
-        return sayList;
-    }
-
     private List<Say> makeDummyData() throws IOException {
         ArrayList<Say> sayList = new ArrayList<>();
         for (int i = 1; i <= 10; i++) {
             sayList.add(new Say(i, "작자미상 "+i, "명언"+i));
         }
         writeAllJsonToFile(sayList);
-        writeLastId(10);
 
         return sayList;
     }
@@ -0,0 +1,300 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.exception.RepositoryException;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 페이지 파일 하나(data.v3) 위의 B+tree 저장소. 명언 전체를 메모리에 올리지 않고 버퍼 풀 크기만큼만 캐시한다.
+ * 변경은 버퍼 풀의 페이지와 로그(data.v3.log)에 남기고, 더티 페이지가 쌓이거나 로그가 길어지면
+ * 연산 사이에 체크포인트로 페이지를 내린 뒤 로그를 비운다. 시작할 때는 마지막 체크포인트 위에 로그를 재생한다.
+ * 버퍼 풀 크기는 v3.bufferPoolPages (기본 1024 페이지 = 8MB)
+ */
+public class FileSayRepositoryV3 implements SayRepository {
+    private static final String DATA_FILE = "data.v3";
+    private static final String LOG_FILE = "data.v3.log";
+    // 로그 레코드가 이만큼 쌓이면 더티 페이지가 적어도 체크포인트한다. 재시작 때 재생할 양을 묶어둔다.
+    private static final int CHECKPOINT_LOG_THRESHOLD = 10000;
+    private static final int STREAM_BATCH = 256;
+
+    private final Path dirPath;
+    private final int poolPages;
+    private final DurabilityPolicy durability;
+    private SayBTree tree;
+    private SayMutationLog mutationLog;
+    private boolean loaded = false;
+
+    public FileSayRepositoryV3() {
+        this(DurabilityPolicy.fromSystemProperties());
+    }
+
+    public FileSayRepositoryV3(DurabilityPolicy durability) {
+        this(Path.of("db/wiseSaying/"), Integer.getInteger("v3.bufferPoolPages", 1024), durability);
+    }
+
+    public FileSayRepositoryV3(Path dirPath, int poolPages, DurabilityPolicy durability) {
+        this.dirPath = dirPath;
+        this.poolPages = poolPages;
+        this.durability = durability;
+    }
+
+    @Override
+    public int create(SayDto dto) {
+        int id;
+        long seq;
+        synchronized (this) {
+            loadDataIfNeeded();
+            id = tree.getLastId() + 1;
+            Say say = new Say(id, dto.getAuthor(), dto.getContent());
+            tree.put(say);
+            seq = mutationLog.appendUpsert(say);
+            checkpointIfNeeded();
+        }
+        mutationLog.awaitDurable(seq);
+        return id;
+    }
+
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        List<Integer> ids = new ArrayList<>(dtoList.size());
+        long seq = 0;
+        synchronized (this) {
+            loadDataIfNeeded();
+            for (SayDto dto : dtoList) {
+                int id = tree.getLastId() + 1;
+                Say say = new Say(id, dto.getAuthor(), dto.getContent());
+                tree.put(say);
+                seq = mutationLog.appendUpsert(say);
+                ids.add(id);
+                // 한 번에 많이 들어와도 더티 페이지가 버퍼 풀을 넘지 않도록 중간에도 내린다.
+                checkpointIfNeeded();
+            }
+        }
+        mutationLog.awaitDurable(seq);
+        return ids;
+    }
+
+    @Override
+    public int update(int id, SayDto dto) {
+        long seq;
+        synchronized (this) {
+            loadDataIfNeeded();
+            if (!tree.containsId(id))
+                return -1;
+            Say say = new Say(id, dto.getAuthor(), dto.getContent());
+            tree.put(say);
+            seq = mutationLog.appendUpsert(say);
+            checkpointIfNeeded();
+        }
+        mutationLog.awaitDurable(seq);
+        return id;
+    }
+
+    @Override
+    public int delete(int id) {
+        long seq;
+        synchronized (this) {
+            loadDataIfNeeded();
+            if (!tree.delete(id))
+                return -1;
+            seq = mutationLog.appendDelete(id);
+            checkpointIfNeeded();
+        }
+        mutationLog.awaitDurable(seq);
+        return id;
+    }
+
+    @Override
+    public synchronized Optional<Say> findById(int id) {
+        loadDataIfNeeded();
+        return Optional.ofNullable(tree.get(id));
+    }
+
+    @Override
+    public synchronized List<Say> findAll() {
+        loadDataIfNeeded();
+        List<Say> sayList = new ArrayList<>(tree.size());
+        tree.scanDescending(Integer.MAX_VALUE, sayList::add);
+        return sayList;
+    }
+
+    /**
+     * STREAM_BATCH 건씩 잠금을 잡고 읽어 온다. 다음 묶음은 마지막으로 읽은 id 아래부터 이어 읽으므로
+     * 스트림을 읽는 동안 다른 쓰기가 끼어들어도 같은 명언을 두 번 넘기거나 건너뛰지 않는다.
+     */
+    @Override
+    public Stream<Say> streamAll() {
+        synchronized (this) {
+            loadDataIfNeeded();
+        }
+        Iterator<Say> it = new Iterator<>() {
+            private List<Say> batch = List.of();
+            private int index;
+            private int below = Integer.MAX_VALUE;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (index < batch.size())
+                    return true;
+                if (exhausted)
+                    return false;
+                batch = readBatch(below);
+                index = 0;
+                exhausted = batch.size() < STREAM_BATCH;
+                if (!batch.isEmpty())
+                    below = batch.get(batch.size() - 1).getId();
+                return !batch.isEmpty();
+            }
+
+            @Override
+            public Say next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return batch.get(index++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private synchronized List<Say> readBatch(int below) {
+        List<Say> batch = new ArrayList<>(STREAM_BATCH);
+        tree.scanDescending(below, say -> batch.add(say) && batch.size() < STREAM_BATCH);
+        return batch;
+    }
+
+    /**
+     * 10 단계 : 더티 페이지를 모두 내리고 로그를 비운다.
+     */
+    @Override
+    public synchronized void build() {
+        loadDataIfNeeded();
+        checkpoint();
+    }
+
+    /**
+     * 검색 조건이 없으면 건수는 트리가 들고 있고, OFFSET 만큼은 리프의 건수만 보고 건너뛴다.
+     * 조건이 있으면 전체 건수를 세야 하므로 한 번 훑되, 해당 페이지 것만 모은다.
+     */
+    @Override
+    public synchronized PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+        loadDataIfNeeded();
+        if (pageable.hasCursor())
+            return findPageAfterCursor(cond, pageable);
+
+        int from = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        List<Say> pageContent = new ArrayList<>(pageSize);
+        int totalCount;
+
+        if (!cond.hasAuthorCondition() && !cond.hasContentCondition()) {
+            totalCount = tree.size();
+            int below = tree.skipDescending(Integer.MAX_VALUE, from);
+            if (pageSize > 0)
+                tree.scanDescending(below, say -> pageContent.add(say) && pageContent.size() < pageSize);
+        } else {
+            int[] matched = {0};
+            tree.scanDescending(Integer.MAX_VALUE, say -> {
+                if (cond.matches(say)) {
+                    if (matched[0] >= from && matched[0] < from + pageSize)
+                        pageContent.add(say);
+                    matched[0]++;
+                }
+                return true;
+            });
+            totalCount = matched[0];
+        }
+
+        int to = Math.min(from + pageSize, totalCount);
+        Integer nextCursor = to < totalCount && !pageContent.isEmpty() ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, totalCount, nextCursor);
+    }
+
+    // 커서 바로 아래 리프부터 읽기 시작해서 한 페이지 + 1 건을 찾으면 멈춘다.
+    private PageDto<Say> findPageAfterCursor(SaySearchCondition cond, Pageable pageable) {
+        List<Say> pageContent = new ArrayList<>();
+        int pageSize = pageable.getPageSize();
+        boolean[] hasMore = {false};
+
+        tree.scanDescending(pageable.getCursor(), say -> {
+            if (!cond.matches(say))
+                return true;
+            if (pageContent.size() == pageSize) {
+                hasMore[0] = true;
+                return false;
+            }
+            pageContent.add(say);
+            return true;
+        });
+
+        Integer nextCursor = hasMore[0] ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
+    }
+
+    /**
+     * 버퍼 풀은 더티 페이지를 쫓아내지 않으므로 3/4 이 차기 전에 연산 사이에서 내린다.
+     */
+    private void checkpointIfNeeded() {
+        BufferPool pool = tree.getBufferPool();
+        if (pool.getDirtyCount() * 4 >= pool.getCapacity() * 3
+                || mutationLog.getRecordCount() >= CHECKPOINT_LOG_THRESHOLD)
+            checkpoint();
+    }
+
+    /**
+     * 트리가 디스크에 내려간 뒤에 로그를 비운다. 그 사이에 죽어도 로그를 다시 재생하면 결과가 같다.
+     */
+    private void checkpoint() {
+        tree.checkpoint();
+        mutationLog.truncate();
+    }
+
+    private synchronized void checkpointOnShutdown() {
+        try {
+            // GROUP_COMMIT 에서 아직 내리지 못한 레코드부터 내린다.
+            mutationLog.sync();
+            checkpoint();
+        } catch (RuntimeException e) {
+            // 로그가 남아 있으므로 다음 시작 때 재생된다.
+        }
+    }
+
+    private void loadDataIfNeeded() {
+        if (loaded)
+            return;
+        try {
+            Files.createDirectories(dirPath);
+        } catch (IOException e) {
+            throw new RepositoryException("데이터 로드 실패", e);
+        }
+        tree = new SayBTree(dirPath.resolve(DATA_FILE), SayBTree.DEFAULT_PAGE_SIZE, poolPages);
+        mutationLog = new SayMutationLog(dirPath.resolve(LOG_FILE), durability);
+        // 재생은 put 으로 하므로 로그에만 있던 id 까지 lastId 에 반영된다.
+        mutationLog.replay(tree::put, tree::delete);
+
+        if (tree.getLastId() == 0) {
+            for (int i = 1; i <= 10; i++) {
+                tree.put(new Say(i, "작자미상 " + i, "명언" + i));
+            }
+        }
+        checkpoint();
+        loaded = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::checkpointOnShutdown, "say-checkpoint"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.back.say.repository;
+
+import com.back.say.exception.RepositoryException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * hi/lo 방식 id 발급기.
+ * lastId.txt 에는 지금까지 예약한 구간의 끝(high-water mark)만 적고, 그 안의 id 는 메모리에서 나눠준다.
+ * 그래서 create 마다 파일을 읽고 다시 쓰지 않고, blockSize 개마다 한 번만 쓴다.
+ * 비정상 종료로 예약만 하고 못 쓴 id 는 건너뛰게 될 뿐 다시 발급되지 않는다.
+ * 시작할 때는 파일 값과 실제 데이터에서 찾은 최대 id 중 큰 값 다음부터 발급하므로 파일이 뒤처져 있어도 겹치지 않는다.
+ * 파일은 임시 파일에 쓰고 이름을 바꿔 교체하므로 중간에 죽어도 숫자가 잘린 채로 남지 않는다.
+ * 정상 종료나 build 때(flush)는 실제로 마지막에 발급한 id 로 되돌려 적어서 기존 lastId.txt 의미를 유지한다.
+ */
+public class IdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private final Path path;
+    private final int blockSize;
+    // 다음에 나눠줄 id
+    private int next;
+    // 파일에 적어둔 예약 구간의 끝
+    private int reservedUpTo;
+
+    public IdAllocator(Path path, int scannedMaxId) {
+        this(path, scannedMaxId, DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdAllocator(Path path, int scannedMaxId, int blockSize) {
+        this.path = path;
+        this.blockSize = blockSize;
+        int lastId = Math.max(readHighWaterMark(), scannedMaxId);
+        this.next = lastId + 1;
+        this.reservedUpTo = lastId;
+    }
+
+    public synchronized int nextId() {
+        return allocate(1);
+    }
+
+    /**
+     * count 개의 연속된 id 를 예약하고 그 첫 번째 id 를 돌려준다.
+     */
+    public synchronized int allocate(int count) {
+        int first = next;
+        int last = first + count - 1;
+        if (last > reservedUpTo)
+            writeHighWaterMark(last + blockSize);
+        next = last + 1;
+        return first;
+    }
+
+    /**
+     * 지금까지 발급한 가장 큰 id
+     */
+    public synchronized int lastId() {
+        return next - 1;
+    }
+
+    /**
+     * 남은 예약을 돌려놓고 실제 마지막 id 를 적는다. 이후에 다시 발급하면 새 구간을 예약한다.
+     */
+    public synchronized void flush() {
+        if (reservedUpTo != next - 1)
+            writeHighWaterMark(next - 1);
+    }
+
+    private int readHighWaterMark() {
+        try {
+            if (Files.notExists(path))
+                return 0;
+            String txt = Files.readString(path, UTF_8).trim();
+            if (txt.isEmpty())
+                return 0;
+            return Integer.parseInt(txt);
+        } catch (IOException | NumberFormatException e) {
+            throw new RepositoryException("lastId 읽기 실패 : " + path, e);
+        }
+    }
+
+    private void writeHighWaterMark(int id) {
+        try {
+            byte[] bytes = Integer.toString(id).getBytes(UTF_8);
+            AtomicFileWriter.write(path, channel -> channel.write(ByteBuffer.wrap(bytes)));
+            reservedUpTo = id;
+        } catch (IOException e) {
+            throw new RepositoryException("lastId 쓰기 실패 : " + path, e);
+        }
+    }
+}
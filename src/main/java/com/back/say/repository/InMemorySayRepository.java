@@ -7,94 +7,317 @@ import com.back.say.utils.Pageable;
 import com.back.say.utils.SaySearchCondition;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
 import java.util.stream.Stream;
 
+/**
+ * 명언은 id 를 그대로 위치로 쓰는 배열(SayIdArray)에 둔다. id 가 차례로 발급되므로 배열 위치가 곧 정렬 순서라
+ * 목록 조회 때마다 정렬하거나 복사하지 않고, Integer 키나 맵 노드도 만들지 않는다.
+ * 순회는 가장 큰 id 부터 내려가므로 페이지를 채우면 바로 멈추고, 커서 페이지는 커서 바로 아래 칸에서 O(1) 에 시작한다.
+ *
+ * 여러 스레드가 함께 써도 된다. id 는 AtomicInteger 로 발급하고, 쓰기는 칸 단위 원자 연산(set/replace/remove)만 쓰므로 서로 막지 않는다.
+ * 목록과 건수를 함께 돌려주는 조회는 낙관적으로 읽는다. 시작한 쓰기 수와 끝난 쓰기 수를 읽기 전후로 보고,
+ * 그 사이 쓰기가 없었으면 그대로 돌려주고 있었으면 다시 읽는다. 몇 번 해도 안 되면 쓰기를 잠깐 막고 읽는다.
+ *
+ * search.columnar=true 이면 작가/내용을 열 저장소(SayColumns)에도 넣어 두고, 키워드 검색은 명언 객체 대신 그 열을 훑는다.
+ * search.ngram=true 이면 n-gram 역색인(SayNgramIndex)도 함께 고쳐 두고, 키워드 검색은 색인이 준 후보만 확인한다.
+ */
 public class InMemorySayRepository implements SayRepository {
+    private static final int OPTIMISTIC_RETRIES = 3;
 
-    private int id;
-    private final HashMap<Integer, Say> sayMap;
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final AtomicInteger count = new AtomicInteger();
+    private final SayIdArray sayArray = new SayIdArray();
+    // 키워드 검색용 열 저장소, search.columnar 일 때만 있다.
+    private final SayColumns columns;
+    // 키워드 검색용 n-gram 색인, search.ngram 일 때만 있다.
+    private final SayNgramIndex ngramIndex;
+
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesFinished = new AtomicLong();
+    // 쓰기끼리는 공유(읽기 잠금), 낙관적 읽기에 실패한 조회만 배타(쓰기 잠금)로 잡는다.
+    private final ReentrantReadWriteLock writeGate = new ReentrantReadWriteLock();
 
     public InMemorySayRepository() {
-        id = 0;
-        sayMap = new HashMap<>();
+        this(Boolean.getBoolean("search.columnar"));
+    }
 
+    public InMemorySayRepository(boolean columnar) {
+        this(columnar, Boolean.getBoolean("search.ngram"));
+    }
+
+    public InMemorySayRepository(boolean columnar, boolean ngram) {
+        columns = columnar ? new SayColumns() : null;
+        ngramIndex = ngram ? new SayNgramIndex() : null;
         /*for (int i = 1; i <= 10; i++) {
-            id++;
-            sayMap.put(id, new Say(id, "작자미상 " + i, "명언" + i));
+            int id = lastId.incrementAndGet();
+            sayArray.set(id, new Say(id, "작자미상 " + i, "명언" + i));
         }*/
     }
 
     @Override
     public int create(SayDto dto) {
-        id++;
-        sayMap.put(id, new Say(id, dto.getAuthor(), dto.getContent()));
+        beginWrite();
+        try {
+            int id = lastId.incrementAndGet();
+            Say say = new Say(id, dto.getAuthor(), dto.getContent());
+            sayArray.set(id, say);
+            if (columns != null)
+                columns.refresh(id, sayArray::get);
+            if (ngramIndex != null)
+                ngramIndex.refresh(id, sayArray::get);
+            count.incrementAndGet();
+            return id;
+        } finally {
+            endWrite();
+        }
+    }
 
-        return id;
+    /**
+     * id 구간을 한 번에 잡으므로 다른 스레드의 등록과 섞여도 연속된 id 를 받는다.
+     */
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        List<Integer> ids = new ArrayList<>(dtoList.size());
+        beginWrite();
+        try {
+            int firstId = lastId.getAndAdd(dtoList.size()) + 1;
+            for (int i = 0; i < dtoList.size(); i++) {
+                SayDto dto = dtoList.get(i);
+                int id = firstId + i;
+                Say say = new Say(id, dto.getAuthor(), dto.getContent());
+                sayArray.set(id, say);
+                if (columns != null)
+                    columns.refresh(id, sayArray::get);
+                if (ngramIndex != null)
+                    ngramIndex.refresh(id, sayArray::get);
+                ids.add(id);
+            }
+            count.addAndGet(dtoList.size());
+        } finally {
+            endWrite();
+        }
+        return ids;
     }
 
+    // 확인하고 넣는 사이에 지워지면 되살아나므로 replace 한 번으로 한다.
     @Override
     public int update(int id, SayDto dto) {
-        if (!sayMap.containsKey(id))
-            return -1;
-        sayMap.put(id, new Say(id, dto.getAuthor(), dto.getContent()));
-        return id;
+        beginWrite();
+        try {
+            Say say = new Say(id, dto.getAuthor(), dto.getContent());
+            if (sayArray.replace(id, say) == null)
+                return -1;
+            if (columns != null)
+                columns.refresh(id, sayArray::get);
+            if (ngramIndex != null)
+                ngramIndex.refresh(id, sayArray::get);
+            return id;
+        } finally {
+            endWrite();
+        }
     }
 
     @Override
     public int delete(int id) {
-        if (!sayMap.containsKey(id))
-            return -1;
-        sayMap.remove(id);
-        return id;
+        beginWrite();
+        try {
+            if (sayArray.remove(id) == null)
+                return -1;
+            if (columns != null)
+                columns.refresh(id, sayArray::get);
+            if (ngramIndex != null)
+                ngramIndex.refresh(id, sayArray::get);
+            count.decrementAndGet();
+            return id;
+        } finally {
+            endWrite();
+        }
     }
 
     @Override
     public Optional<Say> findById(int id) {
-        Say say = sayMap.get(id);
-        if(say == null)
-            return Optional.empty();
-        return Optional.of(say);
+        return Optional.ofNullable(sayArray.get(id));
     }
 
     @Override
     public List<Say> findAll() {
-        return sortedStreamDescById()
-//                .limit(5)
-                .collect(Collectors.toCollection(ArrayList::new));
+        return readConsistent(() -> {
+            List<Say> sayList = new ArrayList<>(count.get());
+            descending().forEachRemaining(sayList::add);
+            return sayList;
+        });
+    }
+
+    /**
+     * 스트림은 한 시점의 사본이 아니다. 읽는 동안 다른 스레드의 쓰기가 보일 수도 안 보일 수도 있지만,
+     * 같은 명언을 두 번 넘기거나 처음부터 끝까지 있던 명언을 빠뜨리지는 않는다.
+     */
+    @Override
+    public Stream<Say> streamAll() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(descending(), Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT),
+                false);
     }
 
     @Override
     public void build() {}
 
+    /**
+     * 검색 조건이 없으면 SayIdArray 의 살아 있는 칸 수로 OFFSET 을 통째로 건너뛰고 pageSize 만큼만 읽는다.
+     * 조건이 있으면 건수를 세야 하므로 끝까지 훑되, 해당 페이지 것만 모은다.
+     */
     @Override
     public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
-        Stream<Say> stream = sortedStreamDescById();
-
-        if (cond.hasAuthorCondition() && cond.hasContentCondition()) {
-            String k = cond.getAuthorContains();
-            stream = stream.filter(say->say.getAuthor().contains(k) || say.getContent().contains(k));
-        } else if (cond.hasAuthorCondition()) {
-            String k = cond.getAuthorContains();
-            stream = stream.filter(say->say.getAuthor().contains(k));
-        } else if (cond.hasContentCondition()) {
-            String k = cond.getContentContains();
-            stream = stream.filter(say->say.getContent().contains(k));
+        if (ngramIndex != null && (cond.hasAuthorCondition() || cond.hasContentCondition())) {
+            PageDto<Say> page = readConsistent(() -> ngramIndex.findPage(cond, pageable, sayArray::get));
+            // 한 글자 키워드처럼 색인으로 줄일 수 없으면 아래에서 훑는다.
+            if (page != null)
+                return page;
+        }
+        if (columns != null && (cond.hasAuthorCondition() || cond.hasContentCondition())) {
+            if (pageable.hasCursor())
+                return readConsistent(() -> findPageAfterCursorByColumns(cond, pageable));
+            return readConsistent(() -> findPageByColumns(cond, pageable));
+        }
+        if (pageable.hasCursor())
+            return readConsistent(() -> findPageAfterCursor(cond, pageable));
+        return readConsistent(() -> findPageByOffset(cond, pageable));
+    }
+
+    private PageDto<Say> findPageByOffset(SaySearchCondition cond, Pageable pageable) {
+        int from = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        List<Say> pageContent = new ArrayList<>(pageSize);
+        int totalCount;
+
+        if (!cond.hasAuthorCondition() && !cond.hasContentCondition()) {
+            totalCount = count.get();
+            int start = sayArray.skipDescending(lastId.get(), from);
+            if (start > 0) {
+                for (Iterator<Say> it = sayArray.descendingIterator(start); pageContent.size() < pageSize && it.hasNext(); ) {
+                    pageContent.add(it.next());
+                }
+            }
+        } else {
+            Iterator<Say> it = descending();
+            int matched = 0;
+            while (it.hasNext()) {
+                Say say = it.next();
+                if (!cond.matches(say))
+                    continue;
+                if (matched >= from && matched < from + pageSize)
+                    pageContent.add(say);
+                matched++;
+            }
+            totalCount = matched;
+        }
+
+        int to = Math.min(from + pageSize, totalCount);
+        Integer nextCursor = to < totalCount && !pageContent.isEmpty() ? pageContent.get(pageContent.size() - 1).getId() : null;
+
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, totalCount, nextCursor);
+    }
+
+    /**
+     * 커서보다 작은 id 칸부터 내려가며 pageSize 만큼 채우면 멈춘다.
+     */
+    private PageDto<Say> findPageAfterCursor(SaySearchCondition cond, Pageable pageable) {
+        List<Say> pageContent = new ArrayList<>();
+        int pageSize = pageable.getPageSize();
+        boolean hasMore = false;
+
+        int start = Math.min(Math.max(pageable.getCursor(), 1) - 1, lastId.get());
+        for (Iterator<Say> it = sayArray.descendingIterator(start); it.hasNext(); ) {
+            Say say = it.next();
+            if (!cond.matches(say))
+                continue;
+            if (pageContent.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            pageContent.add(say);
         }
 
-        List<Say> filtered = stream.toList();
-        int totalCount = filtered.size();
+        Integer nextCursor = hasMore ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
+    }
 
+    /**
+     * 조건에 맞는 id 를 열 저장소에서 한 번에 받으므로 건수는 배열 길이이고, 명언은 해당 페이지 것만 꺼낸다.
+     * 받은 id 가 그사이 지워졌으면(null) 쓰기가 겹친 것이므로 readConsistent 가 다시 읽는다.
+     */
+    private PageDto<Say> findPageByColumns(SaySearchCondition cond, Pageable pageable) {
+        int[] matchedIds = columns.findIds(cond);
+        int totalCount = matchedIds.length;
+        int pageSize = pageable.getPageSize();
         int from = Math.min(pageable.getOffset(), totalCount);
-        int to = Math.min(from + pageable.getPageSize(), totalCount);
+        int to = Math.min(from + pageSize, totalCount);
+
+        List<Say> pageContent = sayListOf(matchedIds, from, to);
+        Integer nextCursor = to < totalCount && !pageContent.isEmpty() ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, totalCount, nextCursor);
+    }
 
-        List<Say> pageContent = filtered.subList(from, to);
+    private PageDto<Say> findPageAfterCursorByColumns(SaySearchCondition cond, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+        // 하나 더 받아서 다음 페이지가 있는지 본다.
+        int[] matchedIds = columns.findIdsBelow(cond, pageable.getCursor(), pageSize + 1);
+        boolean hasMore = matchedIds.length > pageSize;
+
+        List<Say> pageContent = sayListOf(matchedIds, 0, Math.min(matchedIds.length, pageSize));
+        Integer nextCursor = hasMore && !pageContent.isEmpty() ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
+    }
+
+    private List<Say> sayListOf(int[] ids, int from, int to) {
+        List<Say> sayList = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Say say = sayArray.get(ids[i]);
+            if (say != null)
+                sayList.add(say);
+        }
+        return sayList;
+    }
+
+    private Iterator<Say> descending() {
+        return sayArray.descendingIterator(lastId.get());
+    }
+
+    /**
+     * 읽는 동안 끝나지 않은 쓰기가 없었으면 그 결과는 한 시점의 상태와 같다.
+     * writesStarted 가 처음 본 writesFinished 와 같다면 그 사이 시작한 쓰기도, 진행 중이던 쓰기도 없었다.
+     */
+    private <T> T readConsistent(Supplier<T> reader) {
+        for (int attempt = 0; attempt < OPTIMISTIC_RETRIES; attempt++) {
+            long finished = writesFinished.get();
+            if (writesStarted.get() != finished) {
+                Thread.onSpinWait();
+                continue;
+            }
+            T result = reader.get();
+            if (writesStarted.get() == finished)
+                return result;
+        }
+        writeGate.writeLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+    }
 
-        return new PageDto<>(pageContent, pageable.getPageNo(), pageable.getPageSize(), totalCount);
+    private void beginWrite() {
+        writeGate.readLock().lock();
+        writesStarted.incrementAndGet();
     }
 
-    private Stream<Say> sortedStreamDescById() {
-        return sayMap.values().stream()
-                .sorted(Comparator.comparingInt(Say::getId).reversed());
+    private void endWrite() {
+        writesFinished.incrementAndGet();
+        writeGate.readLock().unlock();
     }
 }
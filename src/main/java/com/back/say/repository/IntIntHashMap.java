@@ -0,0 +1,172 @@
+package com.back.say.repository;
+
+import java.util.Arrays;
+
+/**
+ * int → int 해시 맵. 키와 값을 int 배열 두 개에 그대로 담아 Integer 상자나 Node 객체를 만들지 않는다.
+ * 열린 주소법 + 선형 탐사이고, 지울 때는 묘비를 남기지 않고 뒤따르는 항목을 당겨 채운다(backward shift).
+ * 값은 0 이상만 넣는다. 없는 키는 MISSING(-1) 로 돌려준다.
+ */
+public class IntIntHashMap {
+    public static final int MISSING = -1;
+    private static final int EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int shift;
+    private int size;
+    private int resizeAt;
+    // 키 EMPTY(-1) 는 슬롯 표시와 겹치므로 따로 든다.
+    private boolean hasEmptyKey;
+    private int emptyKeyValue;
+
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int get(int key) {
+        if (key == EMPTY)
+            return hasEmptyKey ? emptyKeyValue : MISSING;
+        int slot = slotOf(key);
+        while (true) {
+            int k = keys[slot];
+            if (k == key)
+                return values[slot];
+            if (k == EMPTY)
+                return MISSING;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * @return 이전 값, 없었으면 MISSING
+     */
+    public int put(int key, int value) {
+        if (key == EMPTY) {
+            int old = hasEmptyKey ? emptyKeyValue : MISSING;
+            if (!hasEmptyKey)
+                size++;
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+            return old;
+        }
+        int slot = slotOf(key);
+        while (true) {
+            int k = keys[slot];
+            if (k == key) {
+                int old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size >= resizeAt)
+                    rehash(keys.length * 2);
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return 지운 값, 없었으면 MISSING
+     */
+    public int remove(int key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey)
+                return MISSING;
+            hasEmptyKey = false;
+            size--;
+            return emptyKeyValue;
+        }
+        int slot = slotOf(key);
+        while (true) {
+            int k = keys[slot];
+            if (k == EMPTY)
+                return MISSING;
+            if (k == key)
+                break;
+            slot = (slot + 1) & mask;
+        }
+        int old = values[slot];
+        shiftBack(slot);
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasEmptyKey = false;
+    }
+
+    // 빈 자리 뒤의 탐사 사슬을 당겨서, 이후 조회가 빈 칸에서 멈추지 않게 한다.
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int k = keys[slot];
+            if (k == EMPTY)
+                break;
+            int home = slotOf(k);
+            // home 이 (gap, slot] 구간 밖이면 gap 으로 옮겨도 탐사 순서가 유지된다.
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+    }
+
+    private int slotOf(int key) {
+        // 연속된 id 가 이웃 슬롯에 뭉치지 않도록 곱한 뒤 윗 비트를 쓴다. (피보나치 해싱)
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k == EMPTY)
+                continue;
+            int slot = slotOf(k);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = k;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
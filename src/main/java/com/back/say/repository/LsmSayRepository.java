@@ -0,0 +1,750 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.exception.RepositoryException;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 쓰기가 많은 적재용 LSM 저장소.
+ * 쓰기는 memtable(ConcurrentSkipListMap) 과 그 memtable 전용 로그(wal-N.log) 에만 남기고 바로 돌아온다.
+ * memtable 이 memtableBytes 를 넘으면 새 memtable 로 갈아끼우고, 백그라운드 스레드가 이전 것을
+ * 정렬된 불변 세그먼트(seg-최소seq-최대seq.sst) 로 내린 뒤 그 로그를 지운다.
+ * 세그먼트가 compactTrigger 개 이상 쌓이면 하나로 합치면서 덮어쓴 값과 삭제 표시를 버린다.
+ *
+ * 조회는 memtable → 내리는 중인 memtable → 최신 세그먼트 순으로 찾고, 처음 찾은 값이 최신이다.
+ * 세그먼트마다 블룸 필터가 있어서 없는 id 의 findById(update/delete 의 SayNotFoundException 경로) 는 대부분 디스크를 읽지 않는다.
+ * 목록은 모든 출처를 id 내림차순으로 병합해서 읽고, 같은 id 는 가장 새 것만 남긴다.
+ *
+ * 설정 : lsm.memtableBytes (기본 4MB), lsm.compactSegments (기본 4)
+ */
+public class LsmSayRepository implements SayRepository, AutoCloseable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("seg-(\\d+)-(\\d+)\\.sst");
+    private static final Pattern WAL_NAME = Pattern.compile("wal-(\\d+)\\.log");
+
+    private final Path dirPath;
+    private final long memtableBytes;
+    private final int compactTrigger;
+    private final DurabilityPolicy durability;
+
+    private static final class Memtable {
+        private final ConcurrentSkipListMap<Integer, Say> map = new ConcurrentSkipListMap<>();
+        private final SayMutationLog wal;
+        private final Path walPath;
+        // mutationLock 안에서만 늘린다.
+        private volatile long bytes;
+
+        private Memtable(SayMutationLog wal, Path walPath) {
+            this.wal = wal;
+            this.walPath = walPath;
+        }
+    }
+
+    /**
+     * 지금 읽어야 할 출처들. 바꿀 때는 통째로 새로 만들어서 stateLock 쓰기 잠금 안에서 갈아끼운다.
+     * segments 는 최신 것이 앞이다.
+     */
+    private record Version(Memtable active, Memtable immutable, List<SaySegment> segments) {
+    }
+
+    private volatile Version version;
+    private volatile boolean loaded;
+    private volatile boolean closed;
+
+    // 읽기와 쓰기는 읽기 잠금, Version 교체만 쓰기 잠금. 교체가 끝나기 전에는 세그먼트를 닫지 않는다.
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    // 같은 id 에 대한 확인-쓰기와 memtable/로그 순서를 맞추기 위해 쓰기끼리는 줄을 세운다.
+    private final ReentrantLock mutationLock = new ReentrantLock();
+    // 내리기와 합치기는 한 번에 하나씩
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+    private final ReentrantLock workLock = new ReentrantLock();
+    private final Condition workRequested = workLock.newCondition();
+    private Thread worker;
+    // 백그라운드 내리기/합치기가 실패하면 남겨두고 다음 쓰기에서 한 번 던진다.
+    private final AtomicReference<Exception> backgroundFailure = new AtomicReference<>();
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final AtomicInteger liveCount = new AtomicInteger();
+    private final AtomicLong bloomSkips = new AtomicLong();
+    private int nextSegmentSeq = 1;
+    private int nextWalNo = 1;
+
+    public LsmSayRepository() {
+        this(Path.of("db/wiseSaying/lsm/"),
+                Long.getLong("lsm.memtableBytes", 4L * 1024 * 1024),
+                Integer.getInteger("lsm.compactSegments", 4),
+                DurabilityPolicy.fromSystemProperties());
+    }
+
+    public LsmSayRepository(Path dirPath, long memtableBytes, int compactTrigger, DurabilityPolicy durability) {
+        if (compactTrigger < 2)
+            throw new IllegalArgumentException("compactTrigger 는 2 이상이어야 합니다.");
+        this.dirPath = dirPath;
+        this.memtableBytes = memtableBytes;
+        this.compactTrigger = compactTrigger;
+        this.durability = durability;
+    }
+
+    @Override
+    public int create(SayDto dto) {
+        loadIfNeeded();
+        throwIfBackgroundFailed();
+        int id;
+        long seq;
+        Memtable target;
+        stateLock.readLock().lock();
+        mutationLock.lock();
+        try {
+            target = version.active();
+            id = lastId.incrementAndGet();
+            seq = apply(target, new Say(id, dto.getAuthor(), dto.getContent()));
+            liveCount.incrementAndGet();
+        } finally {
+            mutationLock.unlock();
+            stateLock.readLock().unlock();
+        }
+        target.wal.awaitDurable(seq);
+        rotateIfNeeded();
+        return id;
+    }
+
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        loadIfNeeded();
+        throwIfBackgroundFailed();
+        List<Integer> ids = new ArrayList<>(dtoList.size());
+        long seq = 0;
+        Memtable target;
+        stateLock.readLock().lock();
+        mutationLock.lock();
+        try {
+            target = version.active();
+            for (SayDto dto : dtoList) {
+                int id = lastId.incrementAndGet();
+                seq = apply(target, new Say(id, dto.getAuthor(), dto.getContent()));
+                ids.add(id);
+            }
+            liveCount.addAndGet(dtoList.size());
+        } finally {
+            mutationLock.unlock();
+            stateLock.readLock().unlock();
+        }
+        target.wal.awaitDurable(seq);
+        rotateIfNeeded();
+        return ids;
+    }
+
+    @Override
+    public int update(int id, SayDto dto) {
+        loadIfNeeded();
+        throwIfBackgroundFailed();
+        long seq;
+        Memtable target;
+        stateLock.readLock().lock();
+        mutationLock.lock();
+        try {
+            if (lookup(version, id) == null)
+                return -1;
+            target = version.active();
+            seq = apply(target, new Say(id, dto.getAuthor(), dto.getContent()));
+        } finally {
+            mutationLock.unlock();
+            stateLock.readLock().unlock();
+        }
+        target.wal.awaitDurable(seq);
+        rotateIfNeeded();
+        return id;
+    }
+
+    @Override
+    public int delete(int id) {
+        loadIfNeeded();
+        throwIfBackgroundFailed();
+        long seq;
+        Memtable target;
+        stateLock.readLock().lock();
+        mutationLock.lock();
+        try {
+            if (lookup(version, id) == null)
+                return -1;
+            target = version.active();
+            seq = apply(target, SaySegment.tombstone(id));
+            liveCount.decrementAndGet();
+        } finally {
+            mutationLock.unlock();
+            stateLock.readLock().unlock();
+        }
+        target.wal.awaitDurable(seq);
+        rotateIfNeeded();
+        return id;
+    }
+
+    @Override
+    public Optional<Say> findById(int id) {
+        loadIfNeeded();
+        stateLock.readLock().lock();
+        try {
+            return Optional.ofNullable(lookup(version, id));
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Say> findAll() {
+        loadIfNeeded();
+        stateLock.readLock().lock();
+        try {
+            List<Say> sayList = new ArrayList<>(liveCount.get());
+            mergedDescending(version, Integer.MAX_VALUE).forEachRemaining(sayList::add);
+            return sayList;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 세그먼트를 잡아두고(retain) 병합해서 흘려보낸다. 그동안 합치기가 끝나도 잡힌 세그먼트는 close() 때까지 닫히지 않는다.
+     */
+    @Override
+    public Stream<Say> streamAll() {
+        loadIfNeeded();
+        Version snapshot;
+        stateLock.readLock().lock();
+        try {
+            snapshot = version;
+            snapshot.segments().forEach(SaySegment::retain);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        Iterator<Say> it = mergedDescending(snapshot, Integer.MAX_VALUE);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> snapshot.segments().forEach(SaySegment::release));
+    }
+
+    /**
+     * 10 단계 : memtable 을 모두 세그먼트로 내리고 세그먼트를 하나로 합친다.
+     */
+    @Override
+    public void build() {
+        loadIfNeeded();
+        maintenanceLock.lock();
+        try {
+            flushImmutable();
+            rotate();
+            flushImmutable();
+            compact(2);
+        } catch (IOException e) {
+            throw new RepositoryException("build 실패", e);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * 검색 조건이 없으면 건수는 세어둔 값을 쓰고, 조건이 있으면 병합하며 한 번 훑어 세면서 해당 페이지만 모은다.
+     */
+    @Override
+    public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+        loadIfNeeded();
+        stateLock.readLock().lock();
+        try {
+            if (pageable.hasCursor())
+                return findPageAfterCursor(cond, pageable);
+
+            int from = pageable.getOffset();
+            int pageSize = pageable.getPageSize();
+            List<Say> pageContent = new ArrayList<>(pageSize);
+            Iterator<Say> it = mergedDescending(version, Integer.MAX_VALUE);
+            int totalCount;
+
+            if (!cond.hasAuthorCondition() && !cond.hasContentCondition()) {
+                totalCount = liveCount.get();
+                for (int i = 0; i < from && it.hasNext(); i++) {
+                    it.next();
+                }
+                while (pageContent.size() < pageSize && it.hasNext()) {
+                    pageContent.add(it.next());
+                }
+            } else {
+                int matched = 0;
+                while (it.hasNext()) {
+                    Say say = it.next();
+                    if (!cond.matches(say))
+                        continue;
+                    if (matched >= from && matched < from + pageSize)
+                        pageContent.add(say);
+                    matched++;
+                }
+                totalCount = matched;
+            }
+
+            int to = Math.min(from + pageSize, totalCount);
+            Integer nextCursor = to < totalCount && !pageContent.isEmpty() ? pageContent.get(pageContent.size() - 1).getId() : null;
+            return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, totalCount, nextCursor);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    private PageDto<Say> findPageAfterCursor(SaySearchCondition cond, Pageable pageable) {
+        List<Say> pageContent = new ArrayList<>();
+        int pageSize = pageable.getPageSize();
+        boolean hasMore = false;
+
+        Iterator<Say> it = mergedDescending(version, pageable.getCursor());
+        while (it.hasNext()) {
+            Say say = it.next();
+            if (!cond.matches(say))
+                continue;
+            if (pageContent.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            pageContent.add(say);
+        }
+
+        Integer nextCursor = hasMore ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
+    }
+
+    public int getSegmentCount() {
+        loadIfNeeded();
+        return version.segments().size();
+    }
+
+    /**
+     * findById 에서 블룸 필터 덕분에 블록을 읽지 않고 넘어간 세그먼트 수
+     */
+    public long getBloomSkips() {
+        return bloomSkips.get();
+    }
+
+    @Override
+    public void close() {
+        if (!loaded || closed)
+            return;
+        closed = true;
+        signalWorker();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stateLock.writeLock().lock();
+        try {
+            version.active().wal.close();
+            if (version.immutable() != null)
+                version.immutable().wal.close();
+            version.segments().forEach(SaySegment::release);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- 쓰기
+
+    private long apply(Memtable memtable, Say say) {
+        memtable.map.put(say.getId(), say);
+        if (SaySegment.isTombstone(say)) {
+            memtable.bytes += 16;
+            return memtable.wal.appendDelete(say.getId());
+        }
+        memtable.bytes += 32 + 2L * (say.getAuthor().length() + say.getContent().length());
+        return memtable.wal.appendUpsert(say);
+    }
+
+    private Say lookup(Version v, int id) {
+        Say say = v.active().map.get(id);
+        if (say == null && v.immutable() != null)
+            say = v.immutable().map.get(id);
+        if (say == null) {
+            for (SaySegment segment : v.segments()) {
+                if (!segment.mightContain(id)) {
+                    bloomSkips.incrementAndGet();
+                    continue;
+                }
+                say = segment.get(id);
+                if (say != null)
+                    break;
+            }
+        }
+        return say == null || SaySegment.isTombstone(say) ? null : say;
+    }
+
+    /**
+     * memtable 이 다 찼으면 갈아끼우고 백그라운드에 내리기를 맡긴다.
+     * 이전 memtable 을 아직 내리는 중이면 그대로 더 받는다.
+     */
+    private void rotateIfNeeded() {
+        Version v = version;
+        if (v.active().bytes < memtableBytes || v.immutable() != null)
+            return;
+        rotate();
+        signalWorker();
+    }
+
+    private void rotate() {
+        stateLock.writeLock().lock();
+        try {
+            Version v = version;
+            if (v.immutable() != null || v.active().map.isEmpty())
+                return;
+            version = new Version(newMemtable(), v.active(), v.segments());
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    private Memtable newMemtable() {
+        Path walPath = dirPath.resolve("wal-" + (nextWalNo++) + ".log");
+        return new Memtable(new SayMutationLog(walPath, durability), walPath);
+    }
+
+    // ---------------------------------------------------------------- 내리기, 합치기
+
+    private void flushImmutable() throws IOException {
+        Memtable immutable = version.immutable();
+        if (immutable == null)
+            return;
+        int seq = nextSegmentSeq++;
+        SaySegment segment = SaySegment.write(segmentPath(seq, seq), immutable.map.values().iterator(),
+                immutable.map.size(), lastId.get(), seq, seq);
+
+        stateLock.writeLock().lock();
+        try {
+            List<SaySegment> segments = new ArrayList<>(version.segments().size() + 1);
+            segments.add(segment);
+            segments.addAll(version.segments());
+            version = new Version(version.active(), null, List.copyOf(segments));
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        // 세그먼트가 디스크에 내려간 뒤에만 로그를 지운다.
+        immutable.wal.close();
+        Files.deleteIfExists(immutable.walPath);
+    }
+
+    /**
+     * 지금 있는 세그먼트 전부를 하나로 합친다. 가장 오래된 것까지 들어가므로 삭제 표시는 더 가릴 것이 없어 버린다.
+     * 합치는 동안 새로 내려온 세그먼트는 결과보다 새 것이므로 앞에 그대로 둔다.
+     */
+    private void compact(int minSegments) throws IOException {
+        List<SaySegment> inputs;
+        stateLock.readLock().lock();
+        try {
+            inputs = version.segments();
+            if (inputs.size() < minSegments)
+                return;
+            inputs.forEach(SaySegment::retain);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+
+        SaySegment output;
+        try {
+            int minSeq = inputs.stream().mapToInt(SaySegment::getMinSeq).min().orElseThrow();
+            int maxSeq = inputs.stream().mapToInt(SaySegment::getMaxSeq).max().orElseThrow();
+            int maxLastId = inputs.stream().mapToInt(SaySegment::getLastId).max().orElseThrow();
+            int expected = inputs.stream().mapToInt(SaySegment::getCount).sum();
+            List<Iterator<Say>> sources = new ArrayList<>(inputs.size());
+            for (SaySegment segment : inputs) {
+                sources.add(segment.ascendingIterator());
+            }
+            output = SaySegment.write(segmentPath(minSeq, maxSeq), new MergingIterator(sources, false),
+                    expected, maxLastId, minSeq, maxSeq);
+        } catch (IOException | RuntimeException e) {
+            inputs.forEach(SaySegment::release);
+            throw e;
+        }
+
+        stateLock.writeLock().lock();
+        try {
+            List<SaySegment> segments = new ArrayList<>();
+            for (SaySegment segment : version.segments()) {
+                if (!inputs.contains(segment))
+                    segments.add(segment);
+            }
+            segments.add(output);
+            version = new Version(version.active(), version.immutable(), List.copyOf(segments));
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        for (SaySegment segment : inputs) {
+            segment.markObsolete();
+            segment.release();
+            segment.release();
+        }
+    }
+
+    private void signalWorker() {
+        workLock.lock();
+        try {
+            workRequested.signal();
+        } finally {
+            workLock.unlock();
+        }
+    }
+
+    /**
+     * 실패하면 남겨두고, 로그와 입력 세그먼트가 그대로 있으므로 간격을 두 배씩(최대 30초) 늘려 가며 다시 시도한다.
+     * 그동안 memtable 을 갈아끼우지 못해 메모리에 계속 쌓이므로 다음 쓰기가 실패를 알게 한다.
+     */
+    private void workLoop() {
+        long waitMillis = 1000;
+        while (!closed) {
+            workLock.lock();
+            try {
+                workRequested.await(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                workLock.unlock();
+            }
+            if (closed)
+                return;
+
+            maintenanceLock.lock();
+            try {
+                flushImmutable();
+                compact(compactTrigger);
+                waitMillis = 1000;
+            } catch (IOException | RuntimeException e) {
+                backgroundFailure.set(e);
+                waitMillis = Math.min(waitMillis * 2, MAX_BACKOFF_MILLIS);
+            } finally {
+                maintenanceLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 백그라운드 실패가 남아 있으면 이번 쓰기는 반영하지 않고 던진다. 같은 실패는 한 번만 던진다.
+     */
+    private void throwIfBackgroundFailed() {
+        Exception failure = backgroundFailure.getAndSet(null);
+        if (failure != null)
+            throw new RepositoryException("memtable 내리기/합치기 실패", failure);
+    }
+
+    // ---------------------------------------------------------------- 병합 읽기
+
+    private Iterator<Say> mergedDescending(Version v, int below) {
+        List<Iterator<Say>> sources = new ArrayList<>(v.segments().size() + 2);
+        sources.add(v.active().map.headMap(below, false).descendingMap().values().iterator());
+        if (v.immutable() != null)
+            sources.add(v.immutable().map.headMap(below, false).descendingMap().values().iterator());
+        for (SaySegment segment : v.segments()) {
+            sources.add(segment.descendingIterator(below));
+        }
+        return new MergingIterator(sources, true);
+    }
+
+    /**
+     * 각자 id 순서로 정렬된 출처들을 하나로 합친다. 출처는 최신 것이 앞이고, 같은 id 는 가장 앞 출처의 값만 남긴다.
+     * 남은 값이 삭제 표시면 그 id 는 건너뛴다.
+     */
+    private static final class MergingIterator implements Iterator<Say> {
+        private record Head(Say say, int source, Iterator<Say> it) {
+        }
+
+        private final PriorityQueue<Head> heap;
+        private Say next;
+
+        private MergingIterator(List<Iterator<Say>> sources, boolean descending) {
+            Comparator<Head> byId = Comparator.comparingInt(h -> h.say().getId());
+            if (descending)
+                byId = byId.reversed();
+            heap = new PriorityQueue<>(Math.max(1, sources.size()), byId.thenComparingInt(Head::source));
+            for (int i = 0; i < sources.size(); i++) {
+                Iterator<Say> it = sources.get(i);
+                if (it.hasNext())
+                    heap.add(new Head(it.next(), i, it));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !heap.isEmpty()) {
+                Head top = heap.poll();
+                advance(top);
+                int id = top.say().getId();
+                while (!heap.isEmpty() && heap.peek().say().getId() == id) {
+                    advance(heap.poll());
+                }
+                if (!SaySegment.isTombstone(top.say()))
+                    next = top.say();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Say next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Say say = next;
+            next = null;
+            return say;
+        }
+
+        private void advance(Head head) {
+            if (head.it().hasNext())
+                heap.add(new Head(head.it().next(), head.source(), head.it()));
+        }
+    }
+
+    // ---------------------------------------------------------------- 시작
+
+    private void loadIfNeeded() {
+        if (!loaded)
+            load();
+    }
+
+    private synchronized void load() {
+        if (loaded)
+            return;
+        if (closed)
+            throw new IllegalStateException("닫힌 저장소입니다.");
+        try {
+            Files.createDirectories(dirPath);
+            List<SaySegment> segments = openSegments();
+            for (SaySegment segment : segments) {
+                nextSegmentSeq = Math.max(nextSegmentSeq, segment.getMaxSeq() + 1);
+                lastId.accumulateAndGet(segment.getLastId(), Math::max);
+            }
+
+            // 내리기 전에 끝난 memtable 들을 로그에서 되살려 세그먼트 하나로 내린다.
+            List<Path> walPaths = listFiles(WAL_NAME);
+            ConcurrentSkipListMap<Integer, Say> replayed = new ConcurrentSkipListMap<>();
+            for (Path walPath : walPaths) {
+                nextWalNo = Math.max(nextWalNo, number(WAL_NAME, walPath, 1) + 1);
+                try (SayMutationLog log = new SayMutationLog(walPath)) {
+                    log.replay(say -> replayed.put(say.getId(), say),
+                            id -> replayed.put(id, SaySegment.tombstone(id)));
+                }
+            }
+            if (!replayed.isEmpty()) {
+                lastId.accumulateAndGet(replayed.lastKey(), Math::max);
+                int seq = nextSegmentSeq++;
+                segments.add(0, SaySegment.write(segmentPath(seq, seq), replayed.values().iterator(),
+                        replayed.size(), lastId.get(), seq, seq));
+            }
+            for (Path walPath : walPaths) {
+                Files.deleteIfExists(walPath);
+            }
+
+            version = new Version(newMemtable(), null, List.copyOf(segments));
+            if (segments.isEmpty()) {
+                for (int i = 1; i <= 10; i++) {
+                    apply(version.active(), new Say(lastId.incrementAndGet(), "작자미상 " + i, "명언" + i));
+                }
+            }
+            int live = 0;
+            for (Iterator<Say> it = mergedDescending(version, Integer.MAX_VALUE); it.hasNext(); it.next()) {
+                live++;
+            }
+            liveCount.set(live);
+        } catch (IOException e) {
+            throw new RepositoryException("데이터 로드 실패", e);
+        }
+
+        worker = new Thread(this::workLoop, "say-lsm-compact");
+        worker.setDaemon(true);
+        worker.start();
+        loaded = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::syncOnShutdown, "say-lsm-sync"));
+        signalWorker();
+    }
+
+    /**
+     * 세그먼트를 연다. 합치기가 끝나고 입력을 지우기 전에 죽었으면 seq 범위가 더 넓은 세그먼트에 덮이는 것이 남아 있으므로 지운다.
+     */
+    private List<SaySegment> openSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dirPath)) {
+            for (Path tmp : files.filter(p -> p.getFileName().toString().endsWith(AtomicFileWriter.TEMP_SUFFIX)).toList()) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        List<SaySegment> opened = new ArrayList<>();
+        for (Path path : listFiles(SEGMENT_NAME)) {
+            opened.add(SaySegment.open(path));
+        }
+        opened.sort(Comparator.comparingInt(SaySegment::getMaxSeq).reversed()
+                .thenComparingInt(SaySegment::getMinSeq));
+
+        List<SaySegment> segments = new ArrayList<>();
+        for (SaySegment segment : opened) {
+            boolean covered = segments.stream()
+                    .anyMatch(s -> s.getMinSeq() <= segment.getMinSeq() && segment.getMaxSeq() <= s.getMaxSeq());
+            if (covered) {
+                segment.markObsolete();
+                segment.release();
+            } else {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private List<Path> listFiles(Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(dirPath)) {
+            return files.filter(p -> pattern.matcher(p.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingInt(p -> number(pattern, p, 1)))
+                    .toList();
+        }
+    }
+
+    private static int number(Pattern pattern, Path path, int group) {
+        Matcher matcher = pattern.matcher(path.getFileName().toString());
+        if (!matcher.matches())
+            throw new IllegalArgumentException(path.toString());
+        return Integer.parseInt(matcher.group(group));
+    }
+
+    private Path segmentPath(int minSeq, int maxSeq) {
+        return dirPath.resolve("seg-" + minSeq + "-" + maxSeq + ".sst");
+    }
+
+    private void syncOnShutdown() {
+        if (closed)
+            return;
+        try {
+            // GROUP_COMMIT 에서 아직 내리지 못한 레코드를 내린다. memtable 은 다음 시작 때 로그에서 되살린다.
+            version.active().wal.sync();
+            Memtable immutable = version.immutable();
+            if (immutable != null)
+                immutable.wal.sync();
+        } catch (RuntimeException e) {
+            // 이미 닫힌 로그
+        }
+    }
+}
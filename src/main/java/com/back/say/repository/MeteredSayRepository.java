@@ -0,0 +1,101 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import com.back.standard.util.OperationMetrics;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 다른 SayRepository 를 감싸서 연산별 지연시간, 처리량, 오류 횟수를 기록한다.
+ * 저장소 구현체 이름(backendName)별로 따로 모이므로 InMemory/File/Db 를 같은 부하에서 비교할 수 있다.
+ */
+public class MeteredSayRepository implements SayRepository {
+    public enum Operation {
+        CREATE, CREATE_ALL, UPDATE, DELETE, FIND_BY_ID, FIND_ALL, STREAM_ALL, BUILD, FIND_PAGE
+    }
+
+    private final SayRepository delegate;
+    private final OperationMetrics<Operation> metrics;
+
+    public MeteredSayRepository(SayRepository delegate) {
+        this(delegate, delegate.getClass().getSimpleName());
+    }
+
+    public MeteredSayRepository(SayRepository delegate, String backendName) {
+        this.delegate = delegate;
+        this.metrics = new OperationMetrics<>(backendName, Operation.class);
+    }
+
+    public OperationMetrics<Operation> getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int create(SayDto dto) {
+        return timed(Operation.CREATE, () -> delegate.create(dto));
+    }
+
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        return timed(Operation.CREATE_ALL, () -> delegate.createAll(dtoList));
+    }
+
+    @Override
+    public int update(int id, SayDto dto) {
+        return timed(Operation.UPDATE, () -> delegate.update(id, dto));
+    }
+
+    @Override
+    public int delete(int id) {
+        return timed(Operation.DELETE, () -> delegate.delete(id));
+    }
+
+    @Override
+    public Optional<Say> findById(int id) {
+        return timed(Operation.FIND_BY_ID, () -> delegate.findById(id));
+    }
+
+    @Override
+    public List<Say> findAll() {
+        return timed(Operation.FIND_ALL, delegate::findAll);
+    }
+
+    // 스트림은 게으르게 읽히므로 여는 데 걸린 시간만 잰다.
+    @Override
+    public Stream<Say> streamAll() {
+        return timed(Operation.STREAM_ALL, delegate::streamAll);
+    }
+
+    @Override
+    public void build() {
+        timed(Operation.BUILD, () -> {
+            delegate.build();
+            return null;
+        });
+    }
+
+    @Override
+    public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+        return timed(Operation.FIND_PAGE, () -> delegate.findPage(cond, pageable));
+    }
+
+    // 걸린 시간은 성공/실패와 상관없이 남기고, 예외는 오류로도 센 뒤 그대로 던진다.
+    private <T> T timed(Operation operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            metrics.recordError(operation);
+            throw e;
+        } finally {
+            metrics.record(operation, start);
+        }
+    }
+}
@@ -0,0 +1,826 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.exception.RepositoryException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * id 를 키로 하는 페이지 파일 B+tree. 0 번 페이지는 메타, 나머지는 리프/내부/오버플로/빈 페이지다.
+ *
+ * 메타 : [매직 'SAYB'][버전][pageSize][root][pageCount][freeHead][건수][lastId][높이]
+ * 리프 : [타입 1][- 1][건수 2][freeEnd 2][조각 바이트 2][prev 4][next 4] 뒤에 id 오름차순 슬롯(셀 위치 2바이트)
+ *        셀은 페이지 끝에서부터 채운다 : [id 4][길이 4][authorLen 4][author][content]
+ *        길이가 음수면 본문이 오버플로 페이지에 있다 : [id 4][-길이 4][첫 오버플로 페이지 4]
+ * 내부 : [타입 1][- 1][키 개수 2][가장 왼쪽 자식 4] 뒤에 [키 4][자식 4]. 자식에는 키 이상인 id 가 들어있다.
+ * 오버플로 : [타입 1][- 3][next 4][길이 4][본문 조각]
+ *
+ * 변경은 버퍼 풀에만 하고 checkpoint() 때 더티 페이지를 한꺼번에 내린다.
+ * 먼저 이중 쓰기 파일(.dwb)에 체크섬과 함께 통째로 써두고 제자리에 쓰므로, 제자리 쓰기 도중 죽어도 다음에 열 때 .dwb 로 마저 덮는다.
+ * 삭제로 비거나 덜 찬 페이지는 합치지 않는다. 셀이 빠진 자리는 그 페이지에 다시 넣을 때 모아 쓴다.
+ * 스레드 안전하지 않으므로 호출한 쪽의 잠금 안에서 쓴다.
+ */
+public class SayBTree implements AutoCloseable {
+    public static final int DEFAULT_PAGE_SIZE = 8192;
+
+    private static final int MAGIC = 0x53415942; // "SAYB"
+    private static final int DWB_MAGIC = 0x53415944; // "SAYD"
+    private static final int VERSION = 1;
+
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final byte OVERFLOW = 3;
+    private static final byte FREE = 4;
+
+    private static final int LEAF_HEADER = 16;
+    private static final int INTERNAL_HEADER = 8;
+    private static final int OVERFLOW_HEADER = 12;
+    private static final int NO_PAGE = 0;
+
+    private final Path path;
+    private final Path dwbPath;
+    private final FileChannel channel;
+    private final BufferPool pool;
+    private final int pageSize;
+    // 셀 하나가 리프의 1/4 을 넘지 않게 해서, 나눌 때 어느 쪽이든 반드시 들어가게 한다.
+    private final int maxInline;
+    private final int maxKeys;
+
+    private int root;
+    private int pageCount;
+    private int freeHead;
+    private int count;
+    private int lastId;
+    private int height;
+
+    public SayBTree(Path path, int pageSize, int poolPages) {
+        if (pageSize < 256 || pageSize > 32768)
+            throw new IllegalArgumentException("pageSize 는 256 ~ 32768 이어야 합니다 : " + pageSize);
+        this.path = path;
+        this.dwbPath = path.resolveSibling(path.getFileName() + ".dwb");
+        this.pageSize = pageSize;
+        this.maxInline = (pageSize - LEAF_HEADER) / 4 - 8;
+        this.maxKeys = (pageSize - INTERNAL_HEADER) / 8;
+        try {
+            AtomicFileWriter.deleteLeftover(dwbPath);
+            this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+            recoverFromDoubleWrite();
+        } catch (IOException e) {
+            throw new RepositoryException("B+tree 파일 열기 실패 : " + path, e);
+        }
+        this.pool = new BufferPool(channel, pageSize, Math.max(poolPages, 8));
+
+        try {
+            if (channel.size() == 0)
+                initEmpty();
+            else
+                readMeta();
+        } catch (IOException e) {
+            throw new RepositoryException("B+tree 메타 읽기 실패 : " + path, e);
+        }
+    }
+
+    public Say get(int id) {
+        int leafId = findLeaf(id);
+        BufferPool.Page leaf = pool.fetch(leafId);
+        try {
+            ByteBuffer b = leaf.buf();
+            int pos = leafSearch(b, id);
+            return pos >= 0 ? readCell(b, slot(b, pos)) : null;
+        } finally {
+            pool.unpin(leaf);
+        }
+    }
+
+    public boolean containsId(int id) {
+        int leafId = findLeaf(id);
+        BufferPool.Page leaf = pool.fetch(leafId);
+        try {
+            return leafSearch(leaf.buf(), id) >= 0;
+        } finally {
+            pool.unpin(leaf);
+        }
+    }
+
+    /**
+     * @return 새로 들어갔으면 true, 같은 id 를 덮어썼으면 false
+     */
+    public boolean put(Say say) {
+        int id = say.getId();
+        byte[] payload = encode(say);
+
+        int[] path = new int[height];
+        int leafId = descend(id, path);
+        BufferPool.Page leaf = pool.fetch(leafId);
+        boolean inserted;
+        Split split;
+        try {
+            ByteBuffer b = leaf.buf();
+            pool.markDirty(leaf);
+            int pos = leafSearch(b, id);
+            inserted = pos < 0;
+            if (inserted) {
+                pos = -pos - 1;
+            } else {
+                removeSlot(b, pos);
+            }
+            byte[] cell = makeCell(id, payload);
+            split = insertCell(leaf, pos, cell);
+        } finally {
+            pool.unpin(leaf);
+        }
+
+        for (int level = height - 2; level >= 0 && split != null; level--) {
+            split = insertIntoInternal(path[level], split);
+        }
+        if (split != null)
+            growRoot(split);
+
+        if (inserted)
+            count++;
+        if (id > lastId)
+            lastId = id;
+        return inserted;
+    }
+
+    /**
+     * @return 지웠으면 true
+     */
+    public boolean delete(int id) {
+        int leafId = findLeaf(id);
+        BufferPool.Page leaf = pool.fetch(leafId);
+        try {
+            ByteBuffer b = leaf.buf();
+            int pos = leafSearch(b, id);
+            if (pos < 0)
+                return false;
+            pool.markDirty(leaf);
+            removeSlot(b, pos);
+            count--;
+            return true;
+        } finally {
+            pool.unpin(leaf);
+        }
+    }
+
+    /**
+     * below 보다 작은 id 를 내림차순으로 visitor 에 넘긴다. visitor 가 false 를 돌려주면 멈춘다.
+     * 리프의 prev 링크를 따라가므로 내부 페이지는 처음 한 번만 내려간다.
+     */
+    public void scanDescending(int below, Predicate<Say> visitor) {
+        if (below == Integer.MIN_VALUE)
+            return;
+        int leafId = findLeaf(below - 1);
+        BufferPool.Page leaf = pool.fetch(leafId);
+        int pos = lowerBound(leaf.buf(), below) - 1;
+        while (true) {
+            ByteBuffer b = leaf.buf();
+            for (; pos >= 0; pos--) {
+                if (!visitor.test(readCell(b, slot(b, pos)))) {
+                    pool.unpin(leaf);
+                    return;
+                }
+            }
+            int prev = b.getInt(8);
+            pool.unpin(leaf);
+            if (prev == NO_PAGE)
+                return;
+            leaf = pool.fetch(prev);
+            pos = count(leaf.buf()) - 1;
+        }
+    }
+
+    /**
+     * below 아래에서 n 건을 건너뛴 위치를 돌려준다. 돌려준 값을 scanDescending 의 below 로 넘기면 n+1 번째부터 읽힌다.
+     * 셀을 풀지 않고 리프의 건수만 더해가며 넘어간다. 남은 건수가 n 보다 적으면 Integer.MIN_VALUE.
+     */
+    public int skipDescending(int below, int n) {
+        if (n <= 0 || below == Integer.MIN_VALUE)
+            return below;
+        int leafId = findLeaf(below - 1);
+        BufferPool.Page leaf = pool.fetch(leafId);
+        int available = lowerBound(leaf.buf(), below);
+        int remaining = n;
+        while (true) {
+            ByteBuffer b = leaf.buf();
+            if (remaining <= available) {
+                int id = b.getInt(slot(b, available - remaining));
+                pool.unpin(leaf);
+                return id;
+            }
+            remaining -= available;
+            int prev = b.getInt(8);
+            pool.unpin(leaf);
+            if (prev == NO_PAGE)
+                return Integer.MIN_VALUE;
+            leaf = pool.fetch(prev);
+            available = count(leaf.buf());
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 지금까지 넣은 적 있는 가장 큰 id. 지워도 줄지 않으므로 다음 id 는 여기에 1 을 더해 발급한다.
+     */
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    /**
+     * 더티 페이지를 이중 쓰기 파일에 먼저 쓰고 제자리에 쓴 뒤 fsync 한다.
+     */
+    public void checkpoint() {
+        if (pool.getDirtyCount() == 0)
+            return;
+        writeMeta();
+        List<BufferPool.Page> dirty = pool.dirtyPages();
+        if (dirty.isEmpty())
+            return;
+        try {
+            AtomicFileWriter.write(dwbPath, ch -> writeDoubleWrite(ch, dirty));
+            for (BufferPool.Page page : dirty) {
+                writePage(page.getPageId(), page.buf().duplicate().clear());
+            }
+            channel.force(true);
+            Files.deleteIfExists(dwbPath);
+        } catch (IOException e) {
+            throw new RepositoryException("B+tree 체크포인트 실패 : " + path, e);
+        }
+        pool.markAllClean();
+    }
+
+    @Override
+    public void close() {
+        try {
+            checkpoint();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new RepositoryException("B+tree 파일 닫기 실패 : " + path, e);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 내려가기
+
+    private int findLeaf(int id) {
+        int pageId = root;
+        for (int level = 0; level < height - 1; level++) {
+            BufferPool.Page page = pool.fetch(pageId);
+            int child = childFor(page.buf(), id);
+            pool.unpin(page);
+            pageId = child;
+        }
+        return pageId;
+    }
+
+    // 지나온 내부 페이지를 path 에 남긴다. 리프가 나뉘면 거꾸로 올라가며 키를 넣는다.
+    private int descend(int id, int[] path) {
+        int pageId = root;
+        for (int level = 0; level < height - 1; level++) {
+            path[level] = pageId;
+            BufferPool.Page page = pool.fetch(pageId);
+            int child = childFor(page.buf(), id);
+            pool.unpin(page);
+            pageId = child;
+        }
+        return pageId;
+    }
+
+    // ---------------------------------------------------------------- 리프
+
+    private record Split(int key, int rightPage) {
+    }
+
+    private static int count(ByteBuffer b) {
+        return b.getChar(2);
+    }
+
+    private static int slot(ByteBuffer b, int i) {
+        return b.getChar(LEAF_HEADER + 2 * i);
+    }
+
+    private static int freeSpace(ByteBuffer b) {
+        return b.getChar(4) - (LEAF_HEADER + 2 * count(b));
+    }
+
+    private static int cellSize(ByteBuffer b, int offset) {
+        int length = b.getInt(offset + 4);
+        return length >= 0 ? 8 + length : 12;
+    }
+
+    private void initLeaf(ByteBuffer b, int prev, int next) {
+        b.put(0, LEAF);
+        b.putChar(2, (char) 0);
+        b.putChar(4, (char) pageSize);
+        b.putChar(6, (char) 0);
+        b.putInt(8, prev);
+        b.putInt(12, next);
+    }
+
+    private static int leafSearch(ByteBuffer b, int id) {
+        int lo = 0;
+        int hi = count(b) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midId = b.getInt(slot(b, mid));
+            if (midId < id)
+                lo = mid + 1;
+            else if (midId > id)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    // id 이상인 첫 슬롯 위치
+    private static int lowerBound(ByteBuffer b, int id) {
+        int pos = leafSearch(b, id);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private void removeSlot(ByteBuffer b, int pos) {
+        int offset = slot(b, pos);
+        freeOverflowOf(b, offset);
+        int n = count(b);
+        byte[] a = b.array();
+        int from = LEAF_HEADER + 2 * (pos + 1);
+        System.arraycopy(a, from, a, from - 2, 2 * (n - pos - 1));
+        b.putChar(2, (char) (n - 1));
+        b.putChar(6, (char) (b.getChar(6) + cellSize(b, offset)));
+    }
+
+    /**
+     * 자리가 있으면 그대로 넣고, 빈 조각을 모으면 들어가면 모아서 넣고, 그래도 안 되면 나눈다.
+     */
+    private Split insertCell(BufferPool.Page leaf, int pos, byte[] cell) {
+        ByteBuffer b = leaf.buf();
+        int needed = cell.length + 2;
+        if (freeSpace(b) < needed && freeSpace(b) + b.getChar(6) >= needed)
+            compactLeaf(b);
+        if (freeSpace(b) >= needed) {
+            putCell(b, pos, cell);
+            return null;
+        }
+        return splitLeaf(leaf, pos, cell);
+    }
+
+    private static void putCell(ByteBuffer b, int pos, byte[] cell) {
+        int n = count(b);
+        int offset = b.getChar(4) - cell.length;
+        b.put(offset, cell);
+        byte[] a = b.array();
+        int from = LEAF_HEADER + 2 * pos;
+        System.arraycopy(a, from, a, from + 2, 2 * (n - pos));
+        b.putChar(from, (char) offset);
+        b.putChar(2, (char) (n + 1));
+        b.putChar(4, (char) offset);
+    }
+
+    private void compactLeaf(ByteBuffer b) {
+        List<byte[]> cells = cellsOf(b);
+        int prev = b.getInt(8);
+        int next = b.getInt(12);
+        initLeaf(b, prev, next);
+        for (int i = 0; i < cells.size(); i++) {
+            putCell(b, i, cells.get(i));
+        }
+    }
+
+    private static List<byte[]> cellsOf(ByteBuffer b) {
+        int n = count(b);
+        List<byte[]> cells = new ArrayList<>(n + 1);
+        for (int i = 0; i < n; i++) {
+            int offset = slot(b, i);
+            byte[] cell = new byte[cellSize(b, offset)];
+            b.get(offset, cell);
+            cells.add(cell);
+        }
+        return cells;
+    }
+
+    /**
+     * 오른쪽 끝 리프의 맨 뒤에 붙는 경우(id 순서대로 등록)는 새 셀만 새 페이지로 보내서 왼쪽을 꽉 찬 채로 둔다.
+     * 그 밖에는 바이트 기준으로 반씩 나눈다.
+     */
+    private Split splitLeaf(BufferPool.Page leaf, int pos, byte[] cell) {
+        ByteBuffer left = leaf.buf();
+        int n = count(left);
+        int next = left.getInt(12);
+        int rightId = allocatePage();
+        BufferPool.Page right = pool.create(rightId);
+        try {
+            ByteBuffer r = right.buf();
+            initLeaf(r, leaf.getPageId(), next);
+            left.putInt(12, rightId);
+
+            if (pos == n && next == NO_PAGE) {
+                putCell(r, 0, cell);
+            } else {
+                List<byte[]> cells = cellsOf(left);
+                cells.add(pos, cell);
+                int total = 0;
+                for (byte[] c : cells) {
+                    total += c.length + 2;
+                }
+                int k = 0;
+                int acc = 0;
+                while (k < cells.size() - 1 && acc + cells.get(k).length + 2 <= total / 2) {
+                    acc += cells.get(k).length + 2;
+                    k++;
+                }
+                k = Math.max(k, 1);
+
+                initLeaf(left, left.getInt(8), rightId);
+                for (int i = 0; i < k; i++) {
+                    putCell(left, i, cells.get(i));
+                }
+                for (int i = k; i < cells.size(); i++) {
+                    putCell(r, i - k, cells.get(i));
+                }
+            }
+
+            if (next != NO_PAGE) {
+                BufferPool.Page nextPage = pool.fetch(next);
+                nextPage.buf().putInt(8, rightId);
+                pool.markDirty(nextPage);
+                pool.unpin(nextPage);
+            }
+            return new Split(r.getInt(slot(r, 0)), rightId);
+        } finally {
+            pool.unpin(right);
+        }
+    }
+
+    // ---------------------------------------------------------------- 내부 페이지
+
+    private static int keyAt(ByteBuffer b, int i) {
+        return b.getInt(INTERNAL_HEADER + 8 * i);
+    }
+
+    private static int childAt(ByteBuffer b, int i) {
+        return b.getInt(INTERNAL_HEADER + 8 * i + 4);
+    }
+
+    // 키 <= id 인 마지막 항목의 자식, 없으면 가장 왼쪽 자식
+    private static int childFor(ByteBuffer b, int id) {
+        int i = upperBound(b, id) - 1;
+        return i < 0 ? b.getInt(4) : childAt(b, i);
+    }
+
+    // 키 > id 인 첫 항목 위치
+    private static int upperBound(ByteBuffer b, int id) {
+        int lo = 0;
+        int hi = count(b);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyAt(b, mid) <= id)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    private static void initInternal(ByteBuffer b, int leftmost) {
+        b.put(0, INTERNAL);
+        b.putChar(2, (char) 0);
+        b.putInt(4, leftmost);
+    }
+
+    private Split insertIntoInternal(int pageId, Split split) {
+        BufferPool.Page page = pool.fetch(pageId);
+        try {
+            ByteBuffer b = page.buf();
+            pool.markDirty(page);
+            int n = count(b);
+            int pos = upperBound(b, split.key());
+            if (n < maxKeys) {
+                byte[] a = b.array();
+                int from = INTERNAL_HEADER + 8 * pos;
+                System.arraycopy(a, from, a, from + 8, 8 * (n - pos));
+                b.putInt(from, split.key());
+                b.putInt(from + 4, split.rightPage());
+                b.putChar(2, (char) (n + 1));
+                return null;
+            }
+            return splitInternal(b, pos, split);
+        } finally {
+            pool.unpin(page);
+        }
+    }
+
+    // 가운데 키는 위로 올리고 양쪽에 남기지 않는다.
+    private Split splitInternal(ByteBuffer b, int pos, Split split) {
+        int n = count(b);
+        int[] keys = new int[n + 1];
+        int[] children = new int[n + 2];
+        children[0] = b.getInt(4);
+        for (int i = 0, j = 0; i <= n; i++) {
+            if (i == pos) {
+                keys[i] = split.key();
+                children[i + 1] = split.rightPage();
+            } else {
+                keys[i] = keyAt(b, j);
+                children[i + 1] = childAt(b, j);
+                j++;
+            }
+        }
+
+        int mid = (n + 1) / 2;
+        initInternal(b, children[0]);
+        for (int i = 0; i < mid; i++) {
+            putEntry(b, i, keys[i], children[i + 1]);
+        }
+        b.putChar(2, (char) mid);
+
+        int rightId = allocatePage();
+        BufferPool.Page right = pool.create(rightId);
+        try {
+            ByteBuffer r = right.buf();
+            initInternal(r, children[mid + 1]);
+            int rightCount = 0;
+            for (int i = mid + 1; i <= n; i++) {
+                putEntry(r, rightCount++, keys[i], children[i + 1]);
+            }
+            r.putChar(2, (char) rightCount);
+        } finally {
+            pool.unpin(right);
+        }
+        return new Split(keys[mid], rightId);
+    }
+
+    private static void putEntry(ByteBuffer b, int i, int key, int child) {
+        b.putInt(INTERNAL_HEADER + 8 * i, key);
+        b.putInt(INTERNAL_HEADER + 8 * i + 4, child);
+    }
+
+    private void growRoot(Split split) {
+        int newRoot = allocatePage();
+        BufferPool.Page page = pool.create(newRoot);
+        try {
+            ByteBuffer b = page.buf();
+            initInternal(b, root);
+            putEntry(b, 0, split.key(), split.rightPage());
+            b.putChar(2, (char) 1);
+        } finally {
+            pool.unpin(page);
+        }
+        root = newRoot;
+        height++;
+    }
+
+    // ---------------------------------------------------------------- 셀, 오버플로
+
+    private static byte[] encode(Say say) {
+        byte[] author = say.getAuthor().getBytes(StandardCharsets.UTF_8);
+        byte[] content = say.getContent().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(4 + author.length + content.length);
+        payload.putInt(author.length).put(author).put(content);
+        return payload.array();
+    }
+
+    private static Say decode(int id, byte[] a, int offset, int length) {
+        int authorLen = ByteBuffer.wrap(a, offset, 4).getInt();
+        String author = new String(a, offset + 4, authorLen, StandardCharsets.UTF_8);
+        String content = new String(a, offset + 4 + authorLen, length - 4 - authorLen, StandardCharsets.UTF_8);
+        return new Say(id, author, content);
+    }
+
+    private byte[] makeCell(int id, byte[] payload) {
+        if (payload.length <= maxInline) {
+            ByteBuffer cell = ByteBuffer.allocate(8 + payload.length);
+            cell.putInt(id).putInt(payload.length).put(payload);
+            return cell.array();
+        }
+        int first = writeOverflow(payload);
+        ByteBuffer cell = ByteBuffer.allocate(12);
+        cell.putInt(id).putInt(-payload.length).putInt(first);
+        return cell.array();
+    }
+
+    private Say readCell(ByteBuffer b, int offset) {
+        int id = b.getInt(offset);
+        int length = b.getInt(offset + 4);
+        if (length >= 0)
+            return decode(id, b.array(), offset + 8, length);
+        byte[] payload = readOverflow(b.getInt(offset + 8), -length);
+        return decode(id, payload, 0, payload.length);
+    }
+
+    private int writeOverflow(byte[] payload) {
+        int chunk = pageSize - OVERFLOW_HEADER;
+        int pages = (payload.length + chunk - 1) / chunk;
+        int[] ids = new int[pages];
+        for (int i = 0; i < pages; i++) {
+            ids[i] = allocatePage();
+        }
+        for (int i = 0; i < pages; i++) {
+            BufferPool.Page page = pool.create(ids[i]);
+            ByteBuffer b = page.buf();
+            int from = i * chunk;
+            int length = Math.min(chunk, payload.length - from);
+            b.put(0, OVERFLOW);
+            b.putInt(4, i + 1 < pages ? ids[i + 1] : NO_PAGE);
+            b.putInt(8, length);
+            b.put(OVERFLOW_HEADER, payload, from, length);
+            pool.unpin(page);
+        }
+        return ids[0];
+    }
+
+    private byte[] readOverflow(int pageId, int length) {
+        byte[] payload = new byte[length];
+        int filled = 0;
+        while (pageId != NO_PAGE && filled < length) {
+            BufferPool.Page page = pool.fetch(pageId);
+            ByteBuffer b = page.buf();
+            int n = b.getInt(8);
+            b.get(OVERFLOW_HEADER, payload, filled, n);
+            filled += n;
+            pageId = b.getInt(4);
+            pool.unpin(page);
+        }
+        if (filled != length)
+            throw new RepositoryException("오버플로 페이지가 깨졌습니다 : " + path);
+        return payload;
+    }
+
+    private void freeOverflowOf(ByteBuffer b, int offset) {
+        if (b.getInt(offset + 4) >= 0)
+            return;
+        int pageId = b.getInt(offset + 8);
+        while (pageId != NO_PAGE) {
+            BufferPool.Page page = pool.fetch(pageId);
+            int next = page.buf().getInt(4);
+            pool.unpin(page);
+            freePage(pageId);
+            pageId = next;
+        }
+    }
+
+    // ---------------------------------------------------------------- 페이지 할당
+
+    private int allocatePage() {
+        if (freeHead == NO_PAGE)
+            return pageCount++;
+        int pageId = freeHead;
+        BufferPool.Page page = pool.fetch(pageId);
+        freeHead = page.buf().getInt(4);
+        pool.unpin(page);
+        return pageId;
+    }
+
+    private void freePage(int pageId) {
+        BufferPool.Page page = pool.create(pageId);
+        page.buf().put(0, FREE);
+        page.buf().putInt(4, freeHead);
+        pool.unpin(page);
+        freeHead = pageId;
+    }
+
+    // ---------------------------------------------------------------- 메타, 파일
+
+    private void initEmpty() {
+        pageCount = 2;
+        root = 1;
+        height = 1;
+        freeHead = NO_PAGE;
+        BufferPool.Page meta = pool.create(0);
+        pool.unpin(meta);
+        BufferPool.Page leaf = pool.create(root);
+        initLeaf(leaf.buf(), NO_PAGE, NO_PAGE);
+        pool.unpin(leaf);
+        checkpoint();
+    }
+
+    private void readMeta() throws IOException {
+        BufferPool.Page meta = pool.fetch(0);
+        try {
+            ByteBuffer b = meta.buf();
+            if (b.getInt(0) != MAGIC)
+                throw new IOException("B+tree 파일 형식이 아닙니다 : " + path);
+            if (b.getInt(4) != VERSION)
+                throw new IOException("지원하지 않는 B+tree 버전 : " + b.getInt(4));
+            if (b.getInt(8) != pageSize)
+                throw new IOException("pageSize 가 다릅니다. 파일 : " + b.getInt(8) + ", 설정 : " + pageSize);
+            root = b.getInt(12);
+            pageCount = b.getInt(16);
+            freeHead = b.getInt(20);
+            count = b.getInt(24);
+            lastId = b.getInt(28);
+            height = b.getInt(32);
+        } finally {
+            pool.unpin(meta);
+        }
+    }
+
+    private void writeMeta() {
+        BufferPool.Page meta = pool.fetch(0);
+        ByteBuffer b = meta.buf();
+        b.putInt(0, MAGIC);
+        b.putInt(4, VERSION);
+        b.putInt(8, pageSize);
+        b.putInt(12, root);
+        b.putInt(16, pageCount);
+        b.putInt(20, freeHead);
+        b.putInt(24, count);
+        b.putInt(28, lastId);
+        b.putInt(32, height);
+        pool.markDirty(meta);
+        pool.unpin(meta);
+    }
+
+    private void writePage(int pageId, ByteBuffer buf) throws IOException {
+        long position = (long) pageId * pageSize;
+        while (buf.hasRemaining()) {
+            channel.write(buf, position + buf.position());
+        }
+    }
+
+    // [매직 'SAYD' 4][pageSize 4][페이지 수 4] 뒤에 [pageId 4][페이지] 반복, 끝에 앞 전체의 CRC32C 4
+    private void writeDoubleWrite(FileChannel ch, List<BufferPool.Page> dirty) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = ByteBuffer.allocate(12);
+        header.putInt(DWB_MAGIC).putInt(pageSize).putInt(dirty.size()).flip();
+        writeAll(ch, header, crc);
+        ByteBuffer pageHeader = ByteBuffer.allocate(4);
+        for (BufferPool.Page page : dirty) {
+            pageHeader.clear();
+            pageHeader.putInt(page.getPageId()).flip();
+            writeAll(ch, pageHeader, crc);
+            writeAll(ch, page.buf().duplicate().clear(), crc);
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(4);
+        trailer.putInt((int) crc.getValue()).flip();
+        writeAll(ch, trailer, null);
+    }
+
+    private static void writeAll(FileChannel ch, ByteBuffer buf, CRC32C crc) throws IOException {
+        if (crc != null)
+            crc.update(buf.duplicate());
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+
+    /**
+     * 이중 쓰기 파일이 온전히 남아 있으면 지난 체크포인트가 제자리 쓰기 도중 끊긴 것이므로 마저 덮어쓴다.
+     * 이름 바꾸기 전에 끊긴 것은 .tmp 로만 남으므로 생성자에서 이미 지웠고, 그때 원본 파일은 건드리지 않은 상태다.
+     */
+    private void recoverFromDoubleWrite() throws IOException {
+        if (Files.notExists(dwbPath))
+            return;
+        try (FileChannel ch = FileChannel.open(dwbPath, READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            int size = buf.limit();
+            if (size < 16 || buf.getInt(0) != DWB_MAGIC || buf.getInt(4) != pageSize)
+                throw new IOException("이중 쓰기 파일이 깨졌습니다 : " + dwbPath);
+            int pages = buf.getInt(8);
+            if (size != 12 + pages * (4L + pageSize) + 4)
+                throw new IOException("이중 쓰기 파일이 깨졌습니다 : " + dwbPath);
+            CRC32C crc = new CRC32C();
+            crc.update(buf.slice(0, size - 4));
+            if ((int) crc.getValue() != buf.getInt(size - 4))
+                throw new IOException("이중 쓰기 파일 체크섬이 맞지 않습니다 : " + dwbPath);
+
+            int position = 12;
+            for (int i = 0; i < pages; i++) {
+                int pageId = buf.getInt(position);
+                writePage(pageId, buf.slice(position + 4, pageSize));
+                position += 4 + pageSize;
+            }
+        }
+        channel.force(true);
+        Files.delete(dwbPath);
+    }
+}
@@ -0,0 +1,81 @@
+package com.back.say.repository;
+
+import java.nio.ByteBuffer;
+
+/**
+ * id 블룸 필터. 없다고 하면 확실히 없고, 있다고 하면 있을 수도 있다.
+ * 키 하나에 bitsPerKey 비트를 쓰고 해시는 두 개를 섞어서 k 번 만든다(Kirsch-Mitzenmacher).
+ * 10 비트, k=7 이면 오탐률은 1% 정도다.
+ */
+public class SayBloomFilter {
+    public static final int DEFAULT_BITS_PER_KEY = 10;
+
+    private final long[] words;
+    private final int hashCount;
+    private final long bitCount;
+
+    private SayBloomFilter(long[] words, int hashCount) {
+        this.words = words;
+        this.hashCount = hashCount;
+        this.bitCount = (long) words.length * 64;
+    }
+
+    public static SayBloomFilter create(int expectedKeys, int bitsPerKey) {
+        long bits = Math.max(64, (long) Math.max(expectedKeys, 1) * bitsPerKey);
+        int hashCount = Math.max(1, Math.min(30, (int) Math.round(bitsPerKey * Math.log(2))));
+        return new SayBloomFilter(new long[(int) ((bits + 63) / 64)], hashCount);
+    }
+
+    public void add(int id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(int id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * [k 4][word 수 4][word 8 ...]
+     */
+    public int serializedSize() {
+        return 8 + words.length * 8;
+    }
+
+    public void writeTo(ByteBuffer buf) {
+        buf.putInt(hashCount).putInt(words.length);
+        for (long word : words) {
+            buf.putLong(word);
+        }
+    }
+
+    public static SayBloomFilter readFrom(ByteBuffer buf) {
+        int hashCount = buf.getInt();
+        long[] words = new long[buf.getInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buf.getLong();
+        }
+        return new SayBloomFilter(words, hashCount);
+    }
+
+    // 연속된 id 가 비트 배열에 고르게 퍼지도록 섞는다. (SplitMix64 마무리 단계)
+    private static long mix(int id) {
+        long z = id * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,139 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 명언 전체를 담는 이진 체크포인트 파일.
+ * [매직 'SAYC' 4][버전 4][건수 4] 뒤에 id 오름차순으로 [id 4][authorLen 4][author][contentLen 4][content]
+ * 버전 2 부터는 끝에 [본문 길이 8][CRC32C 4][매직 'SAYE' 4] 트레일러가 붙는다.
+ * 읽을 때는 파일을 힙 버퍼에 한 번에 읽어서 먼저 체크섬을 한 번 훑어 확인하고, 맞을 때만 파싱한다.
+ * 메모리 매핑은 GC 가 풀 때까지 남아서 Windows 에서 다음 체크포인트가 이 파일을 덮어쓰지 못하므로 쓰지 않는다.
+ * 쓸 때는 AtomicFileWriter 로 임시 파일에 쓰고 이름을 바꾸므로 반쯤 쓰인 체크포인트는 생기지 않는다.
+ */
+public class SayCheckpointFile {
+    private static final int MAGIC = 0x53415943; // "SAYC"
+    private static final int TRAILER_MAGIC = 0x53415945; // "SAYE"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int TRAILER_SIZE = 16;
+
+    private SayCheckpointFile() {
+    }
+
+    public static List<Say> read(Path path) throws IOException {
+        ByteBuffer buf = readFully(path);
+        if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC)
+                throw new IOException("체크포인트 형식이 아닙니다 : " + path);
+        int version = buf.getInt();
+        if (version == VERSION)
+            verifyTrailer(buf, path);
+        else if (version != 1)
+            throw new IOException("지원하지 않는 체크포인트 버전 : " + version);
+
+        int count = buf.getInt();
+        List<Say> sayList = new ArrayList<>(count + 16);
+        for (int i = 0; i < count; i++) {
+            int id = buf.getInt();
+            String author = readString(buf);
+            String content = readString(buf);
+            sayList.add(new Say(id, author, content));
+        }
+        return sayList;
+    }
+
+    // 파일 전체를 힙 버퍼로 읽고 바로 닫는다.
+    private static ByteBuffer readFully(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("체크포인트가 너무 큽니다 : " + path);
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) < 0)
+                    throw new IOException("체크포인트가 잘렸습니다 : " + path);
+            }
+            return buf.flip();
+        }
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        String value = new String(buf.array(), buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return value;
+    }
+
+    public static void write(Path path, Collection<Say> sayList) throws IOException {
+        AtomicFileWriter.write(path, channel -> writeBody(channel, sayList));
+    }
+
+    private static void writeBody(FileChannel channel, Collection<Say> sayList) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(sayList.size());
+        long bodyLength = 0;
+
+        for (Say say : sayList) {
+            byte[] author = say.getAuthor().getBytes(StandardCharsets.UTF_8);
+            byte[] content = say.getContent().getBytes(StandardCharsets.UTF_8);
+            int needed = 12 + author.length + content.length;
+            if (buf.remaining() < needed) {
+                bodyLength += flush(channel, buf, crc);
+                if (buf.capacity() < needed)
+                    buf = ByteBuffer.allocate(needed);
+            }
+            buf.putInt(say.getId())
+                    .putInt(author.length).put(author)
+                    .putInt(content.length).put(content);
+        }
+        bodyLength += flush(channel, buf, crc);
+
+        if (buf.capacity() < TRAILER_SIZE)
+            buf = ByteBuffer.allocate(TRAILER_SIZE);
+        buf.putLong(bodyLength).putInt((int) crc.getValue()).putInt(TRAILER_MAGIC);
+        flush(channel, buf, null);
+    }
+
+    // 본문 전체를 한 번 훑어 길이와 CRC32C 를 확인한다. 잘렸거나 깨진 파일은 파싱하기 전에 걸러낸다.
+    private static void verifyTrailer(ByteBuffer buf, Path path) throws IOException {
+        int size = buf.limit();
+        if (size < HEADER_SIZE + TRAILER_SIZE)
+            throw new IOException("체크포인트가 잘렸습니다 : " + path);
+
+        long bodyLength = buf.getLong(size - TRAILER_SIZE);
+        int expectedCrc = buf.getInt(size - TRAILER_SIZE + 8);
+        int trailerMagic = buf.getInt(size - TRAILER_SIZE + 12);
+        if (trailerMagic != TRAILER_MAGIC || bodyLength != size - TRAILER_SIZE)
+            throw new IOException("체크포인트가 잘렸습니다 : " + path);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buf.slice(0, (int) bodyLength));
+        if ((int) crc.getValue() != expectedCrc)
+            throw new IOException("체크포인트 체크섬이 맞지 않습니다 : " + path);
+        buf.limit((int) bodyLength);
+    }
+
+    private static int flush(FileChannel channel, ByteBuffer buf, CRC32C crc) throws IOException {
+        buf.flip();
+        int length = buf.remaining();
+        if (crc != null)
+            crc.update(buf.array(), 0, length);
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+        return length;
+    }
+}
@@ -0,0 +1,355 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.utils.SaySearchCondition;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 키워드 검색용 열(column) 저장소. 명언 객체를 따라가며 getAuthor()/getContent() 를 하나씩 보는 대신
+ * id 열 하나와, 작가/내용을 각각 UTF-8 바이트로 이어 붙인 배열(arena) + 시작 위치/길이 배열로 들고 있는다.
+ * 검색은 한 열의 바이트 배열만 앞에서부터 훑는 단순한 반복문이 되고, 행이 많으면 구간(chunk)으로 나눠 병렬로 훑는다.
+ * UTF-8 은 한 글자의 중간에서 다른 글자가 시작되지 않으므로 바이트 단위 부분 일치가 String.contains 와 같다.
+ *
+ * 명언 자체는 저장소(SayIdArray, SayIdIndex)에 그대로 있고, 여기서는 조건에 맞는 id 만 내림차순으로 돌려준다.
+ * 행은 id 오름차순이다. 수정은 새 바이트를 arena 끝에 붙이고 위치만 바꾸며, 지운 행과 버려진 바이트는 절반을 넘으면 한 번에 정리한다.
+ * 메서드는 모두 synchronized 이다.
+ */
+public class SayColumns {
+    private static final int MIN_CAPACITY = 16;
+    // 이보다 행이 많으면 구간으로 나눠 병렬로 훑는다.
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger("search.parallelThreshold", 65_536);
+    private static final int CHUNK_ROWS = 16_384;
+
+    private int[] ids;
+    private boolean[] removed;
+    private final ByteColumn authors;
+    private final ByteColumn contents;
+    // 사용한 행 수 (지운 행 포함)
+    private int rows;
+    private int live;
+    private final IntIntHashMap rowOf;
+
+    public SayColumns() {
+        this(MIN_CAPACITY);
+    }
+
+    public SayColumns(int capacity) {
+        capacity = Math.max(capacity, MIN_CAPACITY);
+        ids = new int[capacity];
+        removed = new boolean[capacity];
+        authors = new ByteColumn(capacity);
+        contents = new ByteColumn(capacity);
+        rowOf = new IntIntHashMap(capacity);
+    }
+
+    public static SayColumns of(Iterable<Say> sayList, int sizeHint) {
+        SayColumns columns = new SayColumns(sizeHint);
+        for (Say say : sayList) {
+            columns.put(say);
+        }
+        return columns;
+    }
+
+    /**
+     * 같은 id 가 있으면 바꾸고, 없으면 넣는다.
+     */
+    public synchronized void put(Say say) {
+        int id = say.getId();
+        int row = rowOf.get(id);
+        if (row == IntIntHashMap.MISSING) {
+            row = rows == 0 || ids[rows - 1] < id ? appendRow(id) : insertRow(id);
+            live++;
+        }
+        authors.set(row, say.getAuthor());
+        contents.set(row, say.getContent());
+        compactIfNeeded();
+    }
+
+    public synchronized void remove(int id) {
+        int row = rowOf.remove(id);
+        if (row == IntIntHashMap.MISSING)
+            return;
+        removed[row] = true;
+        authors.clear(row);
+        contents.clear(row);
+        live--;
+        compactIfNeeded();
+    }
+
+    /**
+     * 원본 저장소의 지금 값으로 맞춘다. 없으면 지운다.
+     * 잠금 안에서 원본을 다시 읽으므로, 여러 스레드의 쓰기가 원본과 이곳에 서로 다른 순서로 닿아도
+     * 마지막에 맞춘 스레드가 최종 값을 보게 되어 어긋난 채 남지 않는다.
+     */
+    public synchronized void refresh(int id, IntFunction<Say> source) {
+        Say say = source.apply(id);
+        if (say == null)
+            remove(id);
+        else
+            put(say);
+    }
+
+    public synchronized int size() {
+        return live;
+    }
+
+    /**
+     * 조건에 맞는 id 전부, 내림차순. 건수(totalCount)는 결과 길이이다.
+     */
+    public synchronized int[] findIds(SaySearchCondition cond) {
+        Matcher matcher = new Matcher(cond);
+        if (rows < PARALLEL_THRESHOLD)
+            return scan(matcher, rows - 1, 0, Integer.MAX_VALUE);
+
+        // 뒤쪽(큰 id) 구간부터 번호를 매겨 순서를 지킨 채 이어 붙인다.
+        int chunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        List<int[]> parts = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    int high = rows - 1 - chunk * CHUNK_ROWS;
+                    return scan(matcher, high, Math.max(high - CHUNK_ROWS + 1, 0), Integer.MAX_VALUE);
+                })
+                .toList();
+
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] result = new int[total];
+        int pos = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, result, pos, part.length);
+            pos += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * id 가 cursor 보다 작은 것 중 조건에 맞는 id 를 내림차순으로 최대 limit 개.
+     */
+    public synchronized int[] findIdsBelow(SaySearchCondition cond, int cursor, int limit) {
+        return scan(new Matcher(cond), lowerBound(cursor) - 1, 0, limit);
+    }
+
+    // high 행부터 low 행까지 거꾸로 훑는다.
+    private int[] scan(Matcher matcher, int high, int low, int limit) {
+        int[] found = new int[Math.min(Math.max(high - low + 1, 0), Math.min(limit, 1024))];
+        int count = 0;
+        for (int row = high; row >= low && count < limit; row--) {
+            if (removed[row] || !matcher.matches(row))
+                continue;
+            if (count == found.length)
+                found = Arrays.copyOf(found, Math.min(count * 2, high - low + 1));
+            found[count++] = ids[row];
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    private int appendRow(int id) {
+        ensureCapacity(rows + 1);
+        ids[rows] = id;
+        removed[rows] = false;
+        // 정리 뒤 남은 예전 행 값이 버려진 바이트로 잡히지 않게 비운다.
+        authors.reset(rows);
+        contents.reset(rows);
+        rowOf.put(id, rows);
+        return rows++;
+    }
+
+    // 로그 재생이나 동시 등록으로 id 가 늦게 들어오는 드문 경우 : 자리를 만들고 뒤쪽 행 번호를 다시 매긴다.
+    private int insertRow(int id) {
+        ensureCapacity(rows + 1);
+        int row = lowerBound(id);
+        System.arraycopy(ids, row, ids, row + 1, rows - row);
+        System.arraycopy(removed, row, removed, row + 1, rows - row);
+        authors.shiftRows(row, rows);
+        contents.shiftRows(row, rows);
+        ids[row] = id;
+        removed[row] = false;
+        rows++;
+        for (int i = row; i < rows; i++) {
+            if (!removed[i])
+                rowOf.put(ids[i], i);
+        }
+        return row;
+    }
+
+    // 지운 행이 절반을 넘거나, 수정/삭제로 버려진 바이트가 절반을 넘으면 살아 있는 것만 새 배열로 옮긴다.
+    private void compactIfNeeded() {
+        boolean manyRemoved = rows - live > live && rows - live >= MIN_CAPACITY;
+        if (!manyRemoved && !authors.wasteful() && !contents.wasteful())
+            return;
+
+        int write = 0;
+        for (int read = 0; read < rows; read++) {
+            if (removed[read])
+                continue;
+            ids[write] = ids[read];
+            removed[write] = false;
+            authors.moveRow(read, write);
+            contents.moveRow(read, write);
+            rowOf.put(ids[write], write);
+            write++;
+        }
+        rows = write;
+        authors.repack(rows);
+        contents.repack(rows);
+    }
+
+    // id 가 처음으로 cursor 이상이 되는 행 (지운 행 포함)
+    private int lowerBound(int cursor) {
+        int lo = 0;
+        int hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ids[mid] < cursor)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length)
+            return;
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        removed = Arrays.copyOf(removed, newCapacity);
+        authors.growRows(newCapacity);
+        contents.growRows(newCapacity);
+    }
+
+    /**
+     * 검색 조건을 UTF-8 바이트로 한 번만 바꿔 두고 행마다 arena 에서 바로 비교한다.
+     * 규칙은 SaySearchCondition.matches 와 같다. (둘 다 있으면 작가 또는 내용)
+     */
+    private class Matcher {
+        private final byte[] authorKeyword;
+        private final byte[] contentKeyword;
+
+        Matcher(SaySearchCondition cond) {
+            authorKeyword = cond.hasAuthorCondition() ? cond.getAuthorContains().getBytes(UTF_8) : null;
+            contentKeyword = cond.hasContentCondition() ? cond.getContentContains().getBytes(UTF_8) : null;
+        }
+
+        boolean matches(int row) {
+            if (authorKeyword == null && contentKeyword == null)
+                return true;
+            return authorKeyword != null && authors.contains(row, authorKeyword)
+                    || contentKeyword != null && contents.contains(row, contentKeyword);
+        }
+    }
+
+    /**
+     * 한 열의 문자열들을 UTF-8 로 이어 붙인 바이트 배열. 행마다 시작 위치와 길이를 든다.
+     */
+    private static class ByteColumn {
+        private static final int MIN_WASTE = 1 << 16;
+        private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final long ONES = 0x0101010101010101L;
+        private static final long HIGHS = 0x8080808080808080L;
+
+        private byte[] arena = new byte[1024];
+        private int used;
+        // 수정/삭제로 더 이상 가리키는 행이 없는 바이트 수
+        private int wasted;
+        private int[] start;
+        private int[] length;
+
+        ByteColumn(int capacity) {
+            start = new int[capacity];
+            length = new int[capacity];
+        }
+
+        void set(int row, String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            wasted += length[row];
+            // 마지막 행 끝에서도 8바이트를 읽을 수 있게 뒤에 여유를 둔다.
+            if (used + bytes.length + Long.BYTES > arena.length)
+                arena = Arrays.copyOf(arena, Math.max(used + bytes.length + Long.BYTES, arena.length * 2));
+            System.arraycopy(bytes, 0, arena, used, bytes.length);
+            start[row] = used;
+            length[row] = bytes.length;
+            used += bytes.length;
+        }
+
+        void reset(int row) {
+            length[row] = 0;
+        }
+
+        void clear(int row) {
+            wasted += length[row];
+            length[row] = 0;
+        }
+
+        // 한글은 UTF-8 첫 바이트(0xEA~0xED)가 거의 같아서 첫 바이트만으로는 후보가 줄지 않는다.
+        // 8바이트씩 long 으로 읽어 키워드의 첫 바이트와 끝 바이트가 함께 맞는 자리만 골라(SWAR) 그 자리만 확인한다.
+        boolean contains(int row, byte[] keyword) {
+            byte[] arena = this.arena;
+            int n = keyword.length;
+            int from = start[row];
+            int last = from + length[row] - n;
+            long firsts = ONES * (keyword[0] & 0xFF);
+            long ends = ONES * (keyword[n - 1] & 0xFF);
+            for (int i = from; i <= last; i += Long.BYTES) {
+                // 두 바이트가 모두 맞는 자리만 0 이 된다.
+                long x = ((long) LONGS.get(arena, i) ^ firsts) | ((long) LONGS.get(arena, i + n - 1) ^ ends);
+                // 0 인 바이트의 윗 비트만 켠다. (0 바로 위 바이트가 잘못 켜질 수 있지만 아래에서 확인하므로 괜찮다)
+                long candidates = (x - ONES) & ~x & HIGHS;
+                while (candidates != 0) {
+                    int pos = i + (Long.numberOfTrailingZeros(candidates) >>> 3);
+                    if (pos > last)
+                        break;
+                    if (n <= 2 || Arrays.equals(arena, pos, pos + n, keyword, 0, n))
+                        return true;
+                    candidates &= candidates - 1;
+                }
+            }
+            return false;
+        }
+
+        boolean wasteful() {
+            return wasted > used - wasted && wasted >= MIN_WASTE;
+        }
+
+        void shiftRows(int row, int rows) {
+            System.arraycopy(start, row, start, row + 1, rows - row);
+            System.arraycopy(length, row, length, row + 1, rows - row);
+            reset(row);
+        }
+
+        void moveRow(int from, int to) {
+            start[to] = start[from];
+            length[to] = length[from];
+        }
+
+        // 행 순서대로 바이트를 다시 이어 붙여 버려진 바이트를 없앤다.
+        void repack(int rows) {
+            byte[] packed = new byte[Math.max(used - wasted + Long.BYTES, 1024)];
+            int pos = 0;
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(arena, start[row], packed, pos, length[row]);
+                start[row] = pos;
+                pos += length[row];
+            }
+            arena = packed;
+            used = pos;
+            wasted = 0;
+        }
+
+        void growRows(int capacity) {
+            start = Arrays.copyOf(start, capacity);
+            length = Arrays.copyOf(length, capacity);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * id 를 그대로 배열 위치로 쓰는 명언 저장소. id 는 1 부터 차례로 발급되므로 해시도 트리도 필요 없다.
+ * 4096 칸짜리 페이지를 디렉터리 배열에 매달아 두고, 커질 때는 디렉터리만 새로 만들어 바꿔 끼운다(기존 페이지는 옮기지 않는다).
+ * 칸 단위 읽기/쓰기는 AtomicReferenceArray 로 하므로 여러 스레드가 잠금 없이 쓴다. 디렉터리를 늘릴 때만 잠근다.
+ * 지운 칸은 null 로 남는다. id 는 다시 쓰지 않으므로 빈 칸은 순회에서 건너뛰기만 한다.
+ *
+ * 살아 있는 칸 수를 64 칸 블록, 페이지, 64 페이지 묶음마다 세어 두므로 OFFSET 만큼 건너뛸 때 칸을 하나씩 보지 않고
+ * 묶음 → 페이지 → 블록 → 칸 순서로 내려가며 통째로 건너뛴다. 각 단계는 64 번 이하라 offset 과 상관없다.
+ */
+public class SayIdArray {
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+    // 페이지 64 개 묶음
+    private static final int GROUP_SHIFT = PAGE_SHIFT + 6;
+    private static final int GROUP_MASK = (1 << GROUP_SHIFT) - 1;
+
+    private volatile Page[] pages = new Page[4];
+    // 묶음마다 살아 있는 칸 수. 페이지가 자기 묶음의 것을 함께 쥐므로 디렉터리를 늘려도 옮기지 않는다.
+    private volatile AtomicInteger[] groupLive = new AtomicInteger[1];
+    private final Object growLock = new Object();
+
+    public Say get(int id) {
+        Page page = pageOf(id);
+        return page == null ? null : page.slots.get(id & PAGE_MASK);
+    }
+
+    public void set(int id, Say say) {
+        Page page = pageFor(id);
+        Say previous = page.slots.getAndSet(id & PAGE_MASK, say);
+        if (previous == null && say != null)
+            page.addLive(id, 1);
+        else if (previous != null && say == null)
+            page.addLive(id, -1);
+    }
+
+    /**
+     * 칸이 비어 있지 않을 때만 바꾼다.
+     * @return 바꾸기 전 명언, 비어 있었으면 null
+     */
+    public Say replace(int id, Say say) {
+        Page page = pageOf(id);
+        if (page == null)
+            return null;
+        int slot = id & PAGE_MASK;
+        while (true) {
+            Say current = page.slots.get(slot);
+            if (current == null)
+                return null;
+            if (page.slots.compareAndSet(slot, current, say))
+                return current;
+        }
+    }
+
+    /**
+     * @return 지운 명언, 없으면 null
+     */
+    public Say remove(int id) {
+        Page page = pageOf(id);
+        if (page == null)
+            return null;
+        Say removed = page.slots.getAndSet(id & PAGE_MASK, null);
+        if (removed != null)
+            page.addLive(id, -1);
+        return removed;
+    }
+
+    /**
+     * fromId 부터(포함) 내려가며 살아 있는 칸을 skip 개 건너뛴 다음 칸의 id, 모자라면 0.
+     * 경계에 닿으면 묶음/페이지/블록의 살아 있는 칸 수로 통째로 건너뛴다.
+     * 세는 동안 쓰기가 겹치면 결과가 한두 칸 어긋날 수 있으므로 건수와 맞춰야 하면 쓰기가 없을 때 부른다.
+     */
+    public int skipDescending(int fromId, int skip) {
+        int id = fromId;
+        while (id > 0) {
+            Page page = pageOf(id);
+            if (page == null) {
+                id = (id & ~PAGE_MASK) - 1;
+                continue;
+            }
+            if ((id & GROUP_MASK) == GROUP_MASK) {
+                int live = page.groupLive.get();
+                if (live <= skip) {
+                    skip -= live;
+                    id = (id & ~GROUP_MASK) - 1;
+                    continue;
+                }
+            }
+            if ((id & PAGE_MASK) == PAGE_MASK) {
+                int live = page.live.get();
+                if (live <= skip) {
+                    skip -= live;
+                    id = (id & ~PAGE_MASK) - 1;
+                    continue;
+                }
+            }
+            if ((id & BLOCK_MASK) == BLOCK_MASK) {
+                int live = page.blockLive.get((id & PAGE_MASK) >>> BLOCK_SHIFT);
+                if (live <= skip) {
+                    skip -= live;
+                    id = (id & ~BLOCK_MASK) - 1;
+                    continue;
+                }
+            }
+            if (page.slots.get(id & PAGE_MASK) != null) {
+                if (skip == 0)
+                    return id;
+                skip--;
+            }
+            id--;
+        }
+        return 0;
+    }
+
+    /**
+     * id 내림차순, fromId 부터 (fromId 포함). 빈 칸과 아직 만들지 않은 페이지는 건너뛴다.
+     */
+    public Iterator<Say> descendingIterator(int fromId) {
+        return new Iterator<>() {
+            private int id = fromId;
+            private Say next = advance();
+
+            private Say advance() {
+                while (id > 0) {
+                    Page page = pageOf(id);
+                    if (page == null) {
+                        // 페이지 하나를 통째로 건너뛴다.
+                        id = (id & ~PAGE_MASK) - 1;
+                        continue;
+                    }
+                    Say say = page.slots.get(id & PAGE_MASK);
+                    id--;
+                    if (say != null)
+                        return say;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Say next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                Say say = next;
+                next = advance();
+                return say;
+            }
+        };
+    }
+
+    private Page pageOf(int id) {
+        if (id <= 0)
+            return null;
+        Page[] dir = pages;
+        int index = id >>> PAGE_SHIFT;
+        return index < dir.length ? dir[index] : null;
+    }
+
+    private Page pageFor(int id) {
+        if (id <= 0)
+            throw new IllegalArgumentException("id 는 1 이상이어야 합니다 : " + id);
+        Page page = pageOf(id);
+        if (page != null)
+            return page;
+
+        synchronized (growLock) {
+            int index = id >>> PAGE_SHIFT;
+            Page[] dir = pages;
+            if (index >= dir.length) {
+                Page[] grown = new Page[Math.max(index + 1, dir.length * 2)];
+                System.arraycopy(dir, 0, grown, 0, dir.length);
+                dir = grown;
+            }
+            if (dir[index] == null)
+                dir[index] = new Page(groupFor(id));
+            // 새 페이지를 채운 뒤 volatile 쓰기로 내보내야 다른 스레드가 덜 만들어진 디렉터리를 보지 않는다.
+            pages = dir;
+            return dir[index];
+        }
+    }
+
+    // growLock 안에서만 부른다.
+    private AtomicInteger groupFor(int id) {
+        int index = id >>> GROUP_SHIFT;
+        AtomicInteger[] groups = groupLive;
+        if (index >= groups.length) {
+            AtomicInteger[] grown = new AtomicInteger[Math.max(index + 1, groups.length * 2)];
+            System.arraycopy(groups, 0, grown, 0, groups.length);
+            groups = grown;
+            groupLive = groups;
+        }
+        if (groups[index] == null)
+            groups[index] = new AtomicInteger();
+        return groups[index];
+    }
+
+    private static final class Page {
+        private final AtomicReferenceArray<Say> slots = new AtomicReferenceArray<>(PAGE_SIZE);
+        // 64 칸 블록마다 살아 있는 칸 수
+        private final AtomicIntegerArray blockLive = new AtomicIntegerArray(PAGE_SIZE >>> BLOCK_SHIFT);
+        private final AtomicInteger live = new AtomicInteger();
+        private final AtomicInteger groupLive;
+
+        private Page(AtomicInteger groupLive) {
+            this.groupLive = groupLive;
+        }
+
+        private void addLive(int id, int delta) {
+            blockLive.addAndGet((id & PAGE_MASK) >>> BLOCK_SHIFT, delta);
+            live.addAndGet(delta);
+            groupLive.addAndGet(delta);
+        }
+    }
+}
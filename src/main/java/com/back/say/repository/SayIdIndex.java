@@ -0,0 +1,279 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * id 오름차순 슬롯 배열 + id → 슬롯 위치 해시(IntIntHashMap, id 를 상자에 담지 않는다).
+ * findById/update/delete 는 해시로 슬롯을 바로 찾으므로 O(1) 이다.
+ * 삭제는 슬롯을 비워두는 묘비(tombstone)로 처리하고, 묘비가 절반을 넘으면 배열을 한 번에 당겨 정리한다.
+ * 묘비 자리에도 id 는 남겨두므로 ids 배열은 항상 정렬되어 있어 커서 위치를 이분 탐색으로 찾을 수 있다.
+ * 기본 순회는 id 오름차순(체크포인트/data.json 저장용)이고, 목록용 내림차순 순회는 복사 없이 뒤에서부터 읽는다.
+ */
+public class SayIdIndex extends AbstractCollection<Say> {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] ids;
+    private Say[] slots;
+    // 사용한 슬롯 수 (묘비 포함)
+    private int used;
+    // 살아 있는 명언 수
+    private int live;
+    private final IntIntHashMap positions;
+
+    public SayIdIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    public SayIdIndex(int capacity) {
+        capacity = Math.max(capacity, MIN_CAPACITY);
+        ids = new int[capacity];
+        slots = new Say[capacity];
+        positions = new IntIntHashMap(capacity);
+    }
+
+    public static SayIdIndex of(Iterable<Say> sayList, int sizeHint) {
+        SayIdIndex index = new SayIdIndex(sizeHint);
+        for (Say say : sayList) {
+            index.put(say);
+        }
+        return index;
+    }
+
+    public Say get(int id) {
+        int pos = positions.get(id);
+        return pos == IntIntHashMap.MISSING ? null : slots[pos];
+    }
+
+    public boolean containsId(int id) {
+        return positions.containsKey(id);
+    }
+
+    /**
+     * 같은 id 가 있으면 바꾸고, 없으면 넣는다.
+     * 새 id 는 보통 지금까지 가장 큰 id 보다 크므로 맨 뒤에 붙는다.
+     */
+    public void put(Say say) {
+        int id = say.getId();
+        int pos = positions.get(id);
+        if (pos != IntIntHashMap.MISSING) {
+            slots[pos] = say;
+            return;
+        }
+
+        if (used == 0 || ids[used - 1] < id) {
+            ensureCapacity(used + 1);
+            ids[used] = id;
+            slots[used] = say;
+            positions.put(id, used);
+            used++;
+            live++;
+            return;
+        }
+
+        insertInOrder(say);
+    }
+
+    /**
+     * @return 지운 명언, 없으면 null
+     */
+    public Say remove(int id) {
+        int pos = positions.remove(id);
+        if (pos == IntIntHashMap.MISSING)
+            return null;
+        Say removed = slots[pos];
+        slots[pos] = null;
+        live--;
+
+        if (pos == used - 1) {
+            // 맨 끝이면 묘비를 남길 필요 없이 줄인다.
+            used--;
+            while (used > 0 && slots[used - 1] == null) {
+                used--;
+            }
+        } else if (used - live > live && used - live >= MIN_CAPACITY) {
+            compactSlots();
+        }
+        return removed;
+    }
+
+    /**
+     * 가장 큰 id, 비어 있으면 0
+     */
+    public int maxId() {
+        // 끝쪽 묘비는 remove 에서 바로 잘라내므로 마지막 슬롯은 항상 살아 있다.
+        return used == 0 ? 0 : ids[used - 1];
+    }
+
+    @Override
+    public int size() {
+        return live;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, 0, used, null);
+        used = 0;
+        live = 0;
+        positions.clear();
+    }
+
+    /**
+     * id 오름차순
+     */
+    @Override
+    public Iterator<Say> iterator() {
+        return new Iterator<>() {
+            private int pos = skipTombstonesForward(0);
+
+            @Override
+            public boolean hasNext() {
+                return pos < used;
+            }
+
+            @Override
+            public Say next() {
+                if (pos >= used)
+                    throw new NoSuchElementException();
+                Say say = slots[pos];
+                pos = skipTombstonesForward(pos + 1);
+                return say;
+            }
+        };
+    }
+
+    /**
+     * id 내림차순, 처음부터
+     */
+    public Iterator<Say> descendingIterator() {
+        return descendingIteratorFrom(used - 1);
+    }
+
+    /**
+     * id 내림차순, id 가 cursor 보다 작은 것부터
+     */
+    public Iterator<Say> descendingIteratorBelow(int cursor) {
+        return descendingIteratorFrom(lowerBound(cursor) - 1);
+    }
+
+    /**
+     * id 가 cursor 보다 작은 것 중 가장 큰 명언, 없으면 null.
+     * 위치가 아니라 id 로 찾으므로 그 사이에 묘비 정리로 슬롯이 옮겨져도 이어서 쓸 수 있다.
+     */
+    public Say lastBelow(int cursor) {
+        int pos = skipTombstonesBackward(lowerBound(cursor) - 1);
+        return pos < 0 ? null : slots[pos];
+    }
+
+    public Stream<Say> streamDescending() {
+        return StreamSupport.stream(
+                Spliterators.spliterator(descendingIterator(), live, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT),
+                false);
+    }
+
+    private Iterator<Say> descendingIteratorFrom(int start) {
+        return new Iterator<>() {
+            private int pos = skipTombstonesBackward(start);
+
+            @Override
+            public boolean hasNext() {
+                return pos >= 0;
+            }
+
+            @Override
+            public Say next() {
+                if (pos < 0)
+                    throw new NoSuchElementException();
+                Say say = slots[pos];
+                pos = skipTombstonesBackward(pos - 1);
+                return say;
+            }
+        };
+    }
+
+    private int skipTombstonesForward(int pos) {
+        while (pos < used && slots[pos] == null) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int skipTombstonesBackward(int pos) {
+        pos = Math.min(pos, used - 1);
+        while (pos >= 0 && slots[pos] == null) {
+            pos--;
+        }
+        return pos;
+    }
+
+    // id 가 처음으로 cursor 이상이 되는 슬롯 위치 (묘비 포함)
+    private int lowerBound(int cursor) {
+        int lo = 0;
+        int hi = used;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ids[mid] < cursor)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    // 로그 재생 등으로 중간 id 가 들어오는 드문 경우 : 자리를 만들고 뒤쪽 위치를 다시 매긴다.
+    private void insertInOrder(Say say) {
+        int idx = lowerBound(say.getId());
+        if (slots[idx] == null && ids[idx] == say.getId()) {
+            // 지워졌던 id 가 다시 들어오면 묘비 자리를 그대로 쓴다.
+            slots[idx] = say;
+            positions.put(say.getId(), idx);
+            live++;
+            return;
+        }
+
+        ensureCapacity(used + 1);
+        System.arraycopy(ids, idx, ids, idx + 1, used - idx);
+        System.arraycopy(slots, idx, slots, idx + 1, used - idx);
+        ids[idx] = say.getId();
+        slots[idx] = say;
+        used++;
+        live++;
+        for (int i = idx; i < used; i++) {
+            if (slots[i] != null)
+                positions.put(ids[i], i);
+        }
+    }
+
+    private void compactSlots() {
+        int write = 0;
+        for (int read = 0; read < used; read++) {
+            Say say = slots[read];
+            if (say == null)
+                continue;
+            if (write != read) {
+                ids[write] = ids[read];
+                slots[write] = say;
+                positions.put(ids[write], write);
+            }
+            write++;
+        }
+        Arrays.fill(slots, write, used, null);
+        used = write;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= slots.length)
+            return;
+        int newCapacity = Math.max(capacity, slots.length + (slots.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        slots = Arrays.copyOf(slots, newCapacity);
+    }
+}
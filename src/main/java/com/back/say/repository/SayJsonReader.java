@@ -0,0 +1,260 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * 명언 JSON 을 Reader 에서 조금씩 읽어 들이는 파서.
+ * 파일 전체를 String 으로 올리지 않고, 문자 버퍼와 StringBuilder 를 재사용하므로
+ * 명언마다 새로 만드는 객체는 결과 String 두 개와 Say 뿐이다.
+ * 이스케이프(\" \\ \n \\uXXXX 등)를 올바르게 풀고, 모르는 키는 건너뛴다.
+ */
+public class SayJsonReader {
+    private final Reader reader;
+    private final char[] buf;
+    private int pos;
+    private int limit;
+    private final StringBuilder sb = new StringBuilder(64);
+
+    public SayJsonReader(Reader reader) {
+        this(reader, 16 * 1024);
+    }
+
+    public SayJsonReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * data.json 형식 : 명언 객체 배열을 하나씩 읽어서 넘긴다. 빈 파일은 빈 배열로 본다.
+     */
+    public void readArray(Consumer<Say> consumer) throws IOException {
+        int c = peekNonWhitespace();
+        if (c == -1)
+            return;
+        expect('[');
+        if (peekNonWhitespace() == ']') {
+            pos++;
+            return;
+        }
+        while (true) {
+            consumer.accept(readObject());
+            int next = nextNonWhitespace();
+            if (next == ']')
+                return;
+            if (next != ',')
+                throw error("',' 또는 ']' 가 와야 합니다");
+        }
+    }
+
+    /**
+     * {id}.json 형식 : 명언 객체 하나
+     */
+    public Say readSingle() throws IOException {
+        if (peekNonWhitespace() == -1)
+            return null;
+        return readObject();
+    }
+
+    private Say readObject() throws IOException {
+        expect('{');
+        int id = -1;
+        String author = null;
+        String content = null;
+
+        if (peekNonWhitespace() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                readStringInto();
+                expect(':');
+                if (contentEquals("id")) {
+                    id = readInt();
+                } else if (contentEquals("author")) {
+                    author = readString();
+                } else if (contentEquals("content")) {
+                    content = readString();
+                } else {
+                    skipValue();
+                }
+
+                int next = nextNonWhitespace();
+                if (next == '}')
+                    break;
+                if (next != ',')
+                    throw error("',' 또는 '}' 가 와야 합니다");
+            }
+        }
+
+        if (id < 0 || author == null || content == null)
+            throw error("id, author, content 가 모두 있어야 합니다");
+        return new Say(id, author, content);
+    }
+
+    private String readString() throws IOException {
+        readStringInto();
+        return sb.toString();
+    }
+
+    // 따옴표로 감싼 문자열을 이스케이프를 풀어서 sb 에 담는다.
+    private void readStringInto() throws IOException {
+        expect('"');
+        sb.setLength(0);
+        while (true) {
+            if (pos == limit && !fill())
+                throw error("문자열이 닫히지 않았습니다");
+
+            // 이스케이프나 닫는 따옴표가 나올 때까지는 한 번에 복사한다.
+            int start = pos;
+            while (pos < limit && buf[pos] != '"' && buf[pos] != '\\') {
+                pos++;
+            }
+            sb.append(buf, start, pos - start);
+            if (pos == limit)
+                continue;
+
+            char c = buf[pos++];
+            if (c == '"')
+                return;
+            sb.append(readEscape());
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = next();
+        return switch (c) {
+            case '"' -> '"';
+            case '\\' -> '\\';
+            case '/' -> '/';
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'u' -> {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit < 0)
+                        throw error("잘못된 \\u 이스케이프");
+                    value = (value << 4) | digit;
+                }
+                yield (char) value;
+            }
+            default -> throw error("잘못된 이스케이프 문자 : " + (char) c);
+        };
+    }
+
+    private int readInt() throws IOException {
+        int c = nextNonWhitespace();
+        boolean negative = c == '-';
+        if (negative)
+            c = next();
+        if (c < '0' || c > '9')
+            throw error("숫자가 와야 합니다");
+
+        int value = 0;
+        while (true) {
+            value = value * 10 + (c - '0');
+            int p = peek();
+            if (p < '0' || p > '9')
+                break;
+            pos++;
+            c = p;
+        }
+        return negative ? -value : value;
+    }
+
+    private void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '"' -> readStringInto();
+            case '{', '[' -> {
+                int depth = 0;
+                do {
+                    int ch = next();
+                    if (ch == '"') {
+                        pos--;
+                        readStringInto();
+                    } else if (ch == '{' || ch == '[') {
+                        depth++;
+                    } else if (ch == '}' || ch == ']') {
+                        depth--;
+                    } else if (ch == -1) {
+                        throw error("값이 닫히지 않았습니다");
+                    }
+                } while (depth > 0);
+            }
+            default -> {
+                // 숫자, true, false, null
+                while (true) {
+                    int p = peek();
+                    if (p == -1 || p == ',' || p == '}' || p == ']' || Character.isWhitespace(p))
+                        break;
+                    pos++;
+                }
+            }
+        }
+    }
+
+    private boolean contentEquals(String key) {
+        if (sb.length() != key.length())
+            return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (sb.charAt(i) != key.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (nextNonWhitespace() != expected)
+            throw error("'" + expected + "' 가 와야 합니다");
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = peekNonWhitespace();
+        if (c != -1)
+            pos++;
+        return c;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill())
+                return -1;
+            char c = buf[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t' && c != '\uFEFF')
+                return c;
+            pos++;
+        }
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill())
+            return -1;
+        return buf[pos];
+    }
+
+    private int next() throws IOException {
+        if (pos == limit && !fill())
+            return -1;
+        return buf[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buf, 0, buf.length);
+        if (n <= 0)
+            return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException("JSON 파싱 실패 : " + message);
+    }
+}
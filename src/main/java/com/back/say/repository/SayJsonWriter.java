@@ -0,0 +1,142 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 명언 JSON 을 채널에 바로 UTF-8 로 써 내려가는 writer.
+ * 문자열은 JSON 규칙대로 이스케이프하고, 버퍼 하나를 계속 재사용하므로 명언마다 중간 String 을 만들지 않는다.
+ * 출력 모양은 기존 data.json / {id}.json 과 같다.
+ */
+public class SayJsonWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buf;
+
+    public SayJsonWriter(WritableByteChannel channel) {
+        this(channel, 16 * 1024);
+    }
+
+    public SayJsonWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buf = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * data.json 형식 : 탭으로 들여쓴 객체들의 배열
+     */
+    public void writeArray(Iterable<Say> sayList) throws IOException {
+        writeAscii("[\n");
+        boolean first = true;
+        for (Say say : sayList) {
+            if (!first)
+                writeAscii(",\n");
+            first = false;
+            writeObject(say, "\t");
+        }
+        writeAscii("\n]");
+        flush();
+    }
+
+    /**
+     * {id}.json 형식 : 객체 하나
+     */
+    public void writeSingle(Say say) throws IOException {
+        writeObject(say, "");
+        writeAscii("\n");
+        flush();
+    }
+
+    private void writeObject(Say say, String indent) throws IOException {
+        writeAscii(indent);
+        writeAscii("{\n");
+        writeAscii(indent);
+        writeAscii("\t\"id\": ");
+        writeInt(say.getId());
+        writeAscii(",\n");
+        writeAscii(indent);
+        writeAscii("\t\"content\": ");
+        writeString(say.getContent());
+        writeAscii(",\n");
+        writeAscii(indent);
+        writeAscii("\t\"author\": ");
+        writeString(say.getAuthor());
+        writeAscii("\n");
+        writeAscii(indent);
+        writeAscii("}");
+    }
+
+    private void writeString(String s) throws IOException {
+        put((byte) '"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> writeAscii("\\\"");
+                case '\\' -> writeAscii("\\\\");
+                case '\n' -> writeAscii("\\n");
+                case '\r' -> writeAscii("\\r");
+                case '\t' -> writeAscii("\\t");
+                case '\b' -> writeAscii("\\b");
+                case '\f' -> writeAscii("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        writeAscii("\\u00");
+                        put((byte) HEX[c >> 4]);
+                        put((byte) HEX[c & 0xF]);
+                    } else if (c < 0x80) {
+                        put((byte) c);
+                    } else if (c < 0x800) {
+                        put((byte) (0xC0 | (c >> 6)));
+                        put((byte) (0x80 | (c & 0x3F)));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        int cp = Character.toCodePoint(c, s.charAt(++i));
+                        put((byte) (0xF0 | (cp >> 18)));
+                        put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                        put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                        put((byte) (0x80 | (cp & 0x3F)));
+                    } else if (Character.isSurrogate(c)) {
+                        // 짝이 맞지 않는 서로게이트는 그대로 남긴다.
+                        writeAscii("\\u");
+                        put((byte) HEX[(c >> 12) & 0xF]);
+                        put((byte) HEX[(c >> 8) & 0xF]);
+                        put((byte) HEX[(c >> 4) & 0xF]);
+                        put((byte) HEX[c & 0xF]);
+                    } else {
+                        put((byte) (0xE0 | (c >> 12)));
+                        put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                        put((byte) (0x80 | (c & 0x3F)));
+                    }
+                }
+            }
+        }
+        put((byte) '"');
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeAscii(Integer.toString(value));
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put((byte) s.charAt(i));
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buf.hasRemaining())
+            flush();
+        buf.put(b);
+    }
+
+    private void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+}
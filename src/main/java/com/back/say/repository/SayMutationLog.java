@@ -0,0 +1,431 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.exception.RepositoryException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 명언 변경 내역을 덧붙이기만 하는 로그 파일.
+ * 레코드 : [payload 길이 4][CRC32 4][payload]
+ * payload : 'U' id authorLen author contentLen content  (등록/수정, 변경 후 전체 값)
+ *           'D' id                                       (삭제)
+ * 레코드는 항상 최종 상태를 담으므로 같은 로그를 여러 번 재생해도 결과가 같다.
+ * 끝부분이 잘렸거나 CRC 가 맞지 않는 레코드를 만나면 그 앞까지만 재생하고 나머지는 잘라낸다.
+ *
+ * append 는 레코드 순번을 돌려주고, 호출한 쪽은 저장소 잠금을 푼 뒤 awaitDurable(순번) 으로 DurabilityPolicy 만큼 기다린다.
+ * fsync 는 한 스레드(리더)만 하고, 그동안 들어온 쓰기는 다음 fsync 한 번으로 함께 내려간다.
+ */
+public class SayMutationLog implements AutoCloseable {
+    private static final byte UPSERT = 'U';
+    private static final byte DELETE = 'D';
+    private static final int HEADER_SIZE = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final DurabilityPolicy durability;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private long recordCount;
+
+    // 지금까지 덧붙인 레코드 순번 (truncate 해도 줄지 않는다)
+    private volatile long appendedSeq;
+    // 디스크에 내려간 것이 확실한 순번
+    private volatile long syncedSeq;
+    private boolean syncing;
+    private volatile boolean closed;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncDone = syncLock.newCondition();
+    private final Condition flushRequested = syncLock.newCondition();
+    private final Thread flusher;
+
+    /**
+     * 등록 레코드와 그 레코드가 로그 안에서 시작하는 위치. 위치는 readUpsertAt 에 넘긴다.
+     */
+    @FunctionalInterface
+    public interface PositionedUpsert {
+        void accept(Say say, long position);
+    }
+
+    public SayMutationLog(Path path) {
+        this(path, DurabilityPolicy.none());
+    }
+
+    public SayMutationLog(Path path, DurabilityPolicy durability) {
+        this.path = path;
+        this.durability = durability;
+        try {
+            this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+            this.channel.position(channel.size());
+        } catch (IOException e) {
+            throw new RepositoryException("로그 파일 열기 실패 : " + path, e);
+        }
+
+        if (durability.getMode() == DurabilityPolicy.Mode.GROUP_COMMIT) {
+            flusher = new Thread(this::flushLoop, "say-log-sync");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    public synchronized void replay(Consumer<Say> onUpsert, IntConsumer onDelete) {
+        replayWithPositions((say, position) -> onUpsert.accept(say), onDelete);
+    }
+
+    /**
+     * replay 와 같고, 등록 레코드마다 로그 안의 시작 위치도 함께 넘긴다.
+     */
+    public synchronized void replayWithPositions(PositionedUpsert onUpsert, IntConsumer onDelete) {
+        try {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            recordCount = 0;
+
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                int expectedCrc = header.getInt();
+                if (length <= 0 || position + HEADER_SIZE + length > size)
+                    break;
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + HEADER_SIZE);
+                payload.flip();
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != expectedCrc)
+                    break;
+
+                apply(payload, position, onUpsert, onDelete);
+                position += HEADER_SIZE + length;
+                recordCount++;
+            }
+
+            // 비정상 종료로 남은 반쪽짜리 레코드는 버린다.
+            if (position < size)
+                channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            throw new RepositoryException("로그 재생 실패 : " + path, e);
+        }
+    }
+
+    /**
+     * @return 레코드 순번. awaitDurable 에 넘긴다.
+     */
+    public synchronized long appendUpsert(Say say) {
+        buffer = encodeUpsert(buffer, say, crc);
+        return write(buffer);
+    }
+
+    /**
+     * @return 레코드 순번. awaitDurable 에 넘긴다.
+     */
+    public synchronized long appendDelete(int id) {
+        buffer = prepare(buffer, 1 + 4);
+        buffer.put(DELETE).putInt(id);
+        seal(buffer, crc);
+        return write(buffer);
+    }
+
+    /**
+     * 등록 레코드만으로 된 로그를 channel 에 쓴다. 재생하면 says 와 같은 상태가 된다.
+     * 살아 있는 것만 남긴 로그를 AtomicFileWriter 로 통째로 교체할 때 쓴다.
+     */
+    public static void writeUpserts(FileChannel channel, Iterable<Say> says) throws IOException {
+        writeUpserts(channel, says, (say, position) -> {});
+    }
+
+    /**
+     * writeUpserts 와 같고, 쓴 레코드마다 channel 안의 시작 위치를 onWritten 에 넘긴다.
+     */
+    public static void writeUpserts(FileChannel channel, Iterable<Say> says, PositionedUpsert onWritten) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        for (Say say : says) {
+            buf = encodeUpsert(buf, say, crc);
+            onWritten.accept(say, channel.position());
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+    }
+
+    /**
+     * seq 번 레코드가 정책만큼 안전해질 때까지 기다린다.
+     * 저장소의 잠금을 쥔 채로 부르면 다른 쓰기가 같은 fsync 에 올라타지 못하므로 잠금 밖에서 부른다.
+     */
+    public void awaitDurable(long seq) {
+        if (durability.getMode() == DurabilityPolicy.Mode.SYNC_PER_OP)
+            syncUpTo(seq);
+    }
+
+    /**
+     * 지금까지 덧붙인 것을 모두 디스크에 내린다. 정책이 NONE 이면 아무것도 하지 않는다.
+     */
+    public void sync() {
+        if (durability.getMode() != DurabilityPolicy.Mode.NONE)
+            syncUpTo(appendedSeq);
+    }
+
+    /**
+     * 스냅샷에 모든 내용을 반영한 뒤 호출해서 로그를 비운다.
+     * 스냅샷이 이미 디스크에 내려가 있어야 하고, 그러면 지금까지의 레코드는 모두 안전한 것으로 본다.
+     */
+    public synchronized void truncate() {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            recordCount = 0;
+        } catch (IOException e) {
+            throw new RepositoryException("로그 비우기 실패 : " + path, e);
+        }
+        markSynced(appendedSeq);
+    }
+
+    /**
+     * position 에서 시작하는 등록 레코드를 다시 읽는다. 위치는 replayWithPositions 나 append 직전의 getSize 로 얻는다.
+     */
+    public synchronized Say readUpsertAt(long position) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, position);
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length <= 0 || position + HEADER_SIZE + length > channel.size())
+                throw new RepositoryException("로그 레코드 위치가 잘못됨 : " + path + " @" + position);
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_SIZE);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc || payload.get(0) != UPSERT)
+                throw new RepositoryException("로그 레코드가 깨짐 : " + path + " @" + position);
+
+            payload.get();
+            return decodeUpsert(payload);
+        } catch (IOException e) {
+            throw new RepositoryException("로그 읽기 실패 : " + path, e);
+        }
+    }
+
+    /**
+     * 다음 레코드가 쓰일 위치, 곧 지금까지 쓴 로그의 길이
+     */
+    public synchronized long getSize() {
+        try {
+            return channel.position();
+        } catch (IOException e) {
+            throw new RepositoryException("로그 위치 확인 실패 : " + path, e);
+        }
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public DurabilityPolicy getDurability() {
+        return durability;
+    }
+
+    /**
+     * 정책이 NONE 이 아니면 남은 레코드를 내리고 닫는다. 이 로그를 기다리던 쓰기도 모두 풀린다.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (flusher != null) {
+            signalFlusher();
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (durability.getMode() != DurabilityPolicy.Mode.NONE && syncedSeq < appendedSeq)
+                channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new RepositoryException("로그 파일 닫기 실패 : " + path, e);
+        } finally {
+            markSynced(appendedSeq);
+        }
+    }
+
+    // 헤더 자리를 비워둔 재사용 버퍼를 payload 쓰기 위치로 맞춰서 돌려준다. 모자라면 더 큰 버퍼를 돌려준다.
+    private static ByteBuffer prepare(ByteBuffer buffer, int payloadLength) {
+        int needed = HEADER_SIZE + payloadLength;
+        if (buffer.capacity() < needed)
+            buffer = ByteBuffer.allocate(Math.max(needed, buffer.capacity() * 2));
+        buffer.clear();
+        buffer.position(HEADER_SIZE);
+        return buffer;
+    }
+
+    private static ByteBuffer encodeUpsert(ByteBuffer buffer, Say say, CRC32 crc) {
+        byte[] author = say.getAuthor().getBytes(StandardCharsets.UTF_8);
+        byte[] content = say.getContent().getBytes(StandardCharsets.UTF_8);
+        buffer = prepare(buffer, 1 + 4 + 4 + author.length + 4 + content.length);
+        buffer.put(UPSERT).putInt(say.getId())
+                .putInt(author.length).put(author)
+                .putInt(content.length).put(content);
+        seal(buffer, crc);
+        return buffer;
+    }
+
+    // 헤더에 payload 길이와 CRC 를 채우고 읽을 수 있게 뒤집는다.
+    private static void seal(ByteBuffer buf, CRC32 crc) {
+        int payloadLength = buf.position() - HEADER_SIZE;
+        crc.reset();
+        crc.update(buf.array(), HEADER_SIZE, payloadLength);
+        buf.putInt(0, payloadLength);
+        buf.putInt(4, (int) crc.getValue());
+        buf.flip();
+    }
+
+    private long write(ByteBuffer buf) {
+        try {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            recordCount++;
+        } catch (IOException e) {
+            throw new RepositoryException("로그 쓰기 실패 : " + path, e);
+        }
+
+        long seq = ++appendedSeq;
+        if (flusher != null && seq - syncedSeq >= durability.getGroupCommitOps())
+            signalFlusher();
+        return seq;
+    }
+
+    /**
+     * 이미 다른 스레드가 fsync 중이면 끝나기를 기다렸다가, 그래도 모자라면 직접 리더가 되어 그때까지 쌓인 것을 한 번에 내린다.
+     */
+    private void syncUpTo(long seq) {
+        syncLock.lock();
+        try {
+            while (syncedSeq < seq) {
+                // 닫히는 중이면 close 가 마지막 fsync 를 하고 깨워준다.
+                if (syncing || closed) {
+                    syncDone.awaitUninterruptibly();
+                    continue;
+                }
+
+                syncing = true;
+                long target = appendedSeq;
+                syncLock.unlock();
+                boolean forced = false;
+                try {
+                    channel.force(false);
+                    forced = true;
+                } catch (IOException e) {
+                    if (!closed)
+                        throw new RepositoryException("로그 fsync 실패 : " + path, e);
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    if (forced && target > syncedSeq)
+                        syncedSeq = target;
+                    syncDone.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void markSynced(long seq) {
+        syncLock.lock();
+        try {
+            if (seq > syncedSeq)
+                syncedSeq = seq;
+            syncDone.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void signalFlusher() {
+        syncLock.lock();
+        try {
+            flushRequested.signal();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // GROUP_COMMIT : 주기마다, 또는 건수가 차서 깨워지면 쌓인 것을 내린다.
+    private void flushLoop() {
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(durability.getGroupCommitMillis());
+        while (!closed) {
+            syncLock.lock();
+            try {
+                if (!closed && appendedSeq - syncedSeq < durability.getGroupCommitOps())
+                    flushRequested.awaitNanos(periodNanos);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                syncLock.unlock();
+            }
+            if (closed)
+                return;
+            try {
+                syncUpTo(appendedSeq);
+            } catch (RuntimeException e) {
+                // 다음 주기에 다시 시도한다.
+            }
+        }
+    }
+
+    // buf 가 찰 때까지 position 부터 읽고 읽을 수 있게 뒤집는다.
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0)
+                throw new IOException("로그 끝을 넘어 읽음 : " + path);
+        }
+        buf.flip();
+    }
+
+    private static void apply(ByteBuffer payload, long position, PositionedUpsert onUpsert, IntConsumer onDelete) {
+        byte type = payload.get();
+        if (type == DELETE) {
+            onDelete.accept(payload.getInt());
+            return;
+        }
+        onUpsert.accept(decodeUpsert(payload), position);
+    }
+
+    // 종류 바이트 다음부터 : id authorLen author contentLen content
+    private static Say decodeUpsert(ByteBuffer payload) {
+        int id = payload.getInt();
+        String author = readString(payload);
+        String content = readString(payload);
+        return new Say(id, author, content);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+}
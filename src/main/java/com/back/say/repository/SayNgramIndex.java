@@ -0,0 +1,355 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * 부분 일치 키워드 검색용 n-gram 역색인. 작가/내용의 연속된 두 글자(bigram), 세 글자(trigram)마다 그 글자를 가진 id 목록(posting)을 든다.
+ * 한글은 한 글자가 한 char 이므로 글자 단위 n-gram 이 형태소 분석 없이도 잘 맞는다.
+ *
+ * 키워드가 두 글자면 그 bigram 목록이, 세 글자 이상이면 키워드 안의 모든 trigram 목록의 교집합이 후보가 된다.
+ * 후보는 "그 글자 조각들을 모두 가진" 명언이라 실제로 이어져 있는지는 모르므로, 부르는 쪽에서 cond.matches 로 확인해야 한다.
+ * 한 글자 키워드는 줄일 방법이 없어 null 을 돌려주고, 그때는 부르는 쪽이 전체를 훑는다.
+ *
+ * posting 은 id 오름차순 int 배열이고 읽을 때는 뒤에서부터 읽으므로 id 내림차순이 된다. 새 id 는 맨 뒤에 붙는다.
+ * 지울 때는 이분 탐색으로 찾아 음수로 바꿔 두고(묘비), 묘비가 절반을 넘으면 그 목록만 당겨 정리한다.
+ * id 마다 마지막으로 색인한 명언을 기억해 두고, 바뀔 때는 예전/새 n-gram 의 차이만 고친다.
+ * 색인을 고치거나 후보를 꺼내는 메서드는 synchronized 이다.
+ */
+public class SayNgramIndex {
+    private static final int AUTHOR = 0;
+    private static final int CONTENT = 1;
+
+    private final HashMap<Long, Postings> postings = new HashMap<>();
+    // id → 지금 색인에 들어 있는 명언
+    private final SayIdArray indexed = new SayIdArray();
+    private int size;
+
+    public static SayNgramIndex of(Iterable<Say> sayList) {
+        SayNgramIndex index = new SayNgramIndex();
+        for (Say say : sayList) {
+            index.put(say);
+        }
+        return index;
+    }
+
+    /**
+     * 같은 id 가 있으면 바꾸고, 없으면 넣는다.
+     */
+    public synchronized void put(Say say) {
+        Say old = indexed.get(say.getId());
+        if (old == null)
+            size++;
+        indexed.set(say.getId(), say);
+        reindex(say.getId(), old, say);
+    }
+
+    public synchronized void remove(int id) {
+        Say old = indexed.remove(id);
+        if (old == null)
+            return;
+        size--;
+        reindex(id, old, null);
+    }
+
+    /**
+     * 원본 저장소의 지금 값으로 맞춘다. 없으면 지운다.
+     * 잠금 안에서 원본을 다시 읽으므로 여러 스레드의 쓰기가 뒤섞여 닿아도 마지막에 맞춘 값이 원본과 같다.
+     */
+    public synchronized void refresh(int id, IntFunction<Say> source) {
+        Say say = source.apply(id);
+        if (say == null)
+            remove(id);
+        else
+            put(say);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 후보를 받아 원본(source)에서 꺼내 확인하고 페이지를 만든다. 건수는 후보만 확인해서 센다.
+     * 커서 페이지는 후보를 조금씩 받아 페이지가 차면 멈춘다.
+     *
+     * @return 페이지, 색인으로 줄일 수 없는 조건이면 null
+     */
+    public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable, IntFunction<Say> source) {
+        int pageSize = pageable.getPageSize();
+        List<Say> pageContent = new ArrayList<>(pageSize);
+
+        if (pageable.hasCursor()) {
+            int below = pageable.getCursor();
+            int batch = Math.max(pageSize * 4, 64);
+            boolean hasMore = false;
+            while (!hasMore) {
+                int[] ids = candidates(cond, below, batch);
+                if (ids == null)
+                    return null;
+                for (int id : ids) {
+                    Say say = source.apply(id);
+                    if (say == null || !cond.matches(say))
+                        continue;
+                    if (pageContent.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    pageContent.add(say);
+                }
+                if (ids.length < batch)
+                    break;
+                below = ids[ids.length - 1];
+            }
+            Integer nextCursor = hasMore ? pageContent.get(pageContent.size() - 1).getId() : null;
+            return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, -1, nextCursor);
+        }
+
+        int[] ids = candidates(cond, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        if (ids == null)
+            return null;
+        int from = pageable.getOffset();
+        int matched = 0;
+        for (int id : ids) {
+            Say say = source.apply(id);
+            if (say == null || !cond.matches(say))
+                continue;
+            if (matched >= from && matched < from + pageSize)
+                pageContent.add(say);
+            matched++;
+        }
+        int to = Math.min(from + pageSize, matched);
+        Integer nextCursor = to < matched && !pageContent.isEmpty() ? pageContent.get(pageContent.size() - 1).getId() : null;
+        return new PageDto<>(pageContent, pageable.getPageNo(), pageSize, matched, nextCursor);
+    }
+
+    /**
+     * id 가 below 보다 작은 후보를 내림차순으로 최대 limit 개.
+     * 조건이 둘 다 있으면 작가 후보와 내용 후보의 합집합이다. (SaySearchCondition.matches 와 같은 "또는")
+     *
+     * @return 후보 id, 색인으로 줄일 수 없는 조건(한 글자 키워드)이면 null
+     */
+    public synchronized int[] candidates(SaySearchCondition cond, int below, int limit) {
+        int[] authorIds = null;
+        int[] contentIds = null;
+        if (cond.hasAuthorCondition()) {
+            authorIds = candidates(AUTHOR, cond.getAuthorContains(), below, limit);
+            if (authorIds == null)
+                return null;
+        }
+        if (cond.hasContentCondition()) {
+            contentIds = candidates(CONTENT, cond.getContentContains(), below, limit);
+            if (contentIds == null)
+                return null;
+        }
+        if (authorIds == null)
+            return contentIds;
+        if (contentIds == null)
+            return authorIds;
+        return union(authorIds, contentIds, limit);
+    }
+
+    private int[] candidates(int field, String keyword, int below, int limit) {
+        long[] grams = gramsOf(field, keyword, keyword.length() == 2 ? 2 : 3);
+        if (grams.length == 0)
+            return null;
+
+        List<Postings> lists = new ArrayList<>(grams.length);
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null)
+                return new int[0];
+            lists.add(list);
+        }
+        // 가장 짧은 목록을 훑으며 나머지 목록에 있는지 이분 탐색으로 본다.
+        lists.sort(Comparator.comparingInt(list -> list.live));
+        Postings shortest = lists.get(0);
+
+        int[] found = new int[Math.min(shortest.live, Math.min(limit, 1024))];
+        int count = 0;
+        for (int i = shortest.lowerBound(below) - 1; i >= 0 && count < limit; i--) {
+            int id = shortest.ids[i];
+            if (id < 0 || !containsInAll(lists, id))
+                continue;
+            if (count == found.length)
+                found = Arrays.copyOf(found, Math.min(count * 2, shortest.live));
+            found[count++] = id;
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    private static boolean containsInAll(List<Postings> lists, int id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id))
+                return false;
+        }
+        return true;
+    }
+
+    // 내림차순 두 목록을 합치면서 겹치는 id 는 한 번만 넣는다.
+    private static int[] union(int[] a, int[] b, int limit) {
+        int[] merged = new int[Math.min(a.length + b.length, limit)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (count < merged.length && (i < a.length || j < b.length)) {
+            int id;
+            if (j == b.length || i < a.length && a[i] > b[j])
+                id = a[i++];
+            else if (i == a.length || b[j] > a[i])
+                id = b[j++];
+            else {
+                id = a[i++];
+                j++;
+            }
+            merged[count++] = id;
+        }
+        return count == merged.length ? merged : Arrays.copyOf(merged, count);
+    }
+
+    // 예전 n-gram 과 새 n-gram 을 정렬해 두고 한쪽에만 있는 것만 고친다.
+    private void reindex(int id, Say old, Say now) {
+        diff(id, old == null ? null : allGramsOf(AUTHOR, old.getAuthor()), now == null ? null : allGramsOf(AUTHOR, now.getAuthor()));
+        diff(id, old == null ? null : allGramsOf(CONTENT, old.getContent()), now == null ? null : allGramsOf(CONTENT, now.getContent()));
+    }
+
+    private void diff(int id, long[] oldGrams, long[] newGrams) {
+        oldGrams = oldGrams == null ? new long[0] : oldGrams;
+        newGrams = newGrams == null ? new long[0] : newGrams;
+        int i = 0;
+        int j = 0;
+        while (i < oldGrams.length || j < newGrams.length) {
+            if (j == newGrams.length || i < oldGrams.length && oldGrams[i] < newGrams[j]) {
+                removePosting(oldGrams[i++], id);
+            } else if (i == oldGrams.length || newGrams[j] < oldGrams[i]) {
+                postings.computeIfAbsent(newGrams[j++], gram -> new Postings()).add(id);
+            } else {
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private void removePosting(long gram, int id) {
+        Postings list = postings.get(gram);
+        if (list == null)
+            return;
+        list.remove(id);
+        if (list.live == 0)
+            postings.remove(gram);
+    }
+
+    private static long[] allGramsOf(int field, String text) {
+        long[] bigrams = gramsOf(field, text, 2);
+        long[] trigrams = gramsOf(field, text, 3);
+        long[] grams = Arrays.copyOf(bigrams, bigrams.length + trigrams.length);
+        System.arraycopy(trigrams, 0, grams, bigrams.length, trigrams.length);
+        Arrays.sort(grams);
+        return grams;
+    }
+
+    /**
+     * 글자 n 개짜리 조각을 long 하나로 묶는다. (필드 | n | 글자들) 정렬, 중복 제거해서 돌려준다.
+     */
+    private static long[] gramsOf(int field, String text, int n) {
+        if (text == null || text.length() < n)
+            return new long[0];
+        long[] grams = new long[text.length() - n + 1];
+        for (int i = 0; i < grams.length; i++) {
+            long gram = (long) field << 50 | (long) n << 48;
+            for (int k = 0; k < n; k++) {
+                gram |= (long) text.charAt(i + k) << (16 * (n - 1 - k));
+            }
+            grams[i] = gram;
+        }
+        Arrays.sort(grams);
+        int unique = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1])
+                grams[unique++] = grams[i];
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    /**
+     * id 오름차순 목록. 지운 id 는 음수로 남겨 두므로 절댓값으로는 항상 정렬되어 있다.
+     */
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int used;
+        private int live;
+
+        void add(int id) {
+            if (used == 0 || Math.abs(ids[used - 1]) < id) {
+                if (used == ids.length)
+                    ids = Arrays.copyOf(ids, used * 2);
+                ids[used++] = id;
+                live++;
+                return;
+            }
+            int pos = lowerBound(id);
+            if (pos < used && Math.abs(ids[pos]) == id) {
+                if (ids[pos] < 0) {
+                    ids[pos] = id;
+                    live++;
+                }
+                return;
+            }
+            // 로그 재생 등으로 중간 id 가 늦게 들어오는 드문 경우
+            if (used == ids.length)
+                ids = Arrays.copyOf(ids, used * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, used - pos);
+            ids[pos] = id;
+            used++;
+            live++;
+        }
+
+        void remove(int id) {
+            int pos = lowerBound(id);
+            if (pos == used || ids[pos] != id)
+                return;
+            ids[pos] = -id;
+            live--;
+            if (used - live > live && used - live >= 8)
+                compact();
+        }
+
+        boolean contains(int id) {
+            int pos = lowerBound(id);
+            return pos < used && ids[pos] == id;
+        }
+
+        // 절댓값이 처음으로 id 이상이 되는 위치
+        int lowerBound(int id) {
+            int lo = 0;
+            int hi = used;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (Math.abs(ids[mid]) < id)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+
+        private void compact() {
+            int write = 0;
+            for (int read = 0; read < used; read++) {
+                if (ids[read] > 0)
+                    ids[write++] = ids[read];
+            }
+            used = write;
+            if (ids.length > 16 && used < ids.length / 4)
+                ids = Arrays.copyOf(ids, Math.max(used * 2, 4));
+        }
+    }
+}
@@ -8,13 +8,21 @@ import com.back.say.utils.SaySearchCondition;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface SayRepository {
     int create(SayDto dto);
+    List<Integer> createAll(List<SayDto> dtoList);
     int update(int id, SayDto dto);
     int delete(int id);
     Optional<Say> findById(int id);
     List<Say> findAll();
+
+    /**
+     * 전체 명언을 id 내림차순으로 하나씩 흘려보낸다. 목록 전체를 메모리에 올리지 않는다.
+     * DB 연결이나 파일을 잡고 있을 수 있으므로 사용 후 반드시 close() 해야 한다. (try-with-resources)
+     */
+    Stream<Say> streamAll();
     void build();
     PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable);
 }
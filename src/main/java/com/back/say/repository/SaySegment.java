@@ -0,0 +1,407 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.exception.RepositoryException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * LSM 저장소의 정렬된 불변 세그먼트 파일. 한 번 쓰면 고치지 않고, 합쳐지면 통째로 지운다.
+ * [매직 'SAYS' 4][버전 4] 뒤에 id 오름차순 레코드를 약 BLOCK_SIZE 단위 블록으로 묶어 쓴다.
+ * 레코드 : [id 4][길이 4][authorLen 4][author][content], 길이가 -1 이면 삭제 표시(tombstone)
+ * 블록 색인 : [블록 수 4] 뒤에 [첫 id 4][위치 8][길이 4][CRC32C 4]
+ * 블룸 필터 : SayBloomFilter
+ * 꼬리 : [건수 4][lastId 4][minSeq 4][maxSeq 4][minId 4][maxId 4][색인 위치 8][블룸 위치 8][CRC32C 4][매직 'SAYF' 4]
+ * 꼬리의 CRC 는 색인, 블룸, 꼬리 앞부분을 덮고 블록은 읽을 때 각자의 CRC 로 확인한다.
+ *
+ * 색인과 블룸 필터만 메모리에 두고 블록은 필요할 때 읽는다. 없는 id 는 대부분 블룸 필터에서 걸러져 디스크를 읽지 않는다.
+ * 합쳐진 세그먼트를 읽는 중인 스트림이 있을 수 있으므로 참조 수가 0 이 될 때 닫고 지운다.
+ */
+public class SaySegment {
+    private static final int MAGIC = 0x53415953; // "SAYS"
+    private static final int FOOTER_MAGIC = 0x53415946; // "SAYF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int FOOTER_SIZE = 48;
+    private static final int BLOCK_SIZE = 4096;
+    private static final int TOMBSTONE_LENGTH = -1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int count;
+    private final int lastId;
+    private final int minSeq;
+    private final int maxSeq;
+    private final int minId;
+    private final int maxId;
+    private final int[] blockFirstIds;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockCrcs;
+    private final SayBloomFilter bloom;
+    private final AtomicInteger refs = new AtomicInteger(1);
+    private volatile boolean obsolete;
+
+    private SaySegment(Path path, FileChannel channel, ByteBuffer footer, ByteBuffer index, SayBloomFilter bloom) {
+        this.path = path;
+        this.channel = channel;
+        this.count = footer.getInt();
+        this.lastId = footer.getInt();
+        this.minSeq = footer.getInt();
+        this.maxSeq = footer.getInt();
+        this.minId = footer.getInt();
+        this.maxId = footer.getInt();
+        int blocks = index.getInt();
+        blockFirstIds = new int[blocks];
+        blockOffsets = new long[blocks];
+        blockLengths = new int[blocks];
+        blockCrcs = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockFirstIds[i] = index.getInt();
+            blockOffsets[i] = index.getLong();
+            blockLengths[i] = index.getInt();
+            blockCrcs[i] = index.getInt();
+        }
+        this.bloom = bloom;
+    }
+
+    /**
+     * 삭제 표시인 명언. author 와 content 가 null 이다.
+     */
+    public static Say tombstone(int id) {
+        return new Say(id, null, null);
+    }
+
+    public static boolean isTombstone(Say say) {
+        return say.getAuthor() == null;
+    }
+
+    /**
+     * id 오름차순으로 레코드를 받아 새 세그먼트를 쓰고 열어서 돌려준다. 임시 파일에 다 쓴 뒤 이름을 바꾼다.
+     */
+    public static SaySegment write(Path path, Iterator<Say> ascending, int expectedCount,
+                                   int lastId, int minSeq, int maxSeq) throws IOException {
+        AtomicFileWriter.write(path, channel -> writeBody(channel, ascending, expectedCount, lastId, minSeq, maxSeq));
+        return open(path);
+    }
+
+    public static SaySegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE)
+                throw new IOException("세그먼트가 잘렸습니다 : " + path);
+            ByteBuffer footer = readFully(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong(24);
+            long bloomOffset = footer.getLong(32);
+            int expectedCrc = footer.getInt(40);
+            if (footer.getInt(44) != FOOTER_MAGIC || indexOffset < HEADER_SIZE || bloomOffset < indexOffset
+                    || bloomOffset > size - FOOTER_SIZE)
+                throw new IOException("세그먼트 형식이 아닙니다 : " + path);
+
+            ByteBuffer meta = readFully(channel, indexOffset, (int) (size - 8 - indexOffset));
+            CRC32C crc = new CRC32C();
+            crc.update(meta.duplicate());
+            if ((int) crc.getValue() != expectedCrc)
+                throw new IOException("세그먼트 체크섬이 맞지 않습니다 : " + path);
+
+            ByteBuffer index = meta.slice(0, (int) (bloomOffset - indexOffset));
+            ByteBuffer bloomBuf = meta.slice((int) (bloomOffset - indexOffset), (int) (size - FOOTER_SIZE - bloomOffset));
+            return new SaySegment(path, channel, footer, index, SayBloomFilter.readFrom(bloomBuf));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return 명언, 이 세그먼트에서 지워진 id 면 tombstone, 이 세그먼트가 모르는 id 면 null
+     */
+    public Say get(int id) {
+        if (id < minId || id > maxId || !bloom.mightContain(id))
+            return null;
+        int block = blockFor(id);
+        if (block < 0)
+            return null;
+        for (Say say : readBlock(block)) {
+            if (say.getId() == id)
+                return say;
+        }
+        return null;
+    }
+
+    /**
+     * below 보다 작은 id 를 내림차순으로. tombstone 도 그대로 넘긴다.
+     */
+    public Iterator<Say> descendingIterator(int below) {
+        return new Iterator<>() {
+            private int block = below == Integer.MIN_VALUE ? -1 : blockFor(below - 1);
+            private List<Say> records = List.of();
+            private int index = -1;
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                while (index < 0) {
+                    if (block < 0)
+                        return false;
+                    records = readBlock(block--);
+                    index = records.size() - 1;
+                    if (first) {
+                        while (index >= 0 && records.get(index).getId() >= below) {
+                            index--;
+                        }
+                        first = false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Say next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return records.get(index--);
+            }
+        };
+    }
+
+    public Iterator<Say> ascendingIterator() {
+        return new Iterator<>() {
+            private int block;
+            private List<Say> records = List.of();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index >= records.size()) {
+                    if (block >= blockFirstIds.length)
+                        return false;
+                    records = readBlock(block++);
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Say next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return records.get(index++);
+            }
+        };
+    }
+
+    public boolean mightContain(int id) {
+        return id >= minId && id <= maxId && bloom.mightContain(id);
+    }
+
+    /**
+     * 읽기 전에 잡고 다 읽으면 release 한다. 저장소가 가진 참조가 처음 1 이다.
+     */
+    public void retain() {
+        refs.incrementAndGet();
+    }
+
+    public void release() {
+        if (refs.decrementAndGet() > 0)
+            return;
+        try {
+            channel.close();
+            if (obsolete)
+                Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 남은 파일은 다음 시작 때 seq 범위를 보고 지운다.
+        }
+    }
+
+    /**
+     * 다른 세그먼트에 합쳐졌다. 마지막 참조가 풀릴 때 파일을 지운다.
+     */
+    public void markObsolete() {
+        obsolete = true;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int getMinSeq() {
+        return minSeq;
+    }
+
+    public int getMaxSeq() {
+        return maxSeq;
+    }
+
+    public long getSizeBytes() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // 첫 id <= id 인 마지막 블록
+    private int blockFor(int id) {
+        int lo = 0;
+        int hi = blockFirstIds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blockFirstIds[mid] <= id)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo - 1;
+    }
+
+    private List<Say> readBlock(int block) {
+        try {
+            ByteBuffer buf = readFully(channel, blockOffsets[block], blockLengths[block]);
+            CRC32C crc = new CRC32C();
+            crc.update(buf.duplicate());
+            if ((int) crc.getValue() != blockCrcs[block])
+                throw new RepositoryException("세그먼트 블록 체크섬이 맞지 않습니다 : " + path + " #" + block);
+
+            List<Say> records = new ArrayList<>();
+            byte[] a = buf.array();
+            while (buf.hasRemaining()) {
+                int id = buf.getInt();
+                int length = buf.getInt();
+                if (length == TOMBSTONE_LENGTH) {
+                    records.add(tombstone(id));
+                    continue;
+                }
+                int start = buf.position();
+                int authorLen = buf.getInt();
+                String author = new String(a, start + 4, authorLen, StandardCharsets.UTF_8);
+                String content = new String(a, start + 4 + authorLen, length - 4 - authorLen, StandardCharsets.UTF_8);
+                records.add(new Say(id, author, content));
+                buf.position(start + length);
+            }
+            return records;
+        } catch (IOException e) {
+            throw new RepositoryException("세그먼트 읽기 실패 : " + path, e);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0)
+                throw new IOException("세그먼트가 잘렸습니다");
+        }
+        return buf.flip();
+    }
+
+    private static void writeBody(FileChannel channel, Iterator<Say> ascending, int expectedCount,
+                                  int lastId, int minSeq, int maxSeq) throws IOException {
+        SayBloomFilter bloom = SayBloomFilter.create(expectedCount, SayBloomFilter.DEFAULT_BITS_PER_KEY);
+        List<int[]> blockMeta = new ArrayList<>();
+        List<Long> blockOffsets = new ArrayList<>();
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE * 2);
+        CRC32C crc = new CRC32C();
+
+        long position = writeAll(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+        int count = 0;
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        int blockFirstId = 0;
+
+        while (ascending.hasNext()) {
+            Say say = ascending.next();
+            byte[] author = isTombstone(say) ? null : say.getAuthor().getBytes(StandardCharsets.UTF_8);
+            byte[] content = isTombstone(say) ? null : say.getContent().getBytes(StandardCharsets.UTF_8);
+            int needed = author == null ? 8 : 12 + author.length + content.length;
+
+            if (block.position() > 0 && block.position() + needed > BLOCK_SIZE) {
+                blockOffsets.add(position);
+                blockMeta.add(new int[]{blockFirstId, block.position(), 0});
+                position += flushBlock(channel, block, crc, blockMeta.get(blockMeta.size() - 1));
+            }
+            if (block.capacity() < needed)
+                block = ByteBuffer.allocate(needed);
+            if (block.position() == 0)
+                blockFirstId = say.getId();
+
+            block.putInt(say.getId());
+            if (author == null) {
+                block.putInt(TOMBSTONE_LENGTH);
+            } else {
+                block.putInt(4 + author.length + content.length)
+                        .putInt(author.length).put(author).put(content);
+            }
+            bloom.add(say.getId());
+            minId = Math.min(minId, say.getId());
+            maxId = Math.max(maxId, say.getId());
+            count++;
+        }
+        if (block.position() > 0) {
+            blockOffsets.add(position);
+            blockMeta.add(new int[]{blockFirstId, block.position(), 0});
+            position += flushBlock(channel, block, crc, blockMeta.get(blockMeta.size() - 1));
+        }
+
+        long indexOffset = position;
+        long bloomOffset = indexOffset + 4 + blockMeta.size() * 20L;
+        ByteBuffer meta = ByteBuffer.allocate((int) (bloomOffset - indexOffset) + bloom.serializedSize() + FOOTER_SIZE);
+        meta.putInt(blockMeta.size());
+        for (int i = 0; i < blockMeta.size(); i++) {
+            int[] m = blockMeta.get(i);
+            meta.putInt(m[0]).putLong(blockOffsets.get(i)).putInt(m[1]).putInt(m[2]);
+        }
+        bloom.writeTo(meta);
+        meta.putInt(count).putInt(lastId).putInt(minSeq).putInt(maxSeq)
+                .putInt(minId).putInt(maxId).putLong(indexOffset).putLong(bloomOffset);
+        crc.reset();
+        crc.update(meta.array(), 0, meta.position());
+        meta.putInt((int) crc.getValue()).putInt(FOOTER_MAGIC);
+        writeAll(channel, meta.flip());
+    }
+
+    // 블록을 쓰고 meta[2] 에 CRC 를 채운다.
+    private static int flushBlock(FileChannel channel, ByteBuffer block, CRC32C crc, int[] meta) throws IOException {
+        block.flip();
+        crc.reset();
+        crc.update(block.array(), 0, block.limit());
+        meta[2] = (int) crc.getValue();
+        int length = (int) writeAll(channel, block);
+        block.clear();
+        return length;
+    }
+
+    private static long writeAll(FileChannel channel, ByteBuffer buf) throws IOException {
+        int length = buf.remaining();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return path.getFileName() + "(" + count + ")";
+    }
+}
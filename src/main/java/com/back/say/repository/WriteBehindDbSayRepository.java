@@ -0,0 +1,564 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.exception.RepositoryException;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import com.back.standard.util.DbConnectionUtil;
+
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * 쓰기 지연(write-behind) 모드의 DB 저장소.
+ * create/update/delete 는 메모리 큐에만 넣고 바로 돌아오며, 백그라운드 스레드가
+ * maxLatency 가 지나거나 maxBatchSize 만큼 쌓이면 하나의 트랜잭션으로 모아서 반영한다.
+ * create 의 id 는 say_id_seq 테이블에서 미리 예약한 구간에서 꺼내 쓴다.
+ * 예약한 id 가 AUTO_INCREMENT 와 겹치지 않도록 이 모드에서는 이 저장소만 say 테이블에 써야 한다.
+ * findById 는 대기 중인 쓰기를 먼저 확인하고, 목록 조회는 대기 중인 쓰기를 반영한 뒤 DB 를 읽는다.
+ * 배치 반영이 실패하면 남겨두었다가 다음 쓰기나 flush 에서 한 번 던진다.
+ * 데이터 때문에 실패한 배치(SQLState 22xx, 23xx)는 한 건씩 다시 써 보고, 그래도 안 되는 것은 버리고 deadLetters 에 남긴다.
+ * id 예약용 say_id_seq 테이블은 처음 예약할 때 없으면 만든다. build() 에서도 만든다.
+ */
+public class WriteBehindDbSayRepository implements SayRepository, AutoCloseable {
+    private final SayRepository reader;
+    private final BatchWriter batchWriter;
+    private final IntUnaryOperator idBlockReserver;
+
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final int idBlockSize;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition notEmpty = queueLock.newCondition();
+    private final Condition batchFull = queueLock.newCondition();
+    private final ArrayDeque<Mutation> queue = new ArrayDeque<>();
+
+    // 아직 DB 에 반영되지 않은 최신 상태. 값이 DELETED 이면 삭제 대기 중
+    private final Map<Integer, Say> pending = new ConcurrentHashMap<>();
+    private static final Say DELETED = new Say(-1, "", "");
+
+    // 배치 반영은 한 번에 하나씩만 해서 순서를 지킨다. 꺼낸 배치를 쓰는 동안에도 잡고 있다.
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private int nextId;
+    private int idLimit;
+
+    // 반영하지 못하고 버린 쓰기. id → 마지막 상태(null 이면 삭제)
+    private final Map<Integer, Say> deadLetters = new ConcurrentHashMap<>();
+    // 백그라운드 반영이 실패하면 남겨두고 다음 쓰기나 flush 에서 한 번 던진다.
+    private final AtomicReference<Exception> backgroundFailure = new AtomicReference<>();
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    public WriteBehindDbSayRepository() {
+        this(500, 200, 100);
+    }
+
+    public WriteBehindDbSayRepository(int maxBatchSize, long maxLatencyMillis, int idBlockSize) {
+        this(new DbSayRepository(), WriteBehindDbSayRepository::writeToDb, WriteBehindDbSayRepository::reserveIdBlock,
+                maxBatchSize, maxLatencyMillis, idBlockSize);
+    }
+
+    // 테스트에서 DB 없이 읽기 저장소와 배치 반영, id 예약을 바꿔 끼울 수 있게 열어 둔다.
+    WriteBehindDbSayRepository(SayRepository reader, BatchWriter batchWriter, IntUnaryOperator idBlockReserver,
+                               int maxBatchSize, long maxLatencyMillis, int idBlockSize) {
+        this.reader = reader;
+        this.batchWriter = batchWriter;
+        this.idBlockReserver = idBlockReserver;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        this.idBlockSize = idBlockSize;
+
+        flusher = new Thread(this::flushLoop, "say-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public int create(SayDto dto) {
+        int id = allocateId();
+        enqueue(new Mutation(id, new Say(id, dto.getAuthor(), dto.getContent()), true));
+        return id;
+    }
+
+    @Override
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        List<Integer> ids = new ArrayList<>(dtoList.size());
+        for (SayDto dto : dtoList) {
+            ids.add(create(dto));
+        }
+        return ids;
+    }
+
+    @Override
+    public int update(int id, SayDto dto) {
+        return enqueueIfExists(new Mutation(id, new Say(id, dto.getAuthor(), dto.getContent()), false)) ? id : -1;
+    }
+
+    @Override
+    public int delete(int id) {
+        return enqueueIfExists(new Mutation(id, null, false)) ? id : -1;
+    }
+
+    @Override
+    public Optional<Say> findById(int id) {
+        Say say = pending.get(id);
+        if (say == DELETED)
+            return Optional.empty();
+        if (say != null)
+            return Optional.of(say);
+        return reader.findById(id);
+    }
+
+    @Override
+    public List<Say> findAll() {
+        flush();
+        return reader.findAll();
+    }
+
+    @Override
+    public Stream<Say> streamAll() {
+        flush();
+        return reader.streamAll();
+    }
+
+    @Override
+    public void build() {
+        flush();
+        reader.build();
+        createIdSequenceTable();
+    }
+
+    @Override
+    public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+        flush();
+        return reader.findPage(cond, pageable);
+    }
+
+    /**
+     * 대기 중인 쓰기를 모두 DB 에 반영할 때까지 기다린다.
+     * 백그라운드 스레드가 이미 꺼내서 쓰고 있는 배치는 큐에 없으므로, flushLock 을 먼저 잡아 그 배치가 끝나기를 기다린다.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (hasQueued()) {
+                writeNextBatch();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        throwIfBackgroundFailed();
+    }
+
+    /**
+     * 데이터 때문에 반영하지 못하고 버린 쓰기. id → 마지막 상태(null 이면 삭제)
+     */
+    public Map<Integer, Say> getDeadLetters() {
+        return Map.copyOf(deadLetters);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queueLock.lock();
+        try {
+            notEmpty.signalAll();
+            batchFull.signalAll();
+        } finally {
+            queueLock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 있는지 확인하고 넣는 것을 queueLock 안에서 해서, 같은 id 의 삭제가 그 사이에 끼어들지 못하게 한다.
+     * 대기 중인 상태가 없을 때만 DB 를 읽는다. 반영 중인 배치의 상태는 반영이 끝날 때까지 pending 에 남아 있다.
+     */
+    private boolean enqueueIfExists(Mutation mutation) {
+        queueLock.lock();
+        try {
+            Say current = pending.get(mutation.id);
+            boolean exists = current != null ? current != DELETED : reader.findById(mutation.id).isPresent();
+            if (!exists)
+                return false;
+            enqueue(mutation);
+            return true;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // pending 과 큐를 같은 잠금 안에서 고쳐야 같은 id 의 두 쓰기가 양쪽에 같은 순서로 들어간다.
+    private void enqueue(Mutation mutation) {
+        if (closed)
+            throw new RepositoryException("write-behind 저장소가 종료되었습니다.");
+        throwIfBackgroundFailed();
+
+        queueLock.lock();
+        try {
+            pending.put(mutation.id, mutation.say == null ? DELETED : mutation.say);
+            queue.addLast(mutation);
+            if (queue.size() == 1)
+                notEmpty.signal();
+            if (queue.size() >= maxBatchSize)
+                batchFull.signal();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private boolean hasQueued() {
+        queueLock.lock();
+        try {
+            return !queue.isEmpty();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        long backoffNanos = maxLatencyNanos;
+        while (!closed) {
+            queueLock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.await();
+                }
+                if (closed)
+                    return;
+
+                // 첫 쓰기가 들어온 뒤 maxLatency 가 지나거나 배치가 차면 반영한다.
+                long deadline = queue.peekFirst().enqueuedNanos + maxLatencyNanos;
+                long wait;
+                while (queue.size() < maxBatchSize && !closed && (wait = deadline - System.nanoTime()) > 0) {
+                    batchFull.awaitNanos(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                queueLock.unlock();
+            }
+
+            try {
+                writeNextBatch();
+                backoffNanos = maxLatencyNanos;
+            } catch (RuntimeException e) {
+                // 실패한 배치는 큐 앞에 되돌려 두었으므로 쉬는 시간을 늘려 가며 다시 시도한다.
+                backgroundFailure.set(e);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffNanos = Math.min(Math.max(backoffNanos * 2, 1), TimeUnit.MILLISECONDS.toNanos(MAX_BACKOFF_MILLIS));
+            }
+        }
+    }
+
+    /**
+     * 백그라운드 실패가 남아 있으면 던진다. 같은 실패는 한 번만 던진다.
+     */
+    private void throwIfBackgroundFailed() {
+        Exception failure = backgroundFailure.getAndSet(null);
+        if (failure != null)
+            throw new RepositoryException("write-behind 배치 반영 실패", failure);
+    }
+
+    private void writeNextBatch() {
+        flushLock.lock();
+        try {
+            List<Mutation> batch = drain();
+            if (batch.isEmpty())
+                return;
+
+            Map<Integer, Say> lastState = lastState(batch);
+            Set<Integer> createdIds = createdIds(batch);
+            try {
+                batchWriter.write(lastState, createdIds);
+            } catch (SQLException | RuntimeException e) {
+                if (!isDataError(e)) {
+                    requeue(batch);
+                    throw new RepositoryException("write-behind 배치 반영 실패", e);
+                }
+                writeOneByOne(batch, lastState, createdIds);
+                return;
+            }
+            clearPending(batch, lastState.keySet());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 배치 안의 어떤 한 건 때문에 실패했으므로 id 마다 따로 써서 나머지는 반영한다.
+     * 그래도 데이터 때문에 실패하는 것은 버리고, 연결 문제 등으로 실패하면 남은 것을 큐 앞에 되돌린다.
+     */
+    private void writeOneByOne(List<Mutation> batch, Map<Integer, Say> lastState, Set<Integer> createdIds) {
+        Set<Integer> done = new HashSet<>();
+        Map<Integer, Say> dropped = new LinkedHashMap<>();
+        Exception dataError = null;
+        try {
+            for (Map.Entry<Integer, Say> e : lastState.entrySet()) {
+                try {
+                    batchWriter.write(Collections.singletonMap(e.getKey(), e.getValue()),
+                            createdIds.contains(e.getKey()) ? Set.of(e.getKey()) : Set.of());
+                } catch (SQLException | RuntimeException ex) {
+                    if (!isDataError(ex)) {
+                        List<Mutation> rest = batch.stream().filter(m -> !done.contains(m.id)).toList();
+                        requeue(rest);
+                        throw new RepositoryException("write-behind 배치 반영 실패", ex);
+                    }
+                    dropped.put(e.getKey(), e.getValue());
+                    dataError = ex;
+                }
+                done.add(e.getKey());
+            }
+        } finally {
+            // 버린 것도 대기 상태에서 빼서 findById 가 DB 값을 보게 한다.
+            deadLetters.putAll(dropped);
+            clearPending(batch, done);
+        }
+        if (dataError != null)
+            backgroundFailure.set(new RepositoryException("반영하지 못하고 버린 쓰기 id : " + dropped.keySet(), dataError));
+    }
+
+    // 반영하는 사이 같은 id 에 새 쓰기가 들어왔으면 그 값은 남겨둔다.
+    private void clearPending(List<Mutation> batch, Collection<Integer> ids) {
+        for (Mutation m : batch) {
+            if (ids.contains(m.id))
+                pending.remove(m.id, m.say == null ? DELETED : m.say);
+        }
+    }
+
+    /**
+     * 다시 해도 같은 이유로 실패할 오류인지 본다. SQLState 22(데이터 예외)와 23(무결성 제약 위반)만 그렇게 본다.
+     */
+    private static boolean isDataError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sqlException) {
+                String state = sqlException.getSQLState();
+                if (state != null && (state.startsWith("22") || state.startsWith("23")))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Mutation> drain() {
+        queueLock.lock();
+        try {
+            List<Mutation> batch = new ArrayList<>(Math.min(queue.size(), maxBatchSize));
+            while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+                batch.add(queue.pollFirst());
+            }
+            return batch;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void requeue(List<Mutation> batch) {
+        queueLock.lock();
+        try {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                queue.addFirst(batch.get(i));
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * 같은 id 에 대한 여러 쓰기는 마지막 상태 하나로 합친다.
+     * 그러면 id 마다 upsert 또는 delete 중 하나만 남아서 두 배치의 실행 순서가 상관없어진다.
+     */
+    private static Map<Integer, Say> lastState(List<Mutation> batch) {
+        Map<Integer, Say> lastState = new LinkedHashMap<>();
+        for (Mutation m : batch) {
+            lastState.put(m.id, m.say);
+        }
+        return lastState;
+    }
+
+    // 배치 안에서 처음 들어가는 id. 반영 전이라 DB 에 행이 없을 수 있는 것은 이들뿐이다.
+    private static Set<Integer> createdIds(List<Mutation> batch) {
+        Set<Integer> createdIds = new HashSet<>();
+        for (Mutation m : batch) {
+            if (m.created)
+                createdIds.add(m.id);
+        }
+        return createdIds;
+    }
+
+    /**
+     * id → 마지막 상태(null 이면 삭제)를 한 트랜잭션으로 반영한다.
+     * createdIds 만 upsert 하고, 이미 있던 행의 수정은 UPDATE 로 해서 그 사이 지워진 행을 되살리지 않는다.
+     */
+    private static void writeToDb(Map<Integer, Say> lastState, Set<Integer> createdIds) throws SQLException {
+        String upsertSql = "INSERT INTO say (id, content, author) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE content = VALUES(content), author = VALUES(author)";
+        String updateSql = "UPDATE say SET content = ?, author = ? WHERE id = ?";
+        String deleteSql = "DELETE FROM say WHERE id = ?";
+
+        try (Connection conn = DbConnectionUtil.getConnection();
+             PreparedStatement upsert = conn.prepareStatement(upsertSql);
+             PreparedStatement update = conn.prepareStatement(updateSql);
+             PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+
+            conn.setAutoCommit(false);
+            try {
+                boolean hasUpsert = false;
+                boolean hasUpdate = false;
+                boolean hasDelete = false;
+                for (Map.Entry<Integer, Say> e : lastState.entrySet()) {
+                    Say say = e.getValue();
+                    if (say == null) {
+                        delete.setInt(1, e.getKey());
+                        delete.addBatch();
+                        hasDelete = true;
+                    } else if (createdIds.contains(say.getId())) {
+                        upsert.setInt(1, say.getId());
+                        upsert.setString(2, say.getContent());
+                        upsert.setString(3, say.getAuthor());
+                        upsert.addBatch();
+                        hasUpsert = true;
+                    } else {
+                        update.setString(1, say.getContent());
+                        update.setString(2, say.getAuthor());
+                        update.setInt(3, say.getId());
+                        update.addBatch();
+                        hasUpdate = true;
+                    }
+                }
+                if (hasUpsert)
+                    upsert.executeBatch();
+                if (hasUpdate)
+                    update.executeBatch();
+                if (hasDelete)
+                    delete.executeBatch();
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private synchronized int allocateId() {
+        if (nextId >= idLimit) {
+            nextId = idBlockReserver.applyAsInt(idBlockSize);
+            idLimit = nextId + idBlockSize;
+        }
+        return nextId++;
+    }
+
+    /**
+     * id 예약용 테이블과 그 한 줄을 만든다. 이미 있으면 그대로 둔다.
+     */
+    private static void createIdSequenceTable() {
+        try (Connection conn = DbConnectionUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS say_id_seq (id TINYINT PRIMARY KEY, next_id INT NOT NULL)");
+            stmt.execute("INSERT IGNORE INTO say_id_seq (id, next_id) VALUES (1, 1)");
+
+        } catch (SQLException e) {
+            throw new RepositoryException("say_id_seq 테이블 생성 실패", e);
+        }
+    }
+
+    /**
+     * say_id_seq 의 값을 blockSize 만큼 올리고 예약된 구간의 첫 id 를 돌려준다.
+     * 일반 INSERT 로 들어간 행이 있을 수 있으므로 MAX(id) 보다 작은 값은 건너뛴다.
+     * 새 DB 라서 say_id_seq 나 그 한 줄이 없으면 만들고 한 번 더 시도한다.
+     */
+    private static int reserveIdBlock(int blockSize) {
+        try (Connection conn = DbConnectionUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            if (!advanceIdSequence(conn, blockSize)) {
+                createIdSequenceTable();
+                if (!advanceIdSequence(conn, blockSize))
+                    throw new RepositoryException("id 구간 예약 실패 : say_id_seq 를 만들지 못했습니다.");
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                return rs.getInt(1) - blockSize;
+            }
+
+        } catch (SQLException e) {
+            throw new RepositoryException("id 구간 예약 실패", e);
+        }
+    }
+
+    // say_id_seq 를 올린다. 테이블(MySQL 1146)이나 그 한 줄이 없으면 false
+    private static boolean advanceIdSequence(Connection conn, int blockSize) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                UPDATE say_id_seq
+                SET next_id = LAST_INSERT_ID(GREATEST(next_id, (SELECT COALESCE(MAX(id), 0) + 1 FROM say)) + ?)
+                WHERE id = 1
+                """)) {
+            pstmt.setInt(1, blockSize);
+            return pstmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == 1146)
+                return false;
+            throw e;
+        }
+    }
+
+    interface BatchWriter {
+        /**
+         * @param lastState  id → 마지막 상태(null 이면 삭제)
+         * @param createdIds 이 배치에서 등록된 id. 나머지 id 의 상태는 이미 있던 행의 수정이다.
+         */
+        void write(Map<Integer, Say> lastState, Set<Integer> createdIds) throws SQLException;
+    }
+
+    private static class Mutation {
+        private final int id;
+        // null 이면 삭제
+        private final Say say;
+        // create 로 들어온 쓰기
+        private final boolean created;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Mutation(int id, Say say, boolean created) {
+            this.id = id;
+            this.say = say;
+            this.created = created;
+        }
+    }
+}
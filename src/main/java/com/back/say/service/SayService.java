@@ -5,59 +5,127 @@ import com.back.say.dto.PageDto;
 import com.back.say.dto.ResponseSayDto;
 import com.back.say.dto.SayDto;
 import com.back.say.exception.SayNotFoundException;
+import com.back.say.repository.MeteredSayRepository;
 import com.back.say.repository.SayRepository;
 import com.back.say.utils.Pageable;
 import com.back.say.utils.SaySearchCondition;
+import com.back.standard.util.OperationMetrics;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 public class SayService {
+    public enum Operation {
+        CREATE, CREATE_ALL, FIND_BY_ID, FIND_ALL, DELETE, UPDATE, BUILD, GET_PAGE
+    }
+
     private final SayRepository sayRepository;
+    private final OperationMetrics<Operation> metrics = new OperationMetrics<>("SayService", Operation.class);
+    // null 이면 저장소 지표가 없다.
+    private final OperationMetrics<?> repositoryMetrics;
 
+    /**
+     * 저장소가 MeteredSayRepository 면 그 지표도 통계에 함께 보여준다.
+     */
     public SayService(SayRepository sayRepository) {
+        this(sayRepository, sayRepository instanceof MeteredSayRepository metered ? metered.getMetrics() : null);
+    }
+
+    /**
+     * MeteredSayRepository 를 다른 저장소(캐시 등)로 한 번 더 감쌌을 때는 그 지표를 직접 넘긴다.
+     */
+    public SayService(SayRepository sayRepository, OperationMetrics<?> repositoryMetrics) {
         this.sayRepository = sayRepository;
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    public OperationMetrics<Operation> getMetrics() {
+        return metrics;
+    }
+
+    public Optional<OperationMetrics<?>> getRepositoryMetrics() {
+        return Optional.ofNullable(repositoryMetrics);
     }
 
     public int create(SayDto dto) {
+        return timed(Operation.CREATE, () -> {
+            validate(dto);
+            return sayRepository.create(dto);
+        });
+    }
+
+    public List<Integer> createAll(List<SayDto> dtoList) {
+        return timed(Operation.CREATE_ALL, () -> {
+            dtoList.forEach(this::validate);
+            return sayRepository.createAll(dtoList);
+        });
+    }
+
+    private void validate(SayDto dto) {
         if (dto.getAuthor() == null || dto.getAuthor().isBlank())
             throw new IllegalArgumentException("작가는 비어있을 수 없습니다.");
         if (dto.getContent() == null || dto.getContent().isBlank())
             throw new IllegalArgumentException("명언은 비어있을 수 없습니다.");
-
-        return sayRepository.create(dto);
     }
 
     public ResponseSayDto findById(int id) {
-        Optional<Say> result = sayRepository.findById(id);
-        if (result.isEmpty())
-            throw new SayNotFoundException(id);
-        Say say = result.get();
-        return new ResponseSayDto(say.getId(), say.getAuthor(), say.getContent());
+        return timed(Operation.FIND_BY_ID, () -> {
+            Optional<Say> result = sayRepository.findById(id);
+            if (result.isEmpty())
+                throw new SayNotFoundException(id);
+            Say say = result.get();
+            return new ResponseSayDto(say.getId(), say.getAuthor(), say.getContent());
+        });
     }
 
     public List<ResponseSayDto> findAll() {
-        return sayRepository.findAll().stream()
+        return timed(Operation.FIND_ALL, () -> sayRepository.findAll().stream()
                 .map(say->new ResponseSayDto(say.getId(), say.getAuthor(), say.getContent()))
-                .toList();
+                .toList());
     }
 
     public int delete(int id) {
-        int deletedId = sayRepository.delete(id);
-        if (deletedId == -1)
-            throw new SayNotFoundException(id);
-        return deletedId;
+        return timed(Operation.DELETE, () -> {
+            int deletedId = sayRepository.delete(id);
+            if (deletedId == -1)
+                throw new SayNotFoundException(id);
+            return deletedId;
+        });
     }
 
     public int update(int id, SayDto dto) {
-        int updatedId = sayRepository.update(id, dto);
-        if (updatedId == -1)
-            throw new SayNotFoundException(id);
-        return updatedId;
+        return timed(Operation.UPDATE, () -> {
+            int updatedId = sayRepository.update(id, dto);
+            if (updatedId == -1)
+                throw new SayNotFoundException(id);
+            return updatedId;
+        });
     }
 
     public void build() {
-        sayRepository.build();
+        timed(Operation.BUILD, () -> {
+            sayRepository.build();
+            return null;
+        });
+    }
+
+    /**
+     * 걸린 시간은 성공/실패와 상관없이 기록한다.
+     * 없는 번호(SayNotFoundException)나 입력 검증 실패(IllegalArgumentException)는 사용자 입력에 따른 정상 흐름이므로 오류로 세지 않는다.
+     */
+    private <T> T timed(Operation operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (SayNotFoundException | IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.recordError(operation);
+            throw e;
+        } finally {
+            metrics.record(operation, start);
+        }
     }
 
 /*    public List<ResponseSayDto> findByAuthorContains(String keyword, Pageable pageable) {
@@ -75,6 +143,10 @@ public class SayService {
     }*/
 
     public PageDto<ResponseSayDto> getPage(String keywordType, String keyword, Pageable pageable) {
+        return timed(Operation.GET_PAGE, () -> findPage(keywordType, keyword, pageable));
+    }
+
+    private PageDto<ResponseSayDto> findPage(String keywordType, String keyword, Pageable pageable) {
         SaySearchCondition cond;
 
         if (keyword == null || keyword.isBlank()) {
@@ -96,7 +168,8 @@ public class SayService {
         return new PageDto<>(dtoList,
                 page.getPageNo(),
                 page.getPageSize(),
-                page.getTotalCount());
+                page.getTotalCount(),
+                page.getNextCursor());
     }
     private List<ResponseSayDto> findRecentTop5() {
         return findAll();
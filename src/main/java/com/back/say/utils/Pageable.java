@@ -3,6 +3,8 @@ package com.back.say.utils;
 public class Pageable {
     private final int pageNo;
     private final int pageSize;
+    // 키셋 페이징용 커서 : 이전 페이지에서 마지막으로 본 id. null 이면 OFFSET 방식
+    private final Integer cursor;
 
     public int getPageNo() {
         return pageNo;
@@ -12,9 +14,22 @@ public class Pageable {
         return pageSize;
     }
 
+    public Integer getCursor() {
+        return cursor;
+    }
+
+    public boolean hasCursor() {
+        return cursor != null;
+    }
+
     public Pageable(int pageNo, int pageSize) {
+        this(pageNo, pageSize, null);
+    }
+
+    public Pageable(int pageNo, int pageSize, Integer cursor) {
         this.pageNo = pageNo;
         this.pageSize = pageSize;
+        this.cursor = cursor;
     }
 
     public int getOffset() {
@@ -1,5 +1,7 @@
 package com.back.say.utils;
 
+import com.back.say.domain.Say;
+
 public class SaySearchCondition {
     private final String authorContains;
     private final String contentContains;
@@ -23,4 +25,14 @@ public class SaySearchCondition {
     public boolean hasContentCondition() {
         return contentContains != null && !contentContains.isBlank();
     }
+
+    public boolean matches(Say say) {
+        if (hasAuthorCondition() && hasContentCondition())
+            return say.getAuthor().contains(authorContains) || say.getContent().contains(contentContains);
+        if (hasAuthorCondition())
+            return say.getAuthor().contains(authorContains);
+        if (hasContentCondition())
+            return say.getContent().contains(contentContains);
+        return true;
+    }
 }
@@ -0,0 +1,398 @@
+package com.back.standard.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 최소/최대 크기가 정해진 JDBC 커넥션 풀.
+ * borrow() 로 받은 Connection 의 close() 는 실제 연결을 닫지 않고 풀에 반납한다.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long validationBypassMillis;
+    private final int validationTimeoutSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int totalCount;
+    private boolean closed;
+
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong validationFailCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis,
+                          long validationBypassMillis, int validationTimeoutSeconds) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize)
+            throw new IllegalArgumentException("풀 크기 설정이 잘못되었습니다. min=" + minSize + ", max=" + maxSize);
+
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationBypassMillis = validationBypassMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(idleTimeoutMillis / 2, 1000);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed)
+                        throw new SQLException("커넥션 풀이 종료되었습니다.");
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pollFirst();
+                        break;
+                    }
+                    if (totalCount < maxSize) {
+                        totalCount++;
+                        create = true;
+                        break;
+                    }
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        throw new SQLException("커넥션 대기 시간 초과 (" + borrowTimeoutMillis + "ms)");
+                    }
+                    try {
+                        remaining = released.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("커넥션 대기 중 인터럽트", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // 연결 생성/검증은 네트워크 왕복이 있으므로 락 밖에서 한다.
+            if (create) {
+                try {
+                    candidate = new PooledConnection(DriverManager.getConnection(url, username, password));
+                    createdCount.incrementAndGet();
+                } catch (SQLException | RuntimeException e) {
+                    discardSlot();
+                    throw e;
+                }
+            } else if (!isAlive(candidate)) {
+                validationFailCount.incrementAndGet();
+                closeQuietly(candidate.physical);
+                discardSlot();
+                remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis) - (System.nanoTime() - start);
+                continue;
+            }
+
+            recordWait(System.nanoTime() - start);
+            borrowCount.incrementAndGet();
+            return candidate.lease();
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(totalCount - idle.size(), idle.size(),
+                    borrowCount.get(), createdCount.get(), timeoutCount.get(),
+                    validationFailCount.get(), evictedCount.get(),
+                    totalWaitNanos.get(), maxWaitNanos.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        evictor.shutdownNow();
+        lock.lock();
+        try {
+            closed = true;
+            for (PooledConnection pc : idle) {
+                closeQuietly(pc.physical);
+                totalCount--;
+            }
+            idle.clear();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isAlive(PooledConnection pc) {
+        if (System.currentTimeMillis() - pc.lastUsedMillis < validationBypassMillis)
+            return true;
+        try {
+            return pc.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void giveBack(PooledConnection pc) {
+        boolean reusable;
+        try {
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            reusable = !pc.physical.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                pc.lastUsedMillis = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            } else {
+                closeQuietly(pc.physical);
+                totalCount--;
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discardSlot() {
+        lock.lock();
+        try {
+            totalCount--;
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        int missing;
+        lock.lock();
+        try {
+            // 가장 오래 쉬고 있는 연결은 덱의 뒤쪽에 있다.
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalCount > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsedMillis < idleTimeoutMillis)
+                    break;
+                it.remove();
+                closeQuietly(pc.physical);
+                totalCount--;
+                evictedCount.incrementAndGet();
+            }
+            missing = closed ? 0 : minSize - totalCount;
+            totalCount += Math.max(missing, 0);
+        } finally {
+            lock.unlock();
+        }
+
+        // 최소 크기 아래로 내려가 있으면 미리 채워둔다.
+        for (int i = 0; i < missing; i++) {
+            try {
+                PooledConnection pc = new PooledConnection(DriverManager.getConnection(url, username, password));
+                createdCount.incrementAndGet();
+                giveBack(pc);
+            } catch (SQLException e) {
+                for (int j = i; j < missing; j++)
+                    discardSlot();
+                return;
+            }
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean returned;
+
+        private LeaseHandler(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pc);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || pc.physical.isClosed();
+                }
+                case "unwrap" -> {
+                    // 실제 연결을 내주면 반납한 뒤에도 쓰거나 닫아버릴 수 있으므로 프록시만 돌려준다.
+                    Class<?> iface = (Class<?>) args[0];
+                    if (iface.isInstance(proxy))
+                        return proxy;
+                    throw new SQLException("풀 커넥션은 " + iface.getName() + " 로 꺼낼 수 없습니다.");
+                }
+                case "isWrapperFor" -> {
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                }
+                case "equals", "hashCode", "toString" -> {
+                    // 아래에서 처리
+                }
+                default -> {
+                    if (returned)
+                        throw new SQLException("이미 풀에 반납된 커넥션입니다.");
+                }
+            }
+            try {
+                if (method.getDeclaringClass() == Object.class) {
+                    return switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        default -> "Pooled[" + pc.physical + "]";
+                    };
+                }
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static class Stats {
+        private final int active;
+        private final int idle;
+        private final long borrowCount;
+        private final long createdCount;
+        private final long timeoutCount;
+        private final long validationFailCount;
+        private final long evictedCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        public Stats(int active, int idle, long borrowCount, long createdCount, long timeoutCount,
+                     long validationFailCount, long evictedCount, long totalWaitNanos, long maxWaitNanos) {
+            this.active = active;
+            this.idle = idle;
+            this.borrowCount = borrowCount;
+            this.createdCount = createdCount;
+            this.timeoutCount = timeoutCount;
+            this.validationFailCount = validationFailCount;
+            this.evictedCount = evictedCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public long getBorrowCount() {
+            return borrowCount;
+        }
+
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public long getValidationFailCount() {
+            return validationFailCount;
+        }
+
+        public long getEvictedCount() {
+            return evictedCount;
+        }
+
+        public long getAvgWaitNanos() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / borrowCount;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "active=" + active + ", idle=" + idle + ", borrow=" + borrowCount
+                    + ", created=" + createdCount + ", timeout=" + timeoutCount
+                    + ", validationFail=" + validationFailCount + ", evicted=" + evictedCount
+                    + ", avgWaitNs=" + getAvgWaitNanos() + ", maxWaitNs=" + maxWaitNanos;
+        }
+    }
+}
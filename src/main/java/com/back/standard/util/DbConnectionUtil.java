@@ -1,28 +1,42 @@
 package com.back.standard.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 //docker exec -it mysql-1 mysql -u USERNAME -pPASSWORD
 public class DbConnectionUtil {
-    private static final String URL = "jdbc:mysql://localhost:3306/wise_saying";
+    private static final String URL = "jdbc:mysql://localhost:3306/wise_saying?rewriteBatchedStatements=true";
     private static final String USERNAME = "root";
     private static final String PASSWORD = "lldj123414";
 
+    // 풀 설정은 -Ddb.pool.maxSize=20 처럼 시스템 프로퍼티로 바꿀 수 있다.
+    private static final ConnectionPool POOL;
+
     static {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
         } catch (ClassNotFoundException e) {
             throw new RuntimeException("MySQL Driver 로딩 실패", e);
         }
+
+        POOL = new ConnectionPool(URL, USERNAME, PASSWORD,
+                Integer.getInteger("db.pool.minSize", 1),
+                Integer.getInteger("db.pool.maxSize", 10),
+                Long.getLong("db.pool.idleTimeoutMs", 60_000L),
+                Long.getLong("db.pool.borrowTimeoutMs", 3_000L),
+                Long.getLong("db.pool.validationBypassMs", 500L),
+                Integer.getInteger("db.pool.validationTimeoutSec", 2));
     }
 
     public static Connection getConnection() {
         try {
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
+            return POOL.borrow();
         } catch (SQLException e) {
             throw new RuntimeException("DB 연결 실패", e);
         }
     }
+
+    public static ConnectionPool.Stats getPoolStats() {
+        return POOL.getStats();
+    }
 }
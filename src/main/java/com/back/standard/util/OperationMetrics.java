@@ -0,0 +1,92 @@
+package com.back.standard.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 연산(enum)별 지연시간 히스토그램과 오류 횟수.
+ * 연산은 ordinal 로 배열에 바로 접근하므로 기록할 때 맵 조회나 할당이 없다.
+ */
+public class OperationMetrics<E extends Enum<E>> {
+    private final String name;
+    private final E[] operations;
+    private final LatencyHistogram[] histograms;
+    private final AtomicLongArray errorCounts;
+    private final long createdNanos = System.nanoTime();
+
+    public OperationMetrics(String name, Class<E> operationType) {
+        this.name = name;
+        this.operations = operationType.getEnumConstants();
+        this.histograms = new LatencyHistogram[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        this.errorCounts = new AtomicLongArray(operations.length);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(E operation, long startNanos) {
+        histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError(E operation) {
+        errorCounts.incrementAndGet(operation.ordinal());
+    }
+
+    public List<Snapshot> snapshot() {
+        double elapsedSeconds = Math.max(System.nanoTime() - createdNanos, 1) / 1e9;
+        List<Snapshot> result = new ArrayList<>(operations.length);
+        for (E operation : operations) {
+            LatencyHistogram.Snapshot latency = histograms[operation.ordinal()].snapshot();
+            result.add(new Snapshot(name, operation.name(), latency,
+                    errorCounts.get(operation.ordinal()), latency.getCount() / elapsedSeconds));
+        }
+        return result;
+    }
+
+    public static class Snapshot {
+        private final String name;
+        private final String operation;
+        private final LatencyHistogram.Snapshot latency;
+        private final long errorCount;
+        private final double throughputPerSecond;
+
+        public Snapshot(String name, String operation, LatencyHistogram.Snapshot latency, long errorCount, double throughputPerSecond) {
+            this.name = name;
+            this.operation = operation;
+            this.latency = latency;
+            this.errorCount = errorCount;
+            this.throughputPerSecond = throughputPerSecond;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public double getThroughputPerSecond() {
+            return throughputPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return name + "." + operation + " : " + latency + ", errors=" + errorCount
+                    + ", ops/s=" + String.format("%.1f", throughputPerSecond);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.back.standard.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * SQL 실행 시간 기록기.
+ * 꺼져 있으면 start()/record() 는 아무 일도 하지 않는다. (기본값)
+ * 켜져 있으면 slowThreshold 이상 걸린 문장만 큐에 넣고, 별도 스레드가 초당 maxPerSecond 건까지만 sink 로 내보낸다.
+ * 큐가 가득 차거나 초당 한도를 넘은 기록은 버리고 개수만 센다.
+ *
+ * -Dsql.log.enabled=true -Dsql.log.slowMs=100 -Dsql.log.maxPerSec=20 으로 켤 수 있다.
+ */
+public class SqlTimingLogger {
+    private static final SqlTimingLogger DISABLED = new SqlTimingLogger();
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final int maxPerSecond;
+    private final Consumer<String> sink;
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private SqlTimingLogger() {
+        enabled = false;
+        slowThresholdNanos = Long.MAX_VALUE;
+        maxPerSecond = 0;
+        sink = null;
+        queue = null;
+    }
+
+    public SqlTimingLogger(long slowThresholdMillis, int maxPerSecond, Consumer<String> sink) {
+        this.enabled = true;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.maxPerSecond = maxPerSecond;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(1024);
+
+        Thread writer = new Thread(this::drainLoop, "sql-timing-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static SqlTimingLogger disabled() {
+        return DISABLED;
+    }
+
+    public static SqlTimingLogger fromSystemProperties() {
+        if (!Boolean.getBoolean("sql.log.enabled"))
+            return DISABLED;
+        return new SqlTimingLogger(
+                Long.getLong("sql.log.slowMs", 0L),
+                Integer.getInteger("sql.log.maxPerSec", 20),
+                System.err::println);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param rows 조회 결과 행 수 또는 반영된 행 수. 알 수 없으면 -1
+     */
+    public void record(String sql, int bindCount, int rows, long startNanos) {
+        if (!enabled)
+            return;
+        long elapsed = System.nanoTime() - startNanos;
+        if (elapsed < slowThresholdNanos)
+            return;
+        if (!queue.offer(new Entry(sql, bindCount, rows, elapsed)))
+            droppedCount.incrementAndGet();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void drainLoop() {
+        long windowStart = System.nanoTime();
+        int writtenInWindow = 0;
+        long reportedDropped = 0;
+
+        while (true) {
+            Entry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStart = now;
+                writtenInWindow = 0;
+            }
+            if (writtenInWindow >= maxPerSecond) {
+                droppedCount.incrementAndGet();
+                continue;
+            }
+            writtenInWindow++;
+
+            long dropped = droppedCount.get();
+            String suffix = dropped > reportedDropped ? " (생략 " + (dropped - reportedDropped) + "건)" : "";
+            reportedDropped = dropped;
+            sink.accept(entry.format() + suffix);
+        }
+    }
+
+    private record Entry(String sql, int bindCount, int rows, long elapsedNanos) {
+        private String format() {
+            return "[sql] " + (elapsedNanos / 1_000) + "us, binds=" + bindCount + ", rows=" + rows + " : " + sql;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.back.say.controller;
 
 import com.back.say.repository.InMemorySayRepository;
+import com.back.say.repository.MeteredSayRepository;
 import com.back.say.repository.SayRepository;
 import com.back.say.service.SayService;
 import com.back.standard.util.TestUtil;
@@ -438,4 +439,84 @@ public abstract class AbstractSayControllerTest {
                 .contains("1 / 작자미상 1 / 명언 1")
                 .contains("페이지 : 1 / [2]");
     }
+
+    @Test
+    @DisplayName("목록?cursor=8")
+    void t15() {
+        //given
+        String input = makeSampleData() + """
+                목록?cursor=8
+                종료
+                """;
+        Scanner sc = TestUtil.genScanner(input);
+        SayController controller = createControllerWithInput(sc);
+
+        //when
+        controller.run();
+
+        //then
+        String output = getOutput();
+        assertThat(output)
+                .doesNotContain("8 / 작자미상 8 / 명언 8")
+                .contains("7 / 작자미상 7 / 명언 7")
+                .contains("6 / 작자미상 6 / 명언 6")
+                .contains("5 / 작자미상 5 / 명언 5")
+                .contains("4 / 작자미상 4 / 명언 4")
+                .contains("3 / 작자미상 3 / 명언 3")
+                .doesNotContain("2 / 작자미상 2 / 명언 2")
+                .contains("다음 페이지 : 목록?cursor=3");
+    }
+
+    @Test
+    @DisplayName("목록?cursor=3 : 마지막 페이지에서는 다음 커서가 없다.")
+    void t16() {
+        //given
+        String input = makeSampleData() + """
+                목록?cursor=3
+                종료
+                """;
+        Scanner sc = TestUtil.genScanner(input);
+        SayController controller = createControllerWithInput(sc);
+
+        //when
+        controller.run();
+
+        //then
+        String output = getOutput();
+        assertThat(output)
+                .contains("2 / 작자미상 2 / 명언 2")
+                .contains("1 / 작자미상 1 / 명언 1")
+                .doesNotContain("3 / 작자미상 3 / 명언 3")
+                .doesNotContain("다음 페이지");
+    }
+
+    @Test
+    @DisplayName("통계 : 서비스와 저장소 지표를 함께 보여주고, 없는 번호는 오류로 세지 않는다.")
+    void t17() {
+        //given
+        String input = """
+                등록
+                현재를 사랑하라.
+                작자미상
+                삭제?id=100
+                통계
+                종료
+                """;
+        SayRepository repository = createRepository();
+        SayService service = new SayService(new MeteredSayRepository(repository));
+        SayController controller = new SayController(service, TestUtil.genScanner(input));
+
+        //when
+        controller.run();
+
+        //then
+        String output = getOutput();
+        assertThat(output)
+                .contains("100번 명언은 존재하지 않습니다.")
+                .contains("SayService.CREATE : ")
+                .contains("SayService.FIND_BY_ID : ")
+                .contains(repository.getClass().getSimpleName() + ".CREATE : ")
+                .contains(repository.getClass().getSimpleName() + ".FIND_BY_ID : ")
+                .doesNotContain("errors=1");
+    }
 }
@@ -0,0 +1,13 @@
+package com.back.say.controller;
+
+import com.back.say.repository.CachingSayRepository;
+import com.back.say.repository.InMemorySayRepository;
+import com.back.say.repository.SayRepository;
+
+public class CachingSayControllerTest extends AbstractSayControllerTest {
+
+    @Override
+    protected SayRepository createRepository() {
+        return new CachingSayRepository(new InMemorySayRepository());
+    }
+}
@@ -0,0 +1,12 @@
+package com.back.say.controller;
+
+import com.back.say.repository.InMemorySayRepository;
+import com.back.say.repository.SayRepository;
+
+public class NgramInMemorySayControllerTest extends AbstractSayControllerTest{
+
+    @Override
+    protected SayRepository createRepository() {
+        return new InMemorySayRepository(false, true);
+    }
+}
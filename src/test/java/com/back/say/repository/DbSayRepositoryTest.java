@@ -0,0 +1,156 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.SayDto;
+import com.back.standard.util.DbConnectionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DbSayControllerTest 와 같은 로컬 MySQL 의 say 테이블을 쓴다.
+ */
+public class DbSayRepositoryTest {
+    private final DbSayRepository repository = new DbSayRepository();
+
+    @BeforeAll
+    static void beforeAll() {
+        try (Connection conn = DbConnectionUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DROP TABLE IF EXISTS say");
+            stmt.execute("""
+                    CREATE TABLE say (
+                        id INT AUTO_INCREMENT PRIMARY KEY,
+                        content VARCHAR(255) NOT NULL,
+                        author VARCHAR(255) NOT NULL
+                    )
+                    """);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("테스트 DB 초기화 실패", e);
+        }
+    }
+
+    @BeforeEach
+    void clearDbBeforeEach() {
+        clearTable();
+    }
+
+    @AfterEach
+    void clearDbAfterEach() {
+        clearTable();
+    }
+
+    private void clearTable() {
+        try (Connection conn = DbConnectionUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("TRUNCATE TABLE say");
+            stmt.execute("ALTER TABLE say AUTO_INCREMENT = 1");
+
+        } catch (SQLException e) {
+            throw new RuntimeException("clearTable 테스트용 DB 초기화 실패", e);
+        }
+    }
+
+    private static List<SayDto> sampleDtos(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new SayDto("작가" + i, "명언 " + i))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("createAll : 배치 크기(1000)를 여러 번 넘겨도 입력 순서대로 연속된 id 를 돌려주고 모두 저장한다.")
+    public void t1() {
+        List<SayDto> dtoList = sampleDtos(2_500);
+
+        List<Integer> ids = repository.createAll(dtoList);
+
+        assertThat(ids).hasSize(2_500);
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isEqualTo(ids.get(i - 1) + 1);
+        }
+        assertThat(repository.findAll()).hasSize(2_500);
+        assertThat(repository.findById(ids.get(1_234)).get()).isEqualTo(new Say(ids.get(1_234), "작가1235", "명언 1235"));
+    }
+
+    @Test
+    @DisplayName("createAll : 빈 목록이면 DB 에 가지 않고 빈 목록을 돌려준다.")
+    public void t2() {
+        assertThat(repository.createAll(List.of())).isEmpty();
+        assertThat(repository.findAll()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("createAll : 두 번째 배치에서 실패하면 앞 배치까지 모두 롤백하고, 반납한 커넥션은 autoCommit 으로 돌아간다.")
+    public void t3() throws Exception {
+        List<SayDto> dtoList = new ArrayList<>(sampleDtos(1_500));
+        // VARCHAR(255) 를 넘는 내용
+        dtoList.set(1_200, new SayDto("작가", "명".repeat(300)));
+
+        RuntimeException failure = null;
+        try {
+            repository.createAll(dtoList);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        assertThat(failure).isNotNull();
+        assertThat(repository.findAll()).isEmpty();
+        try (Connection conn = DbConnectionUtil.getConnection()) {
+            assertThat(conn.getAutoCommit()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("streamAll : 끝까지 읽지 않고 닫아도 커넥션을 풀에 돌려주므로 풀 크기보다 많이 열고 닫을 수 있다.")
+    public void t4() {
+        repository.createAll(sampleDtos(30));
+        int activeBefore = DbConnectionUtil.getPoolStats().getActive();
+
+        for (int i = 0; i < 3 * Integer.getInteger("db.pool.maxSize", 10); i++) {
+            try (Stream<Say> stream = repository.streamAll()) {
+                assertThat(stream.limit(2).map(Say::getId).toList()).containsExactly(30, 29);
+            }
+        }
+
+        assertThat(DbConnectionUtil.getPoolStats().getActive()).isEqualTo(activeBefore);
+    }
+
+    @Test
+    @DisplayName("streamAll : 읽는 도중 예외가 나도 try-with-resources 로 닫으면 커넥션을 돌려주고, 끝까지 읽으면 findAll 과 같다.")
+    public void t5() {
+        repository.createAll(sampleDtos(30));
+        int activeBefore = DbConnectionUtil.getPoolStats().getActive();
+
+        RuntimeException failure = null;
+        try (Stream<Say> stream = repository.streamAll()) {
+            stream.forEach(say -> {
+                if (say.getId() == 20)
+                    throw new IllegalStateException("중간 실패");
+            });
+        } catch (IllegalStateException e) {
+            failure = e;
+        }
+        assertThat(failure).isNotNull();
+        assertThat(DbConnectionUtil.getPoolStats().getActive()).isEqualTo(activeBefore);
+
+        try (Stream<Say> stream = repository.streamAll()) {
+            assertThat(stream.toList()).isEqualTo(repository.findAll());
+        }
+        assertThat(DbConnectionUtil.getPoolStats().getActive()).isEqualTo(activeBefore);
+    }
+}
@@ -0,0 +1,188 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileSayRepositoryV1Test {
+    private static FileSayRepositoryV1 open(Path dir) {
+        return new FileSayRepositoryV1(dir, DurabilityPolicy.none());
+    }
+
+    private static Path manifest(Path dir) {
+        return dir.resolve("manifest.log");
+    }
+
+    // manifest 보다 늦게 수정된 것으로 보이게 해서 시작할 때 다시 읽히도록 한다.
+    private static void touchAfterManifest(Path dir, Path file) throws Exception {
+        FileTime manifestTime = Files.getLastModifiedTime(manifest(dir));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(manifestTime.toMillis() + 1000));
+    }
+
+    @Test
+    @DisplayName("다시 열면 manifest 로 같은 목록을 만들고, 페이지와 스트림도 id 역순으로 파일에서 읽는다.")
+    public void t1() throws Exception {
+        Path dir = Files.createTempDirectory("file-v1");
+        FileSayRepositoryV1 repository = open(dir);
+        for (int i = 1; i <= 30; i++) {
+            repository.create(new SayDto("작가" + (i % 3), "명언 " + i));
+        }
+        repository.update(7, new SayDto("수정", "수정된 명언"));
+        repository.delete(10);
+        repository.delete(20);
+
+        FileSayRepositoryV1 reopened = open(dir);
+        List<Say> all = reopened.findAll();
+        assertThat(all).isEqualTo(repository.findAll());
+        assertThat(all).hasSize(28);
+        assertThat(all.get(0).getId()).isEqualTo(30);
+        assertThat(reopened.findById(7).get()).isEqualTo(new Say(7, "수정", "수정된 명언"));
+        assertThat(reopened.findById(10)).isEmpty();
+        try (Stream<Say> stream = reopened.streamAll()) {
+            assertThat(stream.toList()).isEqualTo(all);
+        }
+
+        PageDto<Say> page = reopened.findPage(new SaySearchCondition(null, null), new Pageable(2, 5));
+        assertThat(page.getTotalCount()).isEqualTo(28);
+        assertThat(page.getContent()).isEqualTo(all.subList(5, 10));
+        assertThat(page.getNextCursor()).isEqualTo(all.get(9).getId());
+
+        List<Say> matched = all.stream().filter(say -> say.getAuthor().equals("작가1")).toList();
+        PageDto<Say> searched = reopened.findPage(new SaySearchCondition("작가1", null), new Pageable(2, 3));
+        assertThat(searched.getTotalCount()).isEqualTo(matched.size());
+        assertThat(searched.getContent()).isEqualTo(matched.subList(3, 6));
+
+        PageDto<Say> afterCursor = reopened.findPage(new SaySearchCondition(null, null), new Pageable(1, 4, 21));
+        assertThat(afterCursor.getContent().stream().map(Say::getId).toList()).isEqualTo(List.of(19, 18, 17, 16));
+        assertThat(afterCursor.getNextCursor()).isEqualTo(16);
+    }
+
+    @Test
+    @DisplayName("목록은 메모리가 아니라 파일에서 읽으므로 파일을 바꾸면 바로 보인다.")
+    public void t2() throws Exception {
+        Path dir = Files.createTempDirectory("file-v1");
+        FileSayRepositoryV1 repository = open(dir);
+        int id = repository.create(new SayDto("작가", "명언"));
+
+        Files.writeString(dir.resolve(id + ".json"), "{\"id\":%d,\"author\":\"작가\",\"content\":\"바뀐 명언\"}".formatted(id), UTF_8);
+
+        assertThat(repository.findById(id).get().getContent()).isEqualTo("바뀐 명언");
+        assertThat(repository.findAll()).containsExactly(new Say(id, "작가", "바뀐 명언"));
+    }
+
+    @Test
+    @DisplayName("manifest 에 적고 파일을 쓰기 전에 죽었으면, 없거나 잘린 파일을 manifest 로 다시 쓴다.")
+    public void t3() throws Exception {
+        Path dir = Files.createTempDirectory("file-v1");
+        FileSayRepositoryV1 crashed = open(dir);
+        crashed.create(new SayDto("작가1", "명언1"));
+        crashed.create(new SayDto("작가2", "명언2"));
+        crashed.create(new SayDto("작가3", "명언3"));
+
+        Files.delete(dir.resolve("2.json"));
+        Path torn = dir.resolve("3.json");
+        Files.writeString(torn, "{\"id\":3,\"auth", UTF_8);
+        touchAfterManifest(dir, torn);
+
+        FileSayRepositoryV1 reopened = open(dir);
+        assertThat(reopened.findAll()).containsExactly(
+                new Say(3, "작가3", "명언3"), new Say(2, "작가2", "명언2"), new Say(1, "작가1", "명언1"));
+        assertThat(Files.exists(dir.resolve("2.json"))).isTrue();
+        assertThat(reopened.create(new SayDto("작가4", "명언4"))).isGreaterThan(3);
+    }
+
+    @Test
+    @DisplayName("manifest 에 삭제로 남은 id 의 파일은 지우다 만 것이므로 지우고, manifest 에 없는 파일은 읽어서 manifest 에 올린다.")
+    public void t4() throws Exception {
+        Path dir = Files.createTempDirectory("file-v1");
+        FileSayRepositoryV1 crashed = open(dir);
+        crashed.create(new SayDto("작가1", "명언1"));
+        crashed.create(new SayDto("작가2", "명언2"));
+        Path deleted = dir.resolve("1.json");
+        byte[] leftover = Files.readAllBytes(deleted);
+        crashed.delete(1);
+        Files.write(deleted, leftover);
+        Path added = dir.resolve("5.json");
+        Files.writeString(added, "{\"id\":5,\"author\":\"작가5\",\"content\":\"명언5\"}", UTF_8);
+        touchAfterManifest(dir, added);
+
+        FileSayRepositoryV1 reopened = open(dir);
+        assertThat(reopened.findAll()).containsExactly(new Say(5, "작가5", "명언5"), new Say(2, "작가2", "명언2"));
+        assertThat(Files.exists(deleted)).isFalse();
+
+        // 올린 파일이 manifest 에도 남았는지 파일을 지우고 다시 열어 본다.
+        Files.delete(added);
+        assertThat(open(dir).findById(5).get()).isEqualTo(new Say(5, "작가5", "명언5"));
+    }
+
+    @Test
+    @DisplayName("manifest 가 없으면 모든 파일을 읽어 새로 만들고, build 는 살아 있는 것만 남겨 manifest 를 다시 쓴다.")
+    public void t5() throws Exception {
+        Path dir = Files.createTempDirectory("file-v1");
+        FileSayRepositoryV1 repository = open(dir);
+        for (int i = 1; i <= 100; i++) {
+            repository.create(new SayDto("작가" + i, "명언 " + i));
+        }
+        for (int i = 1; i <= 100; i += 2) {
+            repository.delete(i);
+        }
+        List<Say> expected = repository.findAll();
+        Files.delete(manifest(dir));
+
+        FileSayRepositoryV1 rebuilt = open(dir);
+        assertThat(rebuilt.findAll()).isEqualTo(expected);
+        assertThat(Files.exists(manifest(dir))).isTrue();
+
+        rebuilt.update(2, new SayDto("수정", "수정"));
+        rebuilt.build();
+        assertThat(Files.exists(dir.resolve("manifest.log.tmp"))).isFalse();
+        List<Say> afterBuild = open(dir).findAll();
+        assertThat(afterBuild).hasSize(50);
+        assertThat(afterBuild.get(49)).isEqualTo(new Say(2, "수정", "수정"));
+    }
+
+    @Test
+    @DisplayName("검색은 manifest 레코드로 조건을 맞춰 보고 결과 페이지의 파일만 연다. 다시 열거나 build 한 뒤에도 같다.")
+    public void t6() throws Exception {
+        Path dir = Files.createTempDirectory("file-v1");
+        FileSayRepositoryV1 repository = open(dir);
+        for (int i = 1; i <= 10; i++) {
+            repository.create(new SayDto("작가" + i, i % 2 == 0 ? "짝수 명언 " + i : "홀수 명언 " + i));
+        }
+        repository.update(2, new SayDto("작가2", "고친 명언 2"));
+
+        FileSayRepositoryV1 reopened = open(dir);
+        reopened.build();
+        reopened.update(10, new SayDto("작가10", "짝수 명언 10 고침"));
+
+        // 이번 페이지에 들지 않는 파일은 열면 깨진 것으로 읽힌다.
+        for (int id = 1; id <= 6; id++) {
+            Files.writeString(dir.resolve(id + ".json"), "{", UTF_8);
+        }
+
+        SaySearchCondition cond = new SaySearchCondition(null, "짝수");
+        PageDto<Say> page = reopened.findPage(cond, new Pageable(1, 2));
+        assertThat(page.getTotalCount()).isEqualTo(4);
+        assertThat(page.getContent()).containsExactly(new Say(10, "작가10", "짝수 명언 10 고침"), new Say(8, "작가8", "짝수 명언 8"));
+        assertThat(page.getNextCursor()).isEqualTo(8);
+
+        // 파일이 깨진 id 가 페이지에 들면 건수를 센 manifest 레코드로 채운다.
+        PageDto<Say> afterCursor = reopened.findPage(cond, new Pageable(2, 2, 8));
+        assertThat(afterCursor.getContent()).containsExactly(new Say(6, "작가6", "짝수 명언 6"), new Say(4, "작가4", "짝수 명언 4"));
+        assertThat(afterCursor.getNextCursor()).isNull();
+        assertThat(reopened.findPage(new SaySearchCondition("작가1", null), new Pageable(1, 5)).getTotalCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,167 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.exception.RepositoryException;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileSayRepositoryV2Test {
+    private static FileSayRepositoryV2 open(Path dir) {
+        return new FileSayRepositoryV2(dir, DurabilityPolicy.none(), false, true);
+    }
+
+    private static Path log(Path dir) {
+        return dir.resolve("data.log");
+    }
+
+    // findAll 은 최근 5건만 돌려주므로 전체 비교는 streamAll 로 한다.
+    private static List<Say> all(FileSayRepositoryV2 repository) {
+        try (Stream<Say> stream = repository.streamAll()) {
+            return stream.toList();
+        }
+    }
+
+    private static Path checkpoint(Path dir) {
+        return dir.resolve("data.ckpt");
+    }
+
+    @Test
+    @DisplayName("다시 열면 data.json 위에 로그를 재생해서 생성/수정/삭제가 모두 보이고, n-gram 검색도 재생된 내용으로 찾는다.")
+    public void t1() throws Exception {
+        Path dir = Files.createTempDirectory("file-v2");
+        FileSayRepositoryV2 repository = open(dir);
+        int first = repository.create(new SayDto("작가1", "로그에만 있는 명언"));
+        int second = repository.create(new SayDto("작가2", "지워질 명언"));
+        List<Integer> ids = repository.createAll(List.of(new SayDto("작가3", "명언3"), new SayDto("작가4", "명언4")));
+        repository.update(first, new SayDto("작가1", "로그에서 고친 명언"));
+        repository.delete(second);
+        assertThat(Files.size(log(dir))).isGreaterThan(0L);
+
+        FileSayRepositoryV2 reopened = open(dir);
+        List<Say> replayed = all(reopened);
+        assertThat(replayed).isEqualTo(all(repository));
+        assertThat(reopened.findById(first).get()).isEqualTo(new Say(first, "작가1", "로그에서 고친 명언"));
+        assertThat(reopened.findById(second)).isEmpty();
+        assertThat(reopened.findById(ids.get(1)).get()).isEqualTo(new Say(ids.get(1), "작가4", "명언4"));
+
+        PageDto<Say> searched = reopened.findPage(new SaySearchCondition(null, "고친"), new Pageable(1, 5));
+        assertThat(searched.getContent()).containsExactly(new Say(first, "작가1", "로그에서 고친 명언"));
+        assertThat(reopened.findPage(new SaySearchCondition(null, "지워질"), new Pageable(1, 5)).getTotalCount()).isEqualTo(0);
+
+        // 로그에만 있던 id 까지 보고 발급하므로 겹치지 않는다.
+        assertThat(reopened.create(new SayDto("작가5", "명언5"))).isGreaterThan(ids.get(1));
+    }
+
+    @Test
+    @DisplayName("로그 끝에 쓰다 만 레코드가 있으면 그 앞까지만 재생하고 잘라내서, 이후 쓰기도 다시 열 때 재생된다.")
+    public void t2() throws Exception {
+        Path dir = Files.createTempDirectory("file-v2");
+        FileSayRepositoryV2 crashed = open(dir);
+        int id = crashed.create(new SayDto("작가", "명언"));
+        List<Say> expected = all(crashed);
+        long intactSize = Files.size(log(dir));
+
+        // 길이는 100 이라고 적었지만 본문은 일부만 쓰고 죽은 레코드
+        try (FileChannel channel = FileChannel.open(log(dir), APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(100).putInt(0).putInt(7).flip());
+        }
+
+        FileSayRepositoryV2 reopened = open(dir);
+        assertThat(all(reopened)).isEqualTo(expected);
+        assertThat(Files.size(log(dir))).isEqualTo(intactSize);
+
+        int next = reopened.create(new SayDto("작가", "잘린 뒤에 쓴 명언"));
+        reopened.delete(id);
+
+        FileSayRepositoryV2 again = open(dir);
+        assertThat(again.findById(id)).isEmpty();
+        assertThat(again.findById(next).get()).isEqualTo(new Say(next, "작가", "잘린 뒤에 쓴 명언"));
+        assertThat(all(again)).isEqualTo(all(reopened));
+    }
+
+    @Test
+    @DisplayName("체크포인트가 있으면 data.json 은 읽지 않고 체크포인트에 그 뒤의 로그만 재생하며, 쓰다 만 임시 파일은 지운다.")
+    public void t3() throws Exception {
+        Path dir = Files.createTempDirectory("file-v2");
+        FileSayRepositoryV2 repository = open(dir);
+        int kept = repository.create(new SayDto("작가1", "체크포인트에 들어갈 명언"));
+        int removed = repository.create(new SayDto("작가2", "체크포인트 뒤에 지울 명언"));
+        repository.build();
+        assertThat(Files.exists(checkpoint(dir))).isTrue();
+        assertThat(Files.size(log(dir))).isEqualTo(0L);
+
+        int added = repository.create(new SayDto("작가3", "로그에만 있는 명언"));
+        repository.update(kept, new SayDto("작가1", "체크포인트 뒤에 고친 명언"));
+        repository.delete(removed);
+        List<Say> expected = all(repository);
+
+        Files.writeString(dir.resolve("data.json"), "[]", UTF_8);
+        Path leftover = dir.resolve("data.ckpt" + AtomicFileWriter.TEMP_SUFFIX);
+        Files.writeString(leftover, "쓰다 만 체크포인트", UTF_8);
+
+        FileSayRepositoryV2 reopened = open(dir);
+        assertThat(all(reopened)).isEqualTo(expected);
+        assertThat(reopened.findById(kept).get().getContent()).isEqualTo("체크포인트 뒤에 고친 명언");
+        assertThat(reopened.findById(removed)).isEmpty();
+        assertThat(reopened.findById(added).get()).isEqualTo(new Say(added, "작가3", "로그에만 있는 명언"));
+        assertThat(Files.exists(leftover)).isFalse();
+    }
+
+    @Test
+    @DisplayName("로그 레코드가 1000 개 쌓이면 체크포인트로 합치고 로그를 비우며, 다시 열어도 같은 목록이다.")
+    public void t4() throws Exception {
+        Path dir = Files.createTempDirectory("file-v2");
+        FileSayRepositoryV2 repository = open(dir);
+        for (int i = 1; i < 1000; i++) {
+            repository.create(new SayDto("작가" + i, "명언 " + i));
+        }
+        assertThat(Files.exists(checkpoint(dir))).isFalse();
+        long beforeCompact = Files.size(log(dir));
+
+        for (int i = 1000; i <= 1005; i++) {
+            repository.create(new SayDto("작가" + i, "명언 " + i));
+        }
+        assertThat(Files.exists(checkpoint(dir))).isTrue();
+        assertThat(Files.size(log(dir))).isLessThan(beforeCompact);
+
+        List<Say> expected = all(repository);
+        assertThat(all(open(dir))).isEqualTo(expected);
+        assertThat(expected).hasSize(1005 + 10);
+    }
+
+    @Test
+    @DisplayName("체크포인트가 깨져 있으면 빈 목록으로 시작하지 않고 예외를 던진다.")
+    public void t5() throws Exception {
+        Path dir = Files.createTempDirectory("file-v2");
+        FileSayRepositoryV2 repository = open(dir);
+        repository.create(new SayDto("작가", "명언"));
+        repository.build();
+
+        byte[] bytes = Files.readAllBytes(checkpoint(dir));
+        Files.write(checkpoint(dir), Arrays.copyOf(bytes, bytes.length - 3));
+
+        RepositoryException failure = null;
+        try {
+            open(dir).findAll();
+        } catch (RepositoryException e) {
+            failure = e;
+        }
+        assertThat(failure).isNotNull();
+    }
+}
@@ -0,0 +1,66 @@
+package com.back.say.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdAllocatorTest {
+    @Test
+    @DisplayName("구간마다 한 번만 high-water mark 를 적고, flush 하면 실제 마지막 id 를 적는다.")
+    public void t1() throws Exception {
+        Path path = Files.createTempDirectory("id-allocator").resolve("lastId.txt");
+        IdAllocator allocator = new IdAllocator(path, 0, 10);
+
+        assertThat(allocator.nextId()).isEqualTo(1);
+        assertThat(Files.readString(path, UTF_8)).isEqualTo("11");
+        assertThat(allocator.allocate(5)).isEqualTo(2);
+        assertThat(allocator.nextId()).isEqualTo(7);
+        assertThat(Files.readString(path, UTF_8)).isEqualTo("11");
+
+        allocator.flush();
+        assertThat(Files.readString(path, UTF_8)).isEqualTo("7");
+    }
+
+    @Test
+    @DisplayName("비정상 종료 뒤에는 예약 구간과 실제 최대 id 중 큰 값 다음부터 발급한다.")
+    public void t2() throws Exception {
+        Path path = Files.createTempDirectory("id-allocator").resolve("lastId.txt");
+        IdAllocator crashed = new IdAllocator(path, 0, 10);
+        crashed.allocate(3);
+
+        assertThat(new IdAllocator(path, 0, 10).nextId()).isEqualTo(14);
+        assertThat(new IdAllocator(path, 50, 10).nextId()).isEqualTo(51);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 발급해도 id 가 겹치지 않는다.")
+    public void t3() throws Exception {
+        Path path = Files.createTempDirectory("id-allocator").resolve("lastId.txt");
+        IdAllocator allocator = new IdAllocator(path, 0, 7);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(allocator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ids.size()).isEqualTo(8000);
+        assertThat(allocator.lastId()).isEqualTo(8000);
+    }
+}
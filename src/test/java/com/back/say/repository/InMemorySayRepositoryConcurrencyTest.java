@@ -0,0 +1,143 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemorySayRepositoryConcurrencyTest {
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int OPS_PER_THREAD = 20_000;
+
+    private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                task.run();
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 등록해도 id 가 겹치거나 빠지지 않고 건수가 맞는다.")
+    public void t1() throws Exception {
+        InMemorySayRepository repository = new InMemorySayRepository();
+        ConcurrentLinkedQueue<Integer> ids = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                if (i % 100 == 0)
+                    ids.addAll(repository.createAll(List.of(new SayDto("작가", "묶음 1"), new SayDto("작가", "묶음 2"))));
+                else
+                    ids.add(repository.create(new SayDto("작가", "명언 " + i)));
+            }
+        });
+
+        Set<Integer> unique = new HashSet<>(ids);
+        int expected = THREADS * (OPS_PER_THREAD + OPS_PER_THREAD / 100);
+        assertThat(unique).hasSize(expected);
+        assertThat(ids).hasSize(expected);
+        assertThat(repository.findAll()).hasSize(expected);
+        assertThat(repository.findPage(new SaySearchCondition(null, null), new Pageable(1, 10)).getTotalCount()).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("등록/수정/삭제가 섞여 도는 동안에도 목록과 건수가 서로 맞는 상태로 읽힌다.")
+    public void t2() throws Exception {
+        InMemorySayRepository repository = new InMemorySayRepository();
+        for (int i = 0; i < 1000; i++) {
+            repository.create(new SayDto("작가", "명언 " + i));
+        }
+        AtomicBoolean inconsistent = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                PageDto<Say> page = repository.findPage(new SaySearchCondition(null, null), new Pageable(1, 5000));
+                if (page.getContent().size() != Math.min(5000, page.getTotalCount()))
+                    inconsistent.set(true);
+                List<Say> all = repository.findAll();
+                for (int i = 1; i < all.size(); i++) {
+                    if (all.get(i - 1).getId() <= all.get(i).getId())
+                        inconsistent.set(true);
+                }
+            }
+        });
+        reader.start();
+
+        runConcurrently(THREADS, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                int op = random.nextInt(3);
+                if (op == 0) {
+                    repository.create(new SayDto("작가", "명언"));
+                } else {
+                    int id = 1 + random.nextInt(1000 + i);
+                    if (op == 1)
+                        repository.update(id, new SayDto("수정", "수정"));
+                    else
+                        repository.delete(id);
+                }
+            }
+        });
+        running.set(false);
+        reader.join();
+
+        assertThat(inconsistent.get()).isFalse();
+        int total = repository.findPage(new SaySearchCondition(null, null), new Pageable(1, 10)).getTotalCount();
+        assertThat(repository.findAll()).hasSize(total);
+    }
+
+    @Test
+    @DisplayName("스레드 수를 늘리면 처리량이 늘어난다. (참고용 출력)")
+    public void t3() throws Exception {
+        for (int threads : new int[]{1, THREADS}) {
+            InMemorySayRepository repository = new InMemorySayRepository();
+            for (int i = 0; i < 10_000; i++) {
+                repository.create(new SayDto("작가", "명언 " + i));
+            }
+            long start = System.nanoTime();
+            runConcurrently(threads, () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 200_000; i++) {
+                    int id = 1 + random.nextInt(10_000);
+                    int op = random.nextInt(10);
+                    if (op < 7)
+                        repository.findById(id);
+                    else if (op < 9)
+                        repository.update(id, new SayDto("수정", "수정"));
+                    else
+                        repository.findPage(new SaySearchCondition(null, null), new Pageable(1, 10, id));
+                }
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("threads=%d : %.0f ops/s%n", threads, threads * 200_000 / seconds);
+        }
+    }
+}
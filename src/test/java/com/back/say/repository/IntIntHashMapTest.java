@@ -0,0 +1,56 @@
+package com.back.say.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntIntHashMapTest {
+    @Test
+    @DisplayName("넣고, 바꾸고, 지우고, 없는 키는 MISSING 을 돌려준다.")
+    public void t1() {
+        IntIntHashMap map = new IntIntHashMap();
+
+        assertThat(map.put(7, 70)).isEqualTo(IntIntHashMap.MISSING);
+        assertThat(map.put(7, 71)).isEqualTo(70);
+        assertThat(map.get(7)).isEqualTo(71);
+        assertThat(map.get(8)).isEqualTo(IntIntHashMap.MISSING);
+        assertThat(map.put(-1, 5)).isEqualTo(IntIntHashMap.MISSING);
+        assertThat(map.containsKey(-1)).isTrue();
+        assertThat(map.size()).isEqualTo(2);
+
+        assertThat(map.remove(7)).isEqualTo(71);
+        assertThat(map.remove(7)).isEqualTo(IntIntHashMap.MISSING);
+        assertThat(map.remove(-1)).isEqualTo(5);
+        assertThat(map.size()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("무작위로 넣고 지워도 HashMap 과 같은 결과를 낸다. (당겨 채우기와 늘리기 확인)")
+    public void t2() {
+        IntIntHashMap map = new IntIntHashMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(23);
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 10;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed == null ? IntIntHashMap.MISSING : removed);
+            } else {
+                Integer old = expected.put(key, i);
+                assertThat(map.put(key, i)).isEqualTo(old == null ? IntIntHashMap.MISSING : old);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (int key = -10; key < 4_990; key++) {
+            Integer value = expected.get(key);
+            assertThat(map.get(key)).isEqualTo(value == null ? IntIntHashMap.MISSING : value);
+        }
+    }
+}
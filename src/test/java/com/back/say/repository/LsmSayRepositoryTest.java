@@ -0,0 +1,181 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.exception.RepositoryException;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LsmSayRepositoryTest {
+    // memtable 을 작게 잡아 내리기와 합치기가 자주 일어나게 한다.
+    private static final long MEMTABLE_BYTES = 16 * 1024;
+
+    private static LsmSayRepository open(Path dir) {
+        return new LsmSayRepository(dir, MEMTABLE_BYTES, 3, DurabilityPolicy.none());
+    }
+
+    private static List<Say> expected(TreeMap<Integer, Say> model) {
+        return new ArrayList<>(model.descendingMap().values());
+    }
+
+    private static TreeMap<Integer, Say> modelOf(LsmSayRepository repository) {
+        TreeMap<Integer, Say> model = new TreeMap<>();
+        repository.findAll().forEach(say -> model.put(say.getId(), say));
+        return model;
+    }
+
+    @Test
+    @DisplayName("등록/수정/삭제를 섞어도 memtable 과 세그먼트를 합친 결과가 TreeMap 과 같다.")
+    public void t1() throws Exception {
+        Path dir = Files.createTempDirectory("lsm");
+        Random random = new Random(3);
+        try (LsmSayRepository repository = open(dir)) {
+            TreeMap<Integer, Say> model = modelOf(repository);
+            for (int i = 0; i < 20000; i++) {
+                int op = random.nextInt(10);
+                if (op < 6) {
+                    SayDto dto = new SayDto("작가" + i, "명언 " + i);
+                    int id = repository.create(dto);
+                    model.put(id, new Say(id, dto.getAuthor(), dto.getContent()));
+                } else {
+                    int id = 1 + random.nextInt(Math.max(1, model.isEmpty() ? 1 : model.lastKey()));
+                    boolean exists = model.containsKey(id);
+                    if (op < 8) {
+                        assertThat(repository.update(id, new SayDto("수정", "수정 " + i))).isEqualTo(exists ? id : -1);
+                        if (exists)
+                            model.put(id, new Say(id, "수정", "수정 " + i));
+                    } else {
+                        assertThat(repository.delete(id)).isEqualTo(exists ? id : -1);
+                        model.remove(id);
+                    }
+                }
+            }
+            repository.build();
+
+            assertThat(repository.getSegmentCount()).isEqualTo(1);
+            assertThat(repository.findAll()).isEqualTo(expected(model));
+            try (Stream<Say> stream = repository.streamAll()) {
+                assertThat(stream.toList()).isEqualTo(expected(model));
+            }
+
+            PageDto<Say> page = repository.findPage(new SaySearchCondition(null, null), new Pageable(3, 10));
+            assertThat(page.getTotalCount()).isEqualTo(model.size());
+            assertThat(page.getContent()).isEqualTo(expected(model).subList(20, 30));
+        }
+    }
+
+    @Test
+    @DisplayName("세그먼트에 없는 id 는 블룸 필터에서 걸러져 블록을 읽지 않는다.")
+    public void t2() throws Exception {
+        try (LsmSayRepository repository = open(Files.createTempDirectory("lsm"))) {
+            List<SayDto> dtoList = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                dtoList.add(new SayDto("작가" + i, "명언 " + i));
+            }
+            repository.createAll(dtoList);
+            repository.build();
+
+            long before = repository.getBloomSkips();
+            for (int id = 1; id <= 5010; id += 2) {
+                assertThat(repository.findById(id).isPresent()).isTrue();
+            }
+            for (int id = 10_000; id < 11_000; id++) {
+                assertThat(repository.findById(id).isPresent()).isFalse();
+            }
+            assertThat(repository.getBloomSkips() - before).isGreaterThan(900L);
+        }
+    }
+
+    @Test
+    @DisplayName("memtable 을 내리지 않고 닫아도 로그에서 되살리고, 지운 id 는 다시 발급하지 않는다.")
+    public void t3() throws Exception {
+        Path dir = Files.createTempDirectory("lsm");
+        LsmSayRepository repository = open(dir);
+        for (int i = 0; i < 3000; i++) {
+            repository.create(new SayDto("작가" + i, "명언 " + i));
+        }
+        int lastId = repository.create(new SayDto("마지막", "명언"));
+        repository.delete(lastId);
+        repository.update(5, new SayDto("수정", "수정됨"));
+        List<Say> before = repository.findAll();
+        // 백그라운드 스레드와 로그가 다시 연 쪽과 겹치지 않게 닫는다. close 는 memtable 을 내리지 않으므로 로그 재생 경로를 그대로 탄다.
+        repository.close();
+
+        try (LsmSayRepository reopened = open(dir)) {
+            assertThat(reopened.findAll()).isEqualTo(before);
+            assertThat(reopened.findById(5).get().getContent()).isEqualTo("수정됨");
+            assertThat(reopened.create(new SayDto("새", "명언"))).isEqualTo(lastId + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("키셋 커서와 검색 조건으로 나눠 읽어도 빠지거나 겹치는 것이 없다.")
+    public void t4() throws Exception {
+        try (LsmSayRepository repository = open(Files.createTempDirectory("lsm"))) {
+            for (int i = 0; i < 2000; i++) {
+                repository.create(new SayDto(i % 3 == 0 ? "공자" : "맹자", "명언 " + i));
+            }
+            SaySearchCondition cond = new SaySearchCondition("공자", null);
+            List<Say> all = repository.findAll().stream().filter(cond::matches).toList();
+
+            List<Say> paged = new ArrayList<>();
+            Integer cursor = null;
+            do {
+                PageDto<Say> page = repository.findPage(cond, new Pageable(1, 50, cursor == null ? Integer.MAX_VALUE : cursor));
+                paged.addAll(page.getContent());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertThat(paged).isEqualTo(all);
+            assertThat(repository.findPage(cond, new Pageable(2, 50)).getTotalCount()).isEqualTo(all.size());
+        }
+    }
+
+    @Test
+    @DisplayName("백그라운드 내리기가 실패하면 다음 쓰기가 한 번 실패를 알리고, 원인이 없어지면 다시 내린다.")
+    public void t5() throws Exception {
+        Path dir = Files.createTempDirectory("lsm");
+        try (LsmSayRepository repository = open(dir)) {
+            repository.create(new SayDto("작가", "명언"));
+            // 첫 세그먼트 자리에 비어 있지 않은 디렉터리를 두어 내리기가 실패하게 한다.
+            Path blocker = Files.createDirectories(dir.resolve("seg-1-1.sst"));
+            Files.writeString(blocker.resolve("x"), "x");
+
+            RepositoryException failure = null;
+            long deadline = System.currentTimeMillis() + 10_000;
+            int created = 1;
+            while (failure == null && System.currentTimeMillis() < deadline) {
+                try {
+                    repository.create(new SayDto("작가", "명언 " + created));
+                    created++;
+                } catch (RepositoryException e) {
+                    failure = e;
+                }
+            }
+            assertThat(failure).isNotNull();
+
+            Files.delete(blocker.resolve("x"));
+            Files.delete(blocker);
+            deadline = System.currentTimeMillis() + 10_000;
+            while (repository.getSegmentCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(repository.getSegmentCount()).isGreaterThan(0);
+            // 기본 10건 + 등록한 것. 실패를 알린 쓰기는 반영되지 않는다.
+            assertThat(repository.findAll()).hasSize(10 + created);
+        }
+    }
+}
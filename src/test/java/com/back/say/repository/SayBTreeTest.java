@@ -0,0 +1,129 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayBTreeTest {
+    // 작은 페이지와 작은 버퍼 풀로 나누기, 오버플로, 쫓아내기가 자주 일어나게 한다.
+    private static final int PAGE_SIZE = 256;
+    private static final int POOL_PAGES = 16;
+
+    private static Path newFile() throws Exception {
+        return Files.createTempDirectory("btree").resolve("data.v3");
+    }
+
+    private static List<Say> scanAll(SayBTree tree, int below) {
+        List<Say> result = new ArrayList<>();
+        tree.scanDescending(below, result::add);
+        return result;
+    }
+
+    private static List<Say> expected(TreeMap<Integer, Say> model, int below) {
+        return new ArrayList<>(model.headMap(below, false).descendingMap().values());
+    }
+
+    @Test
+    @DisplayName("무작위 등록/수정/삭제 후에도 TreeMap 과 같은 내용을 내림차순으로 돌려준다.")
+    public void t1() throws Exception {
+        TreeMap<Integer, Say> model = new TreeMap<>();
+        Random random = new Random(7);
+        try (SayBTree tree = new SayBTree(newFile(), PAGE_SIZE, POOL_PAGES)) {
+            for (int i = 0; i < 5000; i++) {
+                int id = 1 + random.nextInt(2000);
+                if (random.nextInt(4) == 0) {
+                    assertThat(tree.delete(id)).isEqualTo(model.remove(id) != null);
+                } else {
+                    Say say = new Say(id, "작가" + id, "명언 ".repeat(random.nextInt(8)) + i);
+                    assertThat(tree.put(say)).isEqualTo(model.put(id, say) == null);
+                }
+                if (tree.getBufferPool().getDirtyCount() > POOL_PAGES)
+                    tree.checkpoint();
+            }
+
+            assertThat(tree.size()).isEqualTo(model.size());
+            assertThat(tree.getHeight()).isGreaterThan(1);
+            assertThat(scanAll(tree, Integer.MAX_VALUE)).isEqualTo(expected(model, Integer.MAX_VALUE));
+            assertThat(scanAll(tree, 1000)).isEqualTo(expected(model, 1000));
+            for (int id = 1; id <= 2000; id += 37) {
+                assertThat(tree.get(id)).isEqualTo(model.get(id));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("한 페이지에 못 들어가는 명언은 오버플로 페이지에 나눠 담고, 지우면 그 페이지를 다시 쓴다.")
+    public void t2() throws Exception {
+        try (SayBTree tree = new SayBTree(newFile(), PAGE_SIZE, POOL_PAGES)) {
+            Say big = new Say(1, "작가", "아주 긴 명언 ".repeat(200));
+            tree.put(big);
+            tree.put(new Say(2, "작가2", "짧은 명언"));
+            assertThat(tree.get(1)).isEqualTo(big);
+
+            int pages = tree.getPageCount();
+            tree.delete(1);
+            tree.put(new Say(3, "작가3", "또 긴 명언 ".repeat(200)));
+            assertThat(tree.getPageCount()).isEqualTo(pages);
+            assertThat(tree.get(3).getContent()).isEqualTo("또 긴 명언 ".repeat(200));
+        }
+    }
+
+    @Test
+    @DisplayName("체크포인트 후 다시 열면 같은 내용이 읽히고, 체크포인트하지 않은 변경은 남지 않는다.")
+    public void t3() throws Exception {
+        Path path = newFile();
+        try (SayBTree tree = new SayBTree(path, PAGE_SIZE, POOL_PAGES)) {
+            for (int id = 1; id <= 500; id++) {
+                tree.put(new Say(id, "작가" + id, "명언" + id));
+            }
+        }
+
+        SayBTree reopened = new SayBTree(path, PAGE_SIZE, POOL_PAGES);
+        assertThat(reopened.size()).isEqualTo(500);
+        assertThat(reopened.getLastId()).isEqualTo(500);
+        assertThat(reopened.get(250)).isEqualTo(new Say(250, "작가250", "명언250"));
+        reopened.put(new Say(501, "작가501", "명언501"));
+
+        // 닫지 않고 버린다 : 더티 페이지는 파일에 쓰이지 않았다.
+        try (SayBTree again = new SayBTree(path, PAGE_SIZE, POOL_PAGES)) {
+            assertThat(again.size()).isEqualTo(500);
+            assertThat(again.get(501)).isNull();
+        }
+        assertThat(Files.exists(path.resolveSibling("data.v3.dwb"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("skipDescending 으로 건너뛴 자리부터 읽으면 OFFSET 과 같은 결과가 나온다.")
+    public void t4() throws Exception {
+        TreeMap<Integer, Say> model = new TreeMap<>();
+        try (SayBTree tree = new SayBTree(newFile(), PAGE_SIZE, POOL_PAGES)) {
+            for (int id = 1; id <= 300; id++) {
+                Say say = new Say(id, "작가", "명언" + id);
+                tree.put(say);
+                model.put(id, say);
+            }
+            for (int id = 10; id <= 300; id += 10) {
+                tree.delete(id);
+                model.remove(id);
+            }
+
+            List<Say> all = expected(model, Integer.MAX_VALUE);
+            for (int offset : new int[]{0, 1, 5, 100, 269, 270, 400}) {
+                int below = tree.skipDescending(Integer.MAX_VALUE, offset);
+                List<Say> page = new ArrayList<>();
+                tree.scanDescending(below, say -> page.add(say) && page.size() < 5);
+                List<Say> want = all.subList(Math.min(offset, all.size()), Math.min(offset + 5, all.size()));
+                assertThat(page).isEqualTo(want);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayCheckpointFileTest {
+    private static List<Say> sample() {
+        List<Say> sayList = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            sayList.add(new Say(i, "작가" + i, "명언 " + i));
+        }
+        return sayList;
+    }
+
+    private static String readError(Path path) {
+        try {
+            SayCheckpointFile.read(path);
+            return null;
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    @DisplayName("쓰고 나면 임시 파일이 남지 않고, 쓴 그대로 읽힌다.")
+    public void t1() throws Exception {
+        Path path = Files.createTempDirectory("ckpt").resolve("data.ckpt");
+        SayCheckpointFile.write(path, sample());
+
+        assertThat(SayCheckpointFile.read(path)).isEqualTo(sample());
+        assertThat(Files.exists(path.resolveSibling("data.ckpt.tmp"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("본문 한 바이트가 바뀌면 파싱하기 전에 체크섬에서 걸린다.")
+    public void t2() throws Exception {
+        Path path = Files.createTempDirectory("ckpt").resolve("data.ckpt");
+        SayCheckpointFile.write(path, sample());
+        try (FileChannel channel = FileChannel.open(path, WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), channel.size() / 2);
+        }
+
+        assertThat(readError(path)).contains("체크섬");
+    }
+
+    @Test
+    @DisplayName("끝이 잘린 파일은 잘렸다고 알려준다.")
+    public void t3() throws Exception {
+        Path path = Files.createTempDirectory("ckpt").resolve("data.ckpt");
+        SayCheckpointFile.write(path, sample());
+        try (FileChannel channel = FileChannel.open(path, WRITE)) {
+            channel.truncate(channel.size() - 100);
+        }
+
+        assertThat(readError(path)).contains("잘렸습니다");
+    }
+}
@@ -0,0 +1,86 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.utils.SaySearchCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayColumnsTest {
+    private static final String[] WORDS = {"과거", "미래", "이순신", "작자미상", "사랑", "hello", "명언", "😀"};
+
+    private static int[] expectedIds(TreeMap<Integer, Say> sayMap, SaySearchCondition cond, int below) {
+        return sayMap.headMap(below, false).descendingMap().values().stream()
+                .filter(cond::matches)
+                .mapToInt(Say::getId)
+                .toArray();
+    }
+
+    private static String randomText(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + random.nextInt(10);
+    }
+
+    @Test
+    @DisplayName("작가/내용/둘 다 조건에서 String.contains 와 같은 id 를 내림차순으로 돌려주고, 커서 아래부터도 찾는다.")
+    public void t1() {
+        SayColumns columns = new SayColumns();
+        columns.put(new Say(1, "이순신", "나의 죽음을 알리지 마라"));
+        columns.put(new Say(2, "작자미상", "과거에 집착하지 마라"));
+        columns.put(new Say(3, "작자미상 이순신", "미래를 믿지 마라"));
+        columns.put(new Say(4, "홍길동", "과거는 지나갔다"));
+
+        assertThat(columns.findIds(new SaySearchCondition("이순신", null))).containsExactly(3, 1);
+        assertThat(columns.findIds(new SaySearchCondition(null, "과거"))).containsExactly(4, 2);
+        assertThat(columns.findIds(new SaySearchCondition("마라", "마라"))).containsExactly(3, 2, 1);
+        assertThat(columns.findIdsBelow(new SaySearchCondition("마라", "마라"), 3, 1)).containsExactly(2);
+
+        columns.put(new Say(3, "홍길동", "미래를 믿지 마라"));
+        columns.remove(1);
+        assertThat(columns.findIds(new SaySearchCondition("이순신", null))).isEmpty();
+        assertThat(columns.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("무작위 등록/수정/삭제와 늦게 들어온 id, 병렬로 훑는 큰 목록에서도 결과가 같다.")
+    public void t2() {
+        Random random = new Random(24);
+        SayColumns columns = new SayColumns();
+        TreeMap<Integer, Say> sayMap = new TreeMap<>();
+
+        for (int i = 0; i < 150_000; i++) {
+            int op = random.nextInt(10);
+            int id = op < 6 ? i + 1 : random.nextInt(i + 1) + 1;
+            if (op == 9) {
+                columns.remove(id);
+                sayMap.remove(id);
+            } else {
+                Say say = new Say(id, randomText(random), randomText(random));
+                columns.put(say);
+                sayMap.put(id, say);
+            }
+        }
+
+        List<SaySearchCondition> conditions = new ArrayList<>();
+        for (String word : WORDS) {
+            conditions.add(new SaySearchCondition(word, null));
+            conditions.add(new SaySearchCondition(null, word + "3"));
+            conditions.add(new SaySearchCondition(word, word));
+        }
+        for (SaySearchCondition cond : conditions) {
+            int[] expected = expectedIds(sayMap, cond, Integer.MAX_VALUE);
+            assertThat(Arrays.equals(columns.findIds(cond), expected)).isTrue();
+
+            int[] below = expectedIds(sayMap, cond, 70_000);
+            int[] actualBelow = columns.findIdsBelow(cond, 70_000, 20);
+            assertThat(Arrays.equals(actualBelow, Arrays.copyOf(below, Math.min(20, below.length)))).isTrue();
+        }
+        assertThat(columns.size()).isEqualTo(sayMap.size());
+    }
+}
@@ -0,0 +1,70 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayIdArrayTest {
+    private static Say say(int id) {
+        return new Say(id, "작가" + id, "명언" + id);
+    }
+
+    @Test
+    @DisplayName("skipDescending 은 블록/페이지/묶음 경계를 넘어도 하나씩 건너뛴 것과 같은 id 를 준다.")
+    public void t1() {
+        SayIdArray array = new SayIdArray();
+        int lastId = 600_000;
+        for (int id = 1; id <= lastId; id++) {
+            array.set(id, say(id));
+        }
+        // 두 번째 페이지 묶음(262144 ~)은 통째로 비우고, 나머지는 띄엄띄엄 지운다.
+        Random random = new Random(21);
+        for (int id = 1; id <= lastId; id++) {
+            if ((id >= 262_144 && id < 2 * 262_144) || random.nextInt(3) == 0)
+                array.remove(id);
+        }
+
+        List<Integer> liveDescending = new ArrayList<>();
+        array.descendingIterator(lastId).forEachRemaining(say -> liveDescending.add(say.getId()));
+
+        int[] skips = {0, 1, 63, 64, 4095, 4096, 50_000, 120_000, liveDescending.size() - 1};
+        for (int skip : skips) {
+            assertThat(array.skipDescending(lastId, skip)).isEqualTo(liveDescending.get(skip));
+        }
+        assertThat(array.skipDescending(lastId, liveDescending.size())).isEqualTo(0);
+
+        // 경계가 아닌 곳에서 시작해도 같다.
+        int from = 300_001 + 262_144;
+        List<Integer> belowFrom = liveDescending.stream().filter(id -> id <= from).toList();
+        for (int skip : new int[]{0, 10, 5000, belowFrom.size() - 1}) {
+            assertThat(array.skipDescending(from, skip)).isEqualTo(belowFrom.get(skip));
+        }
+    }
+
+    @Test
+    @DisplayName("같은 칸을 다시 넣거나 바꾸거나 두 번 지워도 살아 있는 칸 수가 어긋나지 않는다.")
+    public void t2() {
+        SayIdArray array = new SayIdArray();
+        for (int id = 1; id <= 200; id++) {
+            array.set(id, say(id));
+        }
+        array.set(100, say(100));
+        assertThat(array.replace(101, new Say(101, "새 작가", "새 명언"))).isEqualTo(say(101));
+        assertThat(array.replace(500, say(500))).isNull();
+        assertThat(array.remove(150)).isEqualTo(say(150));
+        assertThat(array.remove(150)).isNull();
+        array.set(160, null);
+
+        // 살아 있는 칸은 198 개 : 200, 199, ..., 1 에서 160, 150 이 빠졌다.
+        assertThat(array.skipDescending(200, 197)).isEqualTo(1);
+        assertThat(array.skipDescending(200, 198)).isEqualTo(0);
+        assertThat(array.skipDescending(200, 40)).isEqualTo(159);
+        assertThat(array.skipDescending(200, 50)).isEqualTo(148);
+    }
+}
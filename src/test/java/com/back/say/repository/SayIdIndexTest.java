@@ -0,0 +1,93 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayIdIndexTest {
+    private static SayIdIndex indexOf(int from, int to) {
+        SayIdIndex index = new SayIdIndex();
+        for (int i = from; i <= to; i++) {
+            index.put(new Say(i, "작가" + i, "명언" + i));
+        }
+        return index;
+    }
+
+    private static List<Integer> ids(Iterable<Say> sayList) {
+        List<Integer> ids = new ArrayList<>();
+        sayList.forEach(say -> ids.add(say.getId()));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("id 로 바로 찾고, 바꾸고, 지운다.")
+    public void t1() {
+        SayIdIndex index = indexOf(1, 5);
+
+        index.put(new Say(3, "새 작가", "새 명언"));
+        assertThat(index.get(3)).isEqualTo(new Say(3, "새 작가", "새 명언"));
+        assertThat(index.remove(2)).isEqualTo(new Say(2, "작가2", "명언2"));
+        assertThat(index.remove(2)).isNull();
+        assertThat(index.get(2)).isNull();
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(ids(index)).containsExactly(1, 3, 4, 5);
+    }
+
+    @Test
+    @DisplayName("묘비를 건너뛰며 복사 없이 내림차순으로 읽고, 커서 아래부터도 읽는다.")
+    public void t2() {
+        SayIdIndex index = indexOf(1, 100);
+        for (int i = 1; i <= 100; i++) {
+            if (i % 3 != 0)
+                index.remove(i);
+        }
+
+        assertThat(index.size()).isEqualTo(33);
+        assertThat(index.streamDescending().limit(3).map(Say::getId).toList()).containsExactly(99, 96, 93);
+        assertThat(index.get(99)).isEqualTo(new Say(99, "작가99", "명언99"));
+
+        List<Integer> below = new ArrayList<>();
+        index.descendingIteratorBelow(10).forEachRemaining(say -> below.add(say.getId()));
+        assertThat(below).containsExactly(9, 6, 3);
+    }
+
+    @Test
+    @DisplayName("로그 재생처럼 중간 id 가 늦게 들어와도 순서를 지킨다.")
+    public void t3() {
+        SayIdIndex index = indexOf(1, 5);
+        index.remove(3);
+        index.put(new Say(3, "다시", "들어옴"));
+        index.put(new Say(10, "작가10", "명언10"));
+        index.put(new Say(7, "작가7", "명언7"));
+
+        assertThat(ids(index)).containsExactly(1, 2, 3, 4, 5, 7, 10);
+        assertThat(index.get(7)).isEqualTo(new Say(7, "작가7", "명언7"));
+        assertThat(index.get(10)).isEqualTo(new Say(10, "작가10", "명언10"));
+    }
+
+    @Test
+    @DisplayName("lastBelow 는 id 로 다음 위치를 찾으므로 중간에 묘비가 정리되어도 빠짐없이 이어서 읽는다.")
+    public void t4() {
+        SayIdIndex index = indexOf(1, 100);
+        List<Integer> read = new ArrayList<>();
+        for (Say say = index.lastBelow(Integer.MAX_VALUE); say != null; say = index.lastBelow(say.getId())) {
+            read.add(say.getId());
+            if (say.getId() == 80) {
+                // 묘비가 절반을 넘어 슬롯이 당겨진다.
+                for (int i = 1; i <= 60; i++) {
+                    index.remove(i);
+                }
+            }
+        }
+
+        assertThat(read).hasSize(40);
+        assertThat(read.get(20)).isEqualTo(80);
+        assertThat(read.get(39)).isEqualTo(61);
+        assertThat(index.lastBelow(61)).isNull();
+    }
+}
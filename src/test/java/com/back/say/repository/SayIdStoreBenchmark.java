@@ -0,0 +1,90 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * id 로 명언을 찾는 자료구조들의 항목당 메모리와 조회 시간을 비교한다.
+ * 명언 객체는 모두 같은 것을 넣으므로 메모리는 자료구조 자체(키 상자, 노드, 배열)만 잰다.
+ *  - 명언 저장 : HashMap<Integer, Say> / ConcurrentSkipListMap<Integer, Say> (InMemory 이전) / SayIdArray
+ *  - 위치 해시 : HashMap<Integer, Integer> (SayIdIndex 이전) / IntIntHashMap
+ * 실행 : main 을 직접 실행. 인자로 명언 개수를 줄 수 있다. (기본 1,000,000)
+ */
+public class SayIdStoreBenchmark {
+    private static final int LOOKUPS = 5_000_000;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Say say = new Say(1, "작자미상", "명언");
+
+        for (int round = 1; round <= 3; round++) {
+            System.out.printf("round %d (%,d건)%n", round, count);
+
+            measure("HashMap<Integer, Say>", count, () -> {
+                Map<Integer, Say> map = new HashMap<>();
+                for (int id = 1; id <= count; id++) map.put(id, say);
+                return map;
+            }, map -> id -> map.get(id) == null ? 0 : 1);
+
+            measure("ConcurrentSkipListMap", count, () -> {
+                ConcurrentSkipListMap<Integer, Say> map = new ConcurrentSkipListMap<>();
+                for (int id = 1; id <= count; id++) map.put(id, say);
+                return map;
+            }, map -> id -> map.get(id) == null ? 0 : 1);
+
+            measure("SayIdArray", count, () -> {
+                SayIdArray array = new SayIdArray();
+                for (int id = 1; id <= count; id++) array.set(id, say);
+                return array;
+            }, array -> id -> array.get(id) == null ? 0 : 1);
+
+            measure("HashMap<Integer, Integer>", count, () -> {
+                Map<Integer, Integer> map = new HashMap<>();
+                for (int id = 1; id <= count; id++) map.put(id, id - 1);
+                return map;
+            }, map -> id -> map.get(id));
+
+            measure("IntIntHashMap", count, () -> {
+                IntIntHashMap map = new IntIntHashMap();
+                for (int id = 1; id <= count; id++) map.put(id, id - 1);
+                return map;
+            }, map -> id -> map.get(id));
+        }
+    }
+
+    private static <T> void measure(String name, int count, Supplier<T> builder, Function<T, IntUnaryOperator> lookup) {
+        long before = usedHeap();
+        T store = builder.get();
+        long after = usedHeap();
+
+        IntUnaryOperator get = lookup.apply(store);
+        // 차례대로가 아니라 흩어진 id 를 찾도록 큰 홀수를 곱해 섞는다.
+        long sink = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            int id = (int) ((i * 0x9E3779B1L) % count) + 1;
+            sink += get.applyAsInt(id);
+        }
+        long t1 = System.nanoTime();
+
+        System.out.printf("  %-26s %6.1f bytes/건   조회 %5.1f ns   (%d)%n",
+                name, (double) (after - before) / count, (double) (t1 - t0) / LOOKUPS, sink & 1);
+        // 조회가 끝날 때까지 살려둬야 메모리 측정이 맞는다.
+        Reference.reachabilityFence(store);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,144 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * SayJsonReader/SayJsonWriter 와 기존 문자열 기반 파서(FileSayRepositoryV2 에 있던 코드)를 큰 파일로 비교한다.
+ * 실행 : main 을 직접 실행. 인자로 명언 개수를 줄 수 있다. (기본 200,000)
+ */
+public class SayJsonCodecBenchmark {
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<Say> sayList = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            sayList.add(new Say(i, "작자미상 " + i, "오늘 할 일을 내일로 미루지 마라. " + i));
+        }
+
+        Path legacyFile = Files.createTempFile("say-legacy", ".json");
+        Path streamingFile = Files.createTempFile("say-streaming", ".json");
+        try {
+            for (int round = 1; round <= 5; round++) {
+                long t0 = System.nanoTime();
+                Files.writeString(legacyFile, legacyToJsonArray(sayList), UTF_8, CREATE, TRUNCATE_EXISTING);
+                long t1 = System.nanoTime();
+                try (FileChannel channel = FileChannel.open(streamingFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                    new SayJsonWriter(channel).writeArray(sayList);
+                }
+                long t2 = System.nanoTime();
+                List<Say> legacy = legacyParseJsonToSayList(Files.readString(legacyFile, UTF_8).trim());
+                long t3 = System.nanoTime();
+                List<Say> streaming = new ArrayList<>(count);
+                try (Reader reader = Files.newBufferedReader(streamingFile, UTF_8)) {
+                    new SayJsonReader(reader).readArray(streaming::add);
+                }
+                long t4 = System.nanoTime();
+
+                if (!legacy.equals(sayList) || !streaming.equals(sayList))
+                    throw new IllegalStateException("파싱 결과가 원본과 다릅니다");
+
+                System.out.printf("round %d (%,d건, %,d bytes) write legacy=%dms streaming=%dms / read legacy=%dms streaming=%dms%n",
+                        round, count, Files.size(streamingFile),
+                        (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000,
+                        (t3 - t2) / 1_000_000, (t4 - t3) / 1_000_000);
+            }
+        } finally {
+            Files.deleteIfExists(legacyFile);
+            Files.deleteIfExists(streamingFile);
+        }
+    }
+
+    private static String legacyToJsonArray(List<Say> sayList) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[\n");
+        for (int i = 0; i < sayList.size(); i++) {
+            if(i > 0)
+                sb.append(",\n");
+            sb.append(toJsonString(sayList.get(i)));
+        }
+        sb.append("\n]");
+        return sb.toString();
+    }
+
+    private static String toJsonString(Say s) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\t{\n");
+        sb.append("\t\t\"id\": ").append(s.getId()).append(",\n");
+        sb.append("\t\t\"content\": ").append("\"").append(s.getContent()).append("\",\n");
+        sb.append("\t\t\"author\": ").append("\"").append(s.getAuthor()).append("\"\n");
+        sb.append("\t}");
+        return sb.toString();
+    }
+    private static Say parseJsonToSay(String json) {
+        if (json == null || json.isBlank())
+            return null;
+        int idIdx = json.indexOf("\"id\"");
+        if (idIdx < 0)
+            return null;
+        int idColonIdx = json.indexOf(':', idIdx);
+        int idCommaIdx = json.indexOf(',', idColonIdx);
+        String idStr = json.substring(idColonIdx+1, idCommaIdx).trim();
+        int id = Integer.parseInt(idStr);
+
+        int contIdx = json.indexOf("\"content\"", idCommaIdx+1);
+        if (contIdx < 0)
+            return null;
+        int contColonIdx = json.indexOf(':', contIdx);
+        int contQuoteIdx = json.indexOf('"', contColonIdx);
+        int i = contQuoteIdx + 1;
+
+        StringBuilder content = new StringBuilder();
+
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"')
+                break;
+            content.append(c);
+        }
+
+        int authIdx = json.indexOf("\"author\"", contIdx+1);
+        if (authIdx < 0)
+            return null;
+        int authColonIdx = json.indexOf(':', authIdx);
+        int authQuoteIdx = json.indexOf('"', authColonIdx);
+        i = authQuoteIdx + 1;
+
+        StringBuilder author = new StringBuilder();
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"')
+                break;
+            author.append(c);
+        }
+
+        return new Say(id, author.toString(), content.toString());
+    }
+
+    private static List<Say> legacyParseJsonToSayList(String json) {
+        List<Say> sayList = new ArrayList<>();
+
+        json = json.trim();
+        if(json.startsWith("["))
+            json = json.substring(1);
+        if(json.endsWith("]"))
+            json = json.substring(0,json.length()-1);
+
+        String[] lines = json.split("},\\s*\\{");
+        for (String line : lines) {
+            line = line.replace("{", "").replace("}", "").trim();
+            sayList.add(parseJsonToSay(line));
+        }
+
+        return sayList;
+    }
+}
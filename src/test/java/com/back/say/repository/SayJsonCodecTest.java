@@ -0,0 +1,79 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayJsonCodecTest {
+    @Test
+    @DisplayName("따옴표, 중괄호, 줄바꿈이 들어간 명언도 그대로 저장하고 읽는다.")
+    public void t1() throws IOException {
+        List<Say> sayList = List.of(
+                new Say(1, "작가 \"따옴표\"", "명언, {중괄호} 와 },{ 구분자"),
+                new Say(2, "역슬래시 \\ 작가", "첫 줄\n둘째 줄\t탭"),
+                new Say(3, "이모지 😀", "제어문자 \u0001"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SayJsonWriter(Channels.newChannel(out), 16).writeArray(sayList);
+
+        List<Say> result = new ArrayList<>();
+        new SayJsonReader(new StringReader(out.toString(UTF_8)), 8).readArray(result::add);
+
+        assertThat(result).isEqualTo(sayList);
+    }
+
+    @Test
+    @DisplayName("기존 data.json 형식과 모르는 키를 읽는다.")
+    public void t2() throws IOException {
+        String json = """
+                [
+                	{
+                		"id": 10,
+                		"content": "명언10",
+                		"author": "작자미상 10",
+                		"tags": ["a", {"b": "}"}],
+                		"score": 1.5
+                	},
+                	{
+                		"id": 11,
+                		"content": "\\u0041\\/",
+                		"author": "작자미상11"
+                	}
+                ]""";
+
+        List<Say> result = new ArrayList<>();
+        new SayJsonReader(new StringReader(json)).readArray(result::add);
+
+        assertThat(result).containsExactly(
+                new Say(10, "작자미상 10", "명언10"),
+                new Say(11, "작자미상11", "A/"));
+    }
+
+    @Test
+    @DisplayName("{id}.json 형식 객체 하나를 읽고 쓴다.")
+    public void t3() throws IOException {
+        Say say = new Say(7, "이순신", "나의 죽음을 적들에게 알리지 말라!");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SayJsonWriter(Channels.newChannel(out)).writeSingle(say);
+
+        assertThat(out.toString(UTF_8)).isEqualTo("""
+                {
+                	"id": 7,
+                	"content": "나의 죽음을 적들에게 알리지 말라!",
+                	"author": "이순신"
+                }
+                """);
+        assertThat(new SayJsonReader(new StringReader(out.toString(UTF_8))).readSingle()).isEqualTo(say);
+    }
+}
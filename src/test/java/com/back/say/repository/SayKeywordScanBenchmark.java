@@ -0,0 +1,63 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 키워드 검색(findPage) 을 명언 객체를 따라가는 방식, 열 저장소(search.columnar) 방식, n-gram 색인(search.ngram) 방식으로 비교한다.
+ * 건수를 세야 하므로 앞의 두 방식은 전체를 훑고, n-gram 은 색인이 준 후보만 확인한다.
+ * 실행 : main 을 직접 실행. 인자로 명언 개수를 줄 수 있다. (기본 1,000,000)
+ */
+public class SayKeywordScanBenchmark {
+    private static final String[] AUTHORS = {"이순신", "작자미상", "세종대왕", "안중근", "유관순"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<SayDto> dtoList = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            dtoList.add(new SayDto("%s %d".formatted(AUTHORS[i % AUTHORS.length], i % 1000),
+                    "현재를 사랑하라. 과거는 지나갔고 미래는 오지 않았다. " + i));
+        }
+
+        InMemorySayRepository objects = new InMemorySayRepository(false, false);
+        InMemorySayRepository columnar = new InMemorySayRepository(true, false);
+        InMemorySayRepository ngram = new InMemorySayRepository(false, true);
+        objects.createAll(dtoList);
+        columnar.createAll(dtoList);
+        ngram.createAll(dtoList);
+
+        SaySearchCondition[] conditions = {
+                new SaySearchCondition("세종", null),
+                new SaySearchCondition(null, "99999"),
+                new SaySearchCondition("없는말", "없는말"),
+        };
+        Pageable pageable = new Pageable(2, 5);
+
+        for (int round = 1; round <= 5; round++) {
+            for (SaySearchCondition cond : conditions) {
+                long t0 = System.nanoTime();
+                PageDto<Say> expected = objects.findPage(cond, pageable);
+                long t1 = System.nanoTime();
+                PageDto<Say> byColumns = columnar.findPage(cond, pageable);
+                long t2 = System.nanoTime();
+                PageDto<Say> byNgram = ngram.findPage(cond, pageable);
+                long t3 = System.nanoTime();
+
+                for (PageDto<Say> actual : List.of(byColumns, byNgram)) {
+                    if (expected.getTotalCount() != actual.getTotalCount() || !expected.getContent().equals(actual.getContent()))
+                        throw new IllegalStateException("검색 결과가 다릅니다");
+                }
+
+                System.out.printf("round %d author=%s content=%s (%,d건 중 %,d건) objects=%dms columnar=%dms ngram=%dms%n",
+                        round, cond.getAuthorContains(), cond.getContentContains(), count, expected.getTotalCount(),
+                        (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, (t3 - t2) / 1_000_000);
+            }
+        }
+    }
+}
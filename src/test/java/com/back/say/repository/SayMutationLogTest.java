@@ -0,0 +1,120 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayMutationLogTest {
+    private static Map<Integer, Say> replay(Path path) {
+        Map<Integer, Say> state = new HashMap<>();
+        try (SayMutationLog log = new SayMutationLog(path)) {
+            log.replay(say -> state.put(say.getId(), say), state::remove);
+        }
+        return state;
+    }
+
+    @Test
+    @DisplayName("재생하면 최종 상태가 되고, 잘린 마지막 레코드는 버린다.")
+    public void t1() throws Exception {
+        Path path = Files.createTempDirectory("say-log").resolve("data.log");
+        try (SayMutationLog log = new SayMutationLog(path)) {
+            log.appendUpsert(new Say(1, "작가1", "명언1"));
+            log.appendUpsert(new Say(2, "작가2", "명언2"));
+            log.appendUpsert(new Say(1, "작가1", "수정"));
+            log.appendDelete(2);
+            log.appendUpsert(new Say(3, "작가3", "잘릴 명언"));
+        }
+        try (FileChannel channel = FileChannel.open(path, WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertThat(replay(path)).isEqualTo(Map.of(1, new Say(1, "작가1", "수정")));
+    }
+
+    @Test
+    @DisplayName("SYNC_PER_OP 로 여러 스레드가 동시에 기다려도 모두 풀리고 전부 남는다.")
+    public void t2() throws Exception {
+        Path path = Files.createTempDirectory("say-log").resolve("data.log");
+        int threads = 8;
+        int perThread = 200;
+        try (SayMutationLog log = new SayMutationLog(path, DurabilityPolicy.syncPerOp())) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                executor.submit(() -> {
+                    for (int i = 1; i <= perThread; i++) {
+                        long seq = log.appendUpsert(new Say(base + i, "작가", "명언"));
+                        log.awaitDurable(seq);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(replay(path).size()).isEqualTo(threads * perThread);
+    }
+
+    @Test
+    @DisplayName("GROUP_COMMIT 은 기다리지 않고, 닫을 때 남은 것을 내린다.")
+    public void t3() throws Exception {
+        Path path = Files.createTempDirectory("say-log").resolve("data.log");
+        List<Long> seqs = new ArrayList<>();
+        try (SayMutationLog log = new SayMutationLog(path, DurabilityPolicy.groupCommit(50, 10))) {
+            for (int i = 1; i <= 25; i++) {
+                long seq = log.appendUpsert(new Say(i, "작가" + i, "명언" + i));
+                log.awaitDurable(seq);
+                seqs.add(seq);
+            }
+        }
+
+        assertThat(seqs.get(seqs.size() - 1)).isEqualTo(25L);
+        assertThat(replay(path).size()).isEqualTo(25);
+    }
+
+    @Test
+    @DisplayName("재생하거나 다시 쓸 때 받은 위치로 그 등록 레코드를 다시 읽는다.")
+    public void t4() throws Exception {
+        Path path = Files.createTempDirectory("say-log").resolve("data.log");
+        Map<Integer, Long> positions = new HashMap<>();
+        try (SayMutationLog log = new SayMutationLog(path)) {
+            log.appendUpsert(new Say(1, "작가1", "명언1"));
+            positions.put(2, log.getSize());
+            log.appendUpsert(new Say(2, "작가2", "명언2"));
+            log.appendDelete(1);
+            assertThat(log.readUpsertAt(positions.get(2))).isEqualTo(new Say(2, "작가2", "명언2"));
+        }
+
+        Map<Integer, Long> replayed = new HashMap<>();
+        try (SayMutationLog log = new SayMutationLog(path)) {
+            log.replayWithPositions((say, position) -> replayed.put(say.getId(), position), id -> {});
+            assertThat(replayed.get(2)).isEqualTo(positions.get(2));
+            assertThat(log.readUpsertAt(replayed.get(1))).isEqualTo(new Say(1, "작가1", "명언1"));
+        }
+
+        Path rewritten = path.resolveSibling("rewritten.log");
+        Map<Integer, Long> written = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(rewritten, CREATE, WRITE)) {
+            SayMutationLog.writeUpserts(channel, List.of(new Say(3, "작가3", "명언3"), new Say(4, "작가4", "명언4")),
+                    (say, position) -> written.put(say.getId(), position));
+        }
+        try (SayMutationLog log = new SayMutationLog(rewritten)) {
+            assertThat(log.readUpsertAt(written.get(4))).isEqualTo(new Say(4, "작가4", "명언4"));
+        }
+    }
+}
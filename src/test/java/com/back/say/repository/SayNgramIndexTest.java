@@ -0,0 +1,91 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SayNgramIndexTest {
+    private static final String[] WORDS = {"과거", "미래", "이순신", "작자미상", "사랑", "hello", "명언", "과거의 나"};
+
+    private static List<Say> expected(TreeMap<Integer, Say> sayMap, SaySearchCondition cond) {
+        return sayMap.descendingMap().values().stream().filter(cond::matches).toList();
+    }
+
+    @Test
+    @DisplayName("두 글자는 bigram, 세 글자 이상은 trigram 교집합을 후보로 주고, 한 글자는 null 을 준다.")
+    public void t1() {
+        SayNgramIndex index = new SayNgramIndex();
+        index.put(new Say(1, "이순신", "나의 죽음을 알리지 마라"));
+        index.put(new Say(2, "작자미상", "과거에 집착하지 마라"));
+        index.put(new Say(3, "작자미상 이순신", "미래를 믿지 마라"));
+        index.put(new Say(4, "순신이", "지마라 알리"));
+
+        assertThat(index.candidates(new SaySearchCondition("이순신", null), Integer.MAX_VALUE, 10)).containsExactly(3, 1);
+        assertThat(index.candidates(new SaySearchCondition(null, "마라"), Integer.MAX_VALUE, 10)).containsExactly(4, 3, 2, 1);
+        assertThat(index.candidates(new SaySearchCondition(null, "마라"), 3, 1)).containsExactly(2);
+        assertThat(index.candidates(new SaySearchCondition("순", null), Integer.MAX_VALUE, 10)).isNull();
+
+        index.put(new Say(3, "홍길동", "미래를 믿지 마라"));
+        index.remove(1);
+        assertThat(index.candidates(new SaySearchCondition("이순신", null), Integer.MAX_VALUE, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("무작위 등록/수정/삭제 뒤에도 findPage 의 건수와 내용이 전체를 훑은 결과와 같고, 커서로 끝까지 읽어도 같다.")
+    public void t2() {
+        Random random = new Random(25);
+        SayNgramIndex index = new SayNgramIndex();
+        TreeMap<Integer, Say> sayMap = new TreeMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int op = random.nextInt(10);
+            int id = op < 6 ? i + 1 : random.nextInt(i + 1) + 1;
+            if (op == 9) {
+                index.remove(id);
+                sayMap.remove(id);
+            } else {
+                Say say = new Say(id, WORDS[random.nextInt(WORDS.length)] + random.nextInt(5),
+                        WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+                index.put(say);
+                sayMap.put(id, say);
+            }
+        }
+
+        List<SaySearchCondition> conditions = new ArrayList<>();
+        for (String word : WORDS) {
+            conditions.add(new SaySearchCondition(word, null));
+            conditions.add(new SaySearchCondition(null, word));
+            conditions.add(new SaySearchCondition(word, word));
+        }
+        conditions.add(new SaySearchCondition(null, "거 미"));
+        conditions.add(new SaySearchCondition("상3", null));
+
+        for (SaySearchCondition cond : conditions) {
+            List<Say> expected = expected(sayMap, cond);
+
+            PageDto<Say> page = index.findPage(cond, new Pageable(3, 10), sayMap::get);
+            assertThat(page.getTotalCount()).isEqualTo(expected.size());
+            assertThat(page.getContent()).isEqualTo(expected.subList(Math.min(20, expected.size()), Math.min(30, expected.size())));
+
+            List<Say> all = new ArrayList<>();
+            Integer cursor = Integer.MAX_VALUE;
+            while (cursor != null) {
+                PageDto<Say> next = index.findPage(cond, new Pageable(1, 50, cursor), sayMap::get);
+                all.addAll(next.getContent());
+                cursor = next.getNextCursor();
+            }
+            assertThat(all).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.back.say.repository;
+
+import com.back.say.domain.Say;
+import com.back.say.dto.PageDto;
+import com.back.say.dto.SayDto;
+import com.back.say.exception.RepositoryException;
+import com.back.say.utils.Pageable;
+import com.back.say.utils.SaySearchCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DB 대신 메모리 맵(FakeDb)에 배치를 반영해서, 대기 중인 쓰기와 DB 사이의 읽기 일관성만 본다.
+ */
+public class WriteBehindDbSayRepositoryTest {
+    private static WriteBehindDbSayRepository open(FakeDb db, WriteBehindDbSayRepository.BatchWriter writer) {
+        return open(db, writer, 1);
+    }
+
+    private static WriteBehindDbSayRepository open(FakeDb db, WriteBehindDbSayRepository.BatchWriter writer, long maxLatencyMillis) {
+        AtomicInteger nextBlock = new AtomicInteger(1);
+        return new WriteBehindDbSayRepository(db, writer, size -> nextBlock.getAndAdd(size), 100, maxLatencyMillis, 10);
+    }
+
+    @Test
+    @DisplayName("백그라운드 스레드가 배치를 쓰고 있는 중에 목록을 읽으면, 그 배치가 끝난 뒤의 DB 를 읽는다.")
+    public void t1() throws Exception {
+        FakeDb db = new FakeDb();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (WriteBehindDbSayRepository repository = open(db, (lastState, createdIds) -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            db.apply(lastState, createdIds);
+        })) {
+            int id = repository.create(new SayDto("작가", "명언"));
+            // 큐에서 꺼내져 반영 중인 상태
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<List<Say>> findAll = executor.submit(repository::findAll);
+            Thread.sleep(200);
+            boolean doneBeforeRelease = findAll.isDone();
+
+            release.countDown();
+            assertThat(doneBeforeRelease).isFalse();
+            assertThat(findAll.get(5, TimeUnit.SECONDS)).containsExactly(new Say(id, "작가", "명언"));
+        } finally {
+            // 실패해도 반영 스레드가 풀려야 close 가 끝난다.
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 같은 id 를 고쳐도 반영이 끝나면 findById 와 DB 의 값이 같다.")
+    public void t2() throws Exception {
+        FakeDb db = new FakeDb();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (WriteBehindDbSayRepository repository = open(db, db::apply)) {
+            int id = repository.create(new SayDto("작가", "명언"));
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        repository.update(id, new SayDto("작가" + thread, "명언 " + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            repository.flush();
+
+            assertThat(repository.findById(id)).isEqualTo(db.findById(id));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("데이터 때문에 실패한 배치는 한 건씩 다시 써서 나머지는 반영하고, 안 되는 것은 버린 뒤 다음 flush 에서 한 번 던진다.")
+    public void t3() {
+        FakeDb db = new FakeDb();
+        try (WriteBehindDbSayRepository repository = open(db, db::applyChecked)) {
+            int first = repository.create(new SayDto("작가", "명언1"));
+            int tooLong = repository.create(new SayDto("작가", "명".repeat(300)));
+            int last = repository.create(new SayDto("작가", "명언3"));
+
+            RepositoryException failure = null;
+            try {
+                repository.flush();
+            } catch (RepositoryException e) {
+                failure = e;
+            }
+
+            assertThat(failure).isNotNull();
+            assertThat(db.findById(first)).isPresent();
+            assertThat(db.findById(last)).isPresent();
+            assertThat(repository.findById(tooLong)).isEmpty();
+            assertThat(repository.getDeadLetters().keySet()).containsExactly(tooLong);
+
+            // 같은 실패는 한 번만 던지고 큐도 막히지 않는다.
+            int next = repository.create(new SayDto("작가", "명언4"));
+            repository.flush();
+            assertThat(db.findById(next)).isPresent();
+        }
+    }
+
+    @Test
+    @DisplayName("연결 문제로 실패한 배치는 되돌려 두고 다시 시도하며, 실패는 다음 쓰기에서 한 번 던진다.")
+    public void t4() throws Exception {
+        FakeDb db = new FakeDb();
+        AtomicInteger failures = new AtomicInteger(2);
+        try (WriteBehindDbSayRepository repository = open(db, (lastState, createdIds) -> {
+            if (failures.getAndDecrement() > 0)
+                throw new SQLException("연결 끊김", "08S01");
+            db.apply(lastState, createdIds);
+        })) {
+            int id = repository.create(new SayDto("작가", "명언"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (db.findById(id).isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(db.findById(id)).isPresent();
+
+            RepositoryException failure = null;
+            try {
+                repository.create(new SayDto("작가", "던져서 들어가지 않는 명언"));
+            } catch (RepositoryException e) {
+                failure = e;
+            }
+            assertThat(failure).isNotNull();
+
+            int next = repository.create(new SayDto("작가", "명언2"));
+            repository.flush();
+            assertThat(db.findAll().stream().map(Say::getId).toList()).containsExactly(next, id);
+            assertThat(repository.getDeadLetters()).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("같은 id 의 수정과 삭제가 동시에 들어와도 삭제된 행이 다시 살아나지 않는다.")
+    public void t5() throws Exception {
+        FakeDb db = new FakeDb();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (WriteBehindDbSayRepository repository = open(db, db::apply)) {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ids.add(repository.create(new SayDto("작가", "명언 " + i)));
+            }
+            repository.flush();
+
+            Future<?> updates = executor.submit(() -> ids.forEach(id -> repository.update(id, new SayDto("수정", "수정"))));
+            Future<?> deletes = executor.submit(() -> ids.forEach(repository::delete));
+            updates.get();
+            deletes.get();
+            repository.flush();
+
+            for (int id : ids) {
+                assertThat(db.findById(id)).isEmpty();
+                assertThat(repository.findById(id)).isEmpty();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("이미 있던 행의 수정은 UPDATE 로 반영하므로, 반영 전에 DB 에서 지워진 행을 되살리지 않는다.")
+    public void t6() {
+        FakeDb db = new FakeDb();
+        try (WriteBehindDbSayRepository repository = open(db, db::apply, 60_000)) {
+            int id = repository.create(new SayDto("작가", "명언"));
+            repository.flush();
+
+            assertThat(repository.update(id, new SayDto("작가", "고친 명언"))).isEqualTo(id);
+            db.rows.remove(id);
+            repository.flush();
+
+            assertThat(db.findById(id)).isEmpty();
+            assertThat(repository.findById(id)).isEmpty();
+        }
+    }
+
+    /**
+     * say 테이블 대신 쓰는 메모리 저장소. 목록은 id 내림차순이다.
+     */
+    private static class FakeDb implements SayRepository {
+        private final ConcurrentSkipListMap<Integer, Say> rows = new ConcurrentSkipListMap<>();
+
+        // say 테이블처럼 VARCHAR(255) 를 넘는 내용은 배치 전체를 실패시킨다.
+        void applyChecked(Map<Integer, Say> lastState, Set<Integer> createdIds) throws SQLException {
+            for (Say say : lastState.values()) {
+                if (say != null && say.getContent().length() > 255)
+                    throw new SQLException("Data too long for column 'content'", "22001");
+            }
+            apply(lastState, createdIds);
+        }
+
+        // 등록은 upsert, 이미 있던 행의 수정은 UPDATE 처럼 없는 행이면 아무것도 하지 않는다.
+        void apply(Map<Integer, Say> lastState, Set<Integer> createdIds) {
+            lastState.forEach((id, say) -> {
+                if (say == null)
+                    rows.remove(id);
+                else if (createdIds.contains(id))
+                    rows.put(id, say);
+                else
+                    rows.replace(id, say);
+            });
+        }
+
+        @Override
+        public Optional<Say> findById(int id) {
+            return Optional.ofNullable(rows.get(id));
+        }
+
+        @Override
+        public List<Say> findAll() {
+            return new ArrayList<>(rows.descendingMap().values());
+        }
+
+        @Override
+        public Stream<Say> streamAll() {
+            return findAll().stream();
+        }
+
+        @Override
+        public PageDto<Say> findPage(SaySearchCondition cond, Pageable pageable) {
+            List<Say> matched = findAll().stream().filter(cond::matches).toList();
+            int from = Math.min(pageable.getOffset(), matched.size());
+            int to = Math.min(from + pageable.getPageSize(), matched.size());
+            return new PageDto<>(matched.subList(from, to), pageable.getPageNo(), pageable.getPageSize(), matched.size());
+        }
+
+        @Override
+        public void build() {}
+
+        @Override
+        public int create(SayDto dto) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Integer> createAll(List<SayDto> dtoList) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int update(int id, SayDto dto) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int delete(int id) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
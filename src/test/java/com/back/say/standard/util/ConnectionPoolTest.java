@@ -0,0 +1,218 @@
+package com.back.say.standard.util;
+
+import com.back.standard.util.ConnectionPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MySQL 없이 풀 동작만 보도록 jdbc:fake-pool: 주소에 가짜 연결을 내주는 드라이버를 등록해서 쓴다.
+ */
+public class ConnectionPoolTest {
+    private static final FakeDriver DRIVER = new FakeDriver();
+
+    static {
+        try {
+            DriverManager.registerDriver(DRIVER);
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static ConnectionPool open(int maxSize) {
+        return new ConnectionPool("jdbc:fake-pool:test", "user", "pw", 0, maxSize, 60_000, 200, 60_000, 1);
+    }
+
+    @Test
+    @DisplayName("close 하면 실제 연결을 닫지 않고 반납해서 다음 borrow 가 다시 쓴다.")
+    public void t1() throws Exception {
+        ConnectionPool pool = open(2);
+        try {
+            int before = DRIVER.opened.size();
+            Connection first = pool.borrow();
+            assertThat(pool.getStats().getActive()).isEqualTo(1);
+            first.close();
+            first.close();
+            assertThat(pool.getStats().getIdle()).isEqualTo(1);
+
+            Connection second = pool.borrow();
+            second.close();
+
+            ConnectionPool.Stats stats = pool.getStats();
+            assertThat(stats.getBorrowCount()).isEqualTo(2L);
+            assertThat(stats.getCreatedCount()).isEqualTo(1L);
+            assertThat(DRIVER.opened.size() - before).isEqualTo(1);
+            assertThat(DRIVER.opened.get(before).closed).isFalse();
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("트랜잭션 중에 반납하면 롤백하고 autoCommit 을 되돌리며, 반납한 커넥션은 더 쓸 수 없다.")
+    public void t2() throws Exception {
+        ConnectionPool pool = open(1);
+        try {
+            Connection conn = pool.borrow();
+            conn.setAutoCommit(false);
+            FakeState state = DRIVER.opened.get(DRIVER.opened.size() - 1);
+            conn.close();
+
+            assertThat(state.rollbackCount).isEqualTo(1);
+            assertThat(state.autoCommit).isTrue();
+            assertThat(conn.isClosed()).isTrue();
+            SQLException afterReturn = null;
+            try {
+                conn.setAutoCommit(false);
+            } catch (SQLException e) {
+                afterReturn = e;
+            }
+            assertThat(afterReturn).isNotNull();
+
+            try (Connection reused = pool.borrow()) {
+                assertThat(reused.getAutoCommit()).isTrue();
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("unwrap 은 실제 연결이 아니라 프록시를 돌려주므로 반납한 뒤에는 unwrap 한 것도 쓸 수 없다.")
+    public void t3() throws Exception {
+        ConnectionPool pool = open(1);
+        try {
+            Connection conn = pool.borrow();
+            Connection unwrapped = conn.unwrap(Connection.class);
+            assertThat(unwrapped == conn).isTrue();
+            assertThat(conn.isWrapperFor(Connection.class)).isTrue();
+            assertThat(conn.isWrapperFor(Driver.class)).isFalse();
+
+            SQLException notWrapper = null;
+            try {
+                conn.unwrap(Driver.class);
+            } catch (SQLException e) {
+                notWrapper = e;
+            }
+            assertThat(notWrapper).isNotNull();
+
+            conn.close();
+            unwrapped.close();
+            assertThat(unwrapped.isClosed()).isTrue();
+            assertThat(DRIVER.opened.get(DRIVER.opened.size() - 1).closed).isFalse();
+            assertThat(pool.getStats().getIdle()).isEqualTo(1);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("최대 크기까지 빌려주면 대기 시간만큼 기다린 뒤 실패하고, 반납되면 다시 빌려준다.")
+    public void t4() throws Exception {
+        ConnectionPool pool = open(1);
+        try {
+            Connection held = pool.borrow();
+            SQLException timeout = null;
+            try {
+                pool.borrow();
+            } catch (SQLException e) {
+                timeout = e;
+            }
+            assertThat(timeout).isNotNull();
+            assertThat(pool.getStats().getTimeoutCount()).isEqualTo(1L);
+
+            held.close();
+            try (Connection again = pool.borrow()) {
+                assertThat(again.isClosed()).isFalse();
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    private static class FakeState {
+        private volatile boolean autoCommit = true;
+        private volatile boolean closed;
+        private volatile int rollbackCount;
+    }
+
+    /**
+     * 연결마다 autoCommit, 닫힘, 롤백 횟수만 기억하는 가짜 드라이버
+     */
+    private static class FakeDriver implements Driver {
+        private final List<FakeState> opened = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url))
+                return null;
+            FakeState state = new FakeState();
+            opened.add(state);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getAutoCommit" -> state.autoCommit;
+                        case "setAutoCommit" -> {
+                            state.autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            state.rollbackCount++;
+                            yield null;
+                        }
+                        case "close" -> {
+                            state.closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> state.closed;
+                        case "isValid" -> !state.closed;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "FakeConnection";
+                        default -> throw new SQLFeatureNotSupportedException(method.getName());
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:fake-pool:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.back.say.standard.util;
+
+import com.back.standard.util.LatencyHistogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+    @Test
+    @DisplayName("LatencyHistogram : 백분위 값은 3% 오차 안에서 맞는다.")
+    public void t1() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(100_000);
+        assertThat(snapshot.getMaxNanos()).isEqualTo(100_000_000L);
+        assertThat((double) snapshot.getP50Nanos()).isCloseTo(50_000_000, within(50_000_000 * 0.03));
+        assertThat((double) snapshot.getP99Nanos()).isCloseTo(99_000_000, within(99_000_000 * 0.03));
+        assertThat((double) snapshot.getP999Nanos()).isCloseTo(99_900_000, within(99_900_000 * 0.03));
+    }
+
+    @Test
+    @DisplayName("LatencyHistogram : 기록이 없으면 모두 0")
+    public void t2() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.getCount()).isZero();
+        assertThat(snapshot.getP99Nanos()).isZero();
+        assertThat(snapshot.getMaxNanos()).isZero();
+    }
+}